@@ -0,0 +1,27 @@
+package ecommerce;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Executa os benchmarks sempre com o profiler de GC, para que o relatório traga
+ * ops/s e taxa de alocação (gc.alloc.rate.norm) lado a lado. Aceita as mesmas
+ * opções de linha de comando do JMH (ex.: filtro por nome, -p tamanhoCarrinho=100).
+ */
+public class BenchmarkRunner
+{
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException
+	{
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,101 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.precificacao.PrecificacaoEmCentavos;
+import ecommerce.util.CarrinhosSinteticos;
+
+/**
+ * Mede como {@link CompraService#calcularCustoTotal} (motor fundido), o
+ * cálculo original em passos, o motor em centavos e cada uma das passadas sobre
+ * os itens escalam com o tamanho do carrinho.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompraServiceBenchmark
+{
+
+	@Param({ "1", "10", "100", "1000", "10000" })
+	private int tamanhoCarrinho;
+
+	private CompraService compraService;
+	private PrecificacaoEmCentavos precificacaoEmCentavos;
+	private CarrinhoDeCompras carrinho;
+	private List<ItemCompra> itens;
+	private BigDecimal pesoTotal;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		compraService = new CompraService(null, null, null, null);
+		precificacaoEmCentavos = new PrecificacaoEmCentavos();
+		carrinho = CarrinhosSinteticos.carrinho(tamanhoCarrinho);
+		itens = carrinho.getItens();
+		pesoTotal = compraService.calcularPesoTotal(itens);
+	}
+
+	@Benchmark
+	public BigDecimal calcularCustoTotal()
+	{
+		return compraService.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE);
+	}
+
+	@Benchmark
+	public BigDecimal calcularCustoTotalEmPassos()
+	{
+		return compraService.calcularCustoTotalEmPassos(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE);
+	}
+
+	@Benchmark
+	public BigDecimal calcularCustoTotalEmCentavos()
+	{
+		return precificacaoEmCentavos.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE);
+	}
+
+	@Benchmark
+	public BigDecimal calcularSubtotal()
+	{
+		return compraService.calcularSubtotal(itens);
+	}
+
+	@Benchmark
+	public BigDecimal calcularPesoTotal()
+	{
+		return compraService.calcularPesoTotal(itens);
+	}
+
+	@Benchmark
+	public BigDecimal calcularFrete()
+	{
+		return compraService.calcularFrete(pesoTotal);
+	}
+
+	@Benchmark
+	public BigDecimal calcularTaxaDeProdutosFrageis()
+	{
+		return compraService.calcularTaxaDeProdutosFrageis(itens);
+	}
+}
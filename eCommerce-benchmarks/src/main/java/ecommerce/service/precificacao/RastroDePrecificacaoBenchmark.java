@@ -0,0 +1,72 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ecommerce.dto.ExplicacaoCustoDTO;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.util.CarrinhosSinteticos;
+
+/**
+ * Compara o motor fundido sem rastro (modo normal), com um rastro reaproveitado
+ * (só registra as etapas) e com o detalhamento completo montado a cada cálculo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RastroDePrecificacaoBenchmark
+{
+
+	@Param({ "1", "10", "100", "1000", "10000" })
+	private int tamanhoCarrinho;
+
+	private PrecificacaoFundida precificacao;
+	private RastroDePrecificacao rastro;
+	private List<ItemCompra> itens;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		precificacao = new PrecificacaoFundida();
+		itens = CarrinhosSinteticos.carrinho(tamanhoCarrinho).getItens();
+		rastro = new RastroDePrecificacao(tamanhoCarrinho);
+	}
+
+	@Benchmark
+	public BigDecimal semRastro()
+	{
+		return precificacao.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE);
+	}
+
+	@Benchmark
+	public BigDecimal comRastro()
+	{
+		return precificacao.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE, rastro);
+	}
+
+	@Benchmark
+	public ExplicacaoCustoDTO comExplicacao()
+	{
+		precificacao.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE, rastro);
+		return rastro.explicar();
+	}
+}
@@ -0,0 +1,65 @@
+package ecommerce.util;
+
+import java.util.Random;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Carrinhos sintéticos para os benchmarks, montados com os mesmos builders de
+ * {@link TestUtils} usados nos testes de {@code CompraService}.
+ */
+public final class CarrinhosSinteticos
+{
+
+	/** Quantidade de produtos distintos reaproveitados entre as linhas do carrinho. */
+	private static final int TAMANHO_CATALOGO = 64;
+
+	private static final long SEMENTE = 42L;
+
+	private CarrinhosSinteticos()
+	{
+	}
+
+	/**
+	 * Monta um carrinho com {@code tamanho} itens. Os produtos variam em preço,
+	 * tipo, fragilidade e em qual peso prevalece (físico ou cúbico), sempre com a
+	 * mesma semente para que todas as execuções meçam o mesmo carrinho.
+	 */
+	public static CarrinhoDeCompras carrinho(int tamanho)
+	{
+		Random random = new Random(SEMENTE);
+		Produto[] catalogo = catalogo(random);
+
+		ItemCompra[] itens = new ItemCompra[tamanho];
+		for (int i = 0; i < tamanho; i++)
+		{
+			Produto produto = catalogo[i % TAMANHO_CATALOGO];
+			itens[i] = TestUtils.item(produto, 1 + random.nextInt(5));
+		}
+		return TestUtils.carrinho(itens);
+	}
+
+	private static Produto[] catalogo(Random random)
+	{
+		TipoProduto[] tipos = TipoProduto.values();
+		Produto[] catalogo = new Produto[TAMANHO_CATALOGO];
+
+		for (int i = 0; i < TAMANHO_CATALOGO; i++)
+		{
+			String preco = (1 + random.nextInt(500)) + "." + (10 + random.nextInt(90));
+			String peso = random.nextInt(20) + "." + random.nextInt(10) + "1";
+			String comprimento = String.valueOf(1 + random.nextInt(60));
+			String largura = String.valueOf(1 + random.nextInt(60));
+			String altura = String.valueOf(1 + random.nextInt(60));
+
+			Produto produto = TestUtils.produto("Produto " + i, preco, peso, comprimento, largura, altura,
+					random.nextInt(4) == 0, tipos[i % tipos.length]);
+			produto.setId((long) i + 1);
+			catalogo[i] = produto;
+		}
+		return catalogo;
+	}
+}
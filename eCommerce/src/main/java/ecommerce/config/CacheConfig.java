@@ -0,0 +1,41 @@
+package ecommerce.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@Configuration
+@EnableCaching
+public class CacheConfig
+{
+
+	public static final String CACHE_CLIENTES = "clientes";
+	public static final String CACHE_COTACOES = "cotacoes";
+
+	/**
+	 * Cache de clientes por id e cache de cotações por conteúdo do carrinho
+	 * (usado por {@code PrecificacaoMemorizada}), ambos limitados por tamanho e
+	 * por tempo de vida. As estatísticas ficam ligadas para o actuator publicar
+	 * acertos, faltas e remoções em {@code cache.gets} e {@code cache.evictions}.
+	 */
+	@Bean
+	public CacheManager cacheManager(@Value("${ecommerce.cache.clientes.tamanho-maximo:10000}") long tamanhoMaximo,
+			@Value("${ecommerce.cache.clientes.ttl:10m}") Duration ttl,
+			@Value("${ecommerce.cache.cotacoes.tamanho-maximo:10000}") long tamanhoMaximoCotacoes,
+			@Value("${ecommerce.cache.cotacoes.ttl:5m}") Duration ttlCotacoes)
+	{
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+		cacheManager.registerCustomCache(CACHE_CLIENTES,
+				Caffeine.newBuilder().maximumSize(tamanhoMaximo).expireAfterWrite(ttl).recordStats().build());
+		cacheManager.registerCustomCache(CACHE_COTACOES, Caffeine.newBuilder().maximumSize(tamanhoMaximoCotacoes)
+				.expireAfterWrite(ttlCotacoes).recordStats().build());
+		return cacheManager;
+	}
+}
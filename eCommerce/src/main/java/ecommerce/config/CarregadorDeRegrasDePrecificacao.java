@@ -0,0 +1,179 @@
+package ecommerce.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.precificacao.RegrasDePrecificacao;
+import ecommerce.service.precificacao.RegrasDePrecificacao.Faixa;
+
+/**
+ * Lê as regras de precificação de {@code ecommerce.precificacao.regras.*} e as
+ * compila. Se {@code ecommerce.precificacao.regras.arquivo} apontar para um
+ * arquivo de propriedades, as chaves do arquivo têm precedência, e o arquivo é
+ * lido de novo a cada carga: assim as regras podem ser alteradas sem reiniciar
+ * a aplicação (ver {@link RegrasDePrecificacaoEndpoint}).
+ *
+ * Faixas são escritas como {@code limite:valor} separados por vírgula, em
+ * qualquer ordem; regras por região ou tipo de cliente como
+ * {@code NOME:valor}. Chaves ausentes ficam com as regras padrão; uma chave
+ * vazia desliga a regra (por exemplo, o desconto por quantidade de um tipo).
+ */
+@Component
+public class CarregadorDeRegrasDePrecificacao
+{
+
+	static final String PREFIXO = "ecommerce.precificacao.regras.";
+
+	private final Environment ambiente;
+
+	@Autowired
+	public CarregadorDeRegrasDePrecificacao(Environment ambiente)
+	{
+		this.ambiente = ambiente;
+	}
+
+	/**
+	 * @throws IllegalArgumentException se alguma regra estiver mal escrita ou for
+	 *                                  inválida; as regras em vigor não mudam
+	 */
+	public RegrasDePrecificacao carregar()
+	{
+		Properties arquivo = lerArquivo(ambiente.getProperty(PREFIXO + "arquivo", ""));
+		UnaryOperator<String> propriedade = chave -> arquivo.getProperty(PREFIXO + chave,
+				ambiente.getProperty(PREFIXO + chave));
+		RegrasDePrecificacao padrao = RegrasDePrecificacao.padrao();
+
+		Map<TipoProduto, List<Faixa>> descontoPorQuantidade = new EnumMap<>(TipoProduto.class);
+		for (TipoProduto tipo : TipoProduto.values())
+		{
+			String chave = "desconto-por-quantidade." + tipo.name().toLowerCase(Locale.ROOT);
+			List<Faixa> faixas = lerFaixas(chave, propriedade.apply(chave),
+					padrao.descontoPorQuantidade().getOrDefault(tipo, List.of()));
+			if (!faixas.isEmpty())
+			{
+				descontoPorQuantidade.put(tipo, faixas);
+			}
+		}
+
+		return RegrasDePrecificacao.compilar(
+				lerFaixas("desconto-por-valor", propriedade.apply("desconto-por-valor"), padrao.descontoPorValor()),
+				lerFaixas("frete.faixas", propriedade.apply("frete.faixas"), padrao.faixasDeFrete()),
+				lerValor("frete.acima-das-faixas", propriedade.apply("frete.acima-das-faixas"),
+						padrao.freteAcimaDasFaixas()),
+				lerPorNome(Regiao.class, "multiplicador-regiao", propriedade.apply("multiplicador-regiao")),
+				lerPorNome(TipoCliente.class, "desconto-frete-cliente", propriedade.apply("desconto-frete-cliente")),
+				descontoPorQuantidade);
+	}
+
+	static List<Faixa> lerFaixas(String chave, String valor, List<Faixa> padrao)
+	{
+		if (valor == null)
+		{
+			return padrao;
+		}
+		List<Faixa> faixas = new ArrayList<>();
+		for (String[] par : pares(chave, valor))
+		{
+			faixas.add(new Faixa(numero(chave, par[0]), numero(chave, par[1])));
+		}
+		return faixas;
+	}
+
+	static <E extends Enum<E>> Map<E, BigDecimal> lerPorNome(Class<E> tipo, String chave, String valor)
+	{
+		Map<E, BigDecimal> valores = new EnumMap<>(tipo);
+		if (valor == null)
+		{
+			return valores;
+		}
+		for (String[] par : pares(chave, valor))
+		{
+			try
+			{
+				valores.put(Enum.valueOf(tipo, par[0].toUpperCase(Locale.ROOT)), numero(chave, par[1]));
+			}
+			catch (IllegalArgumentException e)
+			{
+				throw invalida(chave, par[0]);
+			}
+		}
+		return valores;
+	}
+
+	private static BigDecimal lerValor(String chave, String valor, BigDecimal padrao)
+	{
+		return valor == null || valor.isBlank() ? padrao : numero(chave, valor.trim());
+	}
+
+	private static List<String[]> pares(String chave, String valor)
+	{
+		List<String[]> pares = new ArrayList<>();
+		for (String entrada : valor.split(","))
+		{
+			if (entrada.isBlank())
+			{
+				continue;
+			}
+			String[] par = entrada.split(":");
+			if (par.length != 2)
+			{
+				throw invalida(chave, entrada);
+			}
+			pares.add(new String[] { par[0].trim(), par[1].trim() });
+		}
+		return pares;
+	}
+
+	private static BigDecimal numero(String chave, String valor)
+	{
+		try
+		{
+			return new BigDecimal(valor);
+		}
+		catch (NumberFormatException e)
+		{
+			throw invalida(chave, valor);
+		}
+	}
+
+	private static IllegalArgumentException invalida(String chave, String valor)
+	{
+		return new IllegalArgumentException("Regra de precificação inválida em " + PREFIXO + chave + ": " + valor);
+	}
+
+	private static Properties lerArquivo(String caminho)
+	{
+		Properties propriedades = new Properties();
+		if (caminho.isBlank())
+		{
+			return propriedades;
+		}
+		try (Reader leitor = Files.newBufferedReader(Path.of(caminho), StandardCharsets.UTF_8))
+		{
+			propriedades.load(leitor);
+			return propriedades;
+		}
+		catch (IOException e)
+		{
+			throw new IllegalArgumentException("Não foi possível ler as regras de precificação de " + caminho, e);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package ecommerce.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Executor das chamadas de estoque e pagamento do checkout paralelo. Fica
+ * embrulhado para que o contexto não tenha um bean do tipo {@link Executor}:
+ * com um, o Spring Boot deixaria de criar o seu {@code applicationTaskExecutor}.
+ * Encerrado junto com o contexto.
+ */
+public record ChamadasExternas(Executor executor) implements AutoCloseable
+{
+
+	@Override
+	public void close()
+	{
+		if (executor instanceof ExecutorService servico)
+		{
+			servico.shutdown();
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package ecommerce.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+@Configuration
+public class CheckoutConfig
+{
+
+	/**
+	 * Executor das chamadas de estoque e pagamento no modo de orquestração
+	 * {@code paralela}. Com a fila cheia a chamada roda na própria thread da
+	 * requisição, o que segura a entrada em vez de descartar trabalho. No modo
+	 * {@code sequencial} (padrão) o bean não existe.
+	 *
+	 * Com {@code ecommerce.threads.virtuais=true} cada chamada ganha a sua thread
+	 * virtual e o limite de threads e a fila deixam de valer.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "ecommerce.checkout.orquestracao", havingValue = "paralela")
+	public ChamadasExternas chamadasExternas(@Value("${ecommerce.threads.virtuais:false}") boolean threadsVirtuais,
+			@Value("${ecommerce.checkout.chamadas-externas.threads:64}") int threads,
+			@Value("${ecommerce.checkout.chamadas-externas.fila:1000}") int fila)
+	{
+		if (threadsVirtuais)
+		{
+			return new ChamadasExternas(ThreadsVirtuais.novoExecutorPorTarefa("chamadas-externas-"));
+		}
+		return new ChamadasExternas(new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(fila), new CustomizableThreadFactory("chamadas-externas-"),
+				new ThreadPoolExecutor.CallerRunsPolicy()));
+	}
+}
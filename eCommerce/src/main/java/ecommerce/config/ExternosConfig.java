@@ -0,0 +1,78 @@
+package ecommerce.config;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import ecommerce.external.ChamadaProtegida;
+import ecommerce.external.EstoqueEmMicroLote;
+import ecommerce.external.EstoqueProtegido;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.external.PagamentoProtegido;
+
+/**
+ * Monta o estoque e o pagamento usados pelo checkout a partir das
+ * implementações base ({@code estoqueSimulado} e {@code pagamentoSimulado}):
+ * primeiro os micro-lotes, se habilitados, e por fora a proteção de
+ * {@link ResilienciaConfig}, se habilitada.
+ */
+@Configuration
+public class ExternosConfig
+{
+
+	/**
+	 * Com {@code ecommerce.estoque.micro-lote.habilitado=true}, o checkout passa a
+	 * usar o estoque em micro-lotes na frente do estoque configurado. Desligado
+	 * (padrão), cada checkout chama o estoque diretamente. Sem threads virtuais,
+	 * os lotes que expiram são enviados por {@code envio.threads} threads com
+	 * fila de {@code envio.fila}; com a fila cheia, o próprio agendador envia o
+	 * lote, o que segura a abertura de novas janelas até o estoque responder.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "ecommerce.estoque.micro-lote.habilitado", havingValue = "true")
+	public EstoqueEmMicroLote estoqueEmMicroLote(@Qualifier("estoqueSimulado") IEstoqueExternal estoque,
+			@Value("${ecommerce.estoque.micro-lote.tamanho-maximo:64}") int tamanhoMaximo,
+			@Value("${ecommerce.estoque.micro-lote.janela:2ms}") Duration janela,
+			@Value("${ecommerce.estoque.micro-lote.envio.threads:16}") int threads,
+			@Value("${ecommerce.estoque.micro-lote.envio.fila:256}") int fila,
+			@Value("${ecommerce.threads.virtuais:false}") boolean threadsVirtuais)
+	{
+		ExecutorService envio = threadsVirtuais ? ThreadsVirtuais.novoExecutorPorTarefa("estoque-lote-")
+				: new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(fila),
+						new CustomizableThreadFactory("estoque-lote-"));
+		return new EstoqueEmMicroLote(estoque, tamanhoMaximo, janela, envio);
+	}
+
+	@Bean
+	@Primary
+	public IEstoqueExternal estoqueExternal(@Qualifier("estoqueSimulado") IEstoqueExternal estoque,
+			ObjectProvider<EstoqueEmMicroLote> microLote,
+			@Qualifier(ResilienciaConfig.PROTECAO_ESTOQUE) ObjectProvider<ChamadaProtegida> protecao)
+	{
+		EstoqueEmMicroLote emMicroLote = microLote.getIfAvailable();
+		IEstoqueExternal montado = emMicroLote != null ? emMicroLote : estoque;
+		ChamadaProtegida chamadaProtegida = protecao.getIfAvailable();
+		return chamadaProtegida != null ? new EstoqueProtegido(montado, chamadaProtegida) : montado;
+	}
+
+	@Bean
+	@Primary
+	public IPagamentoExternal pagamentoExternal(@Qualifier("pagamentoSimulado") IPagamentoExternal pagamento,
+			@Qualifier(ResilienciaConfig.PROTECAO_PAGAMENTO) ObjectProvider<ChamadaProtegida> protecao)
+	{
+		ChamadaProtegida chamadaProtegida = protecao.getIfAvailable();
+		return chamadaProtegida != null ? new PagamentoProtegido(pagamento, chamadaProtegida) : pagamento;
+	}
+}
@@ -0,0 +1,57 @@
+package ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ecommerce.service.precificacao.MotorDePrecificacao;
+import ecommerce.service.precificacao.PrecificacaoEmCentavos;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.service.precificacao.PrecificacaoMemorizada;
+import ecommerce.service.precificacao.RegrasVigentes;
+
+@Configuration
+public class PrecificacaoConfig
+{
+
+	/** Regras de desconto e frete lidas da configuração, trocáveis em tempo de execução. */
+	@Bean
+	public RegrasVigentes regrasDePrecificacao(CarregadorDeRegrasDePrecificacao carregador)
+	{
+		return new RegrasVigentes(carregador.carregar());
+	}
+
+	/**
+	 * Seleciona o motor usado por {@code CompraService.calcularCustoTotal}:
+	 * {@code fundido} (BigDecimal, padrão) ou {@code centavos} (ponto fixo em long).
+	 * Com a memorização ligada, o motor fica atrás do cache de cotações.
+	 */
+	@Bean
+	public MotorDePrecificacao motorDePrecificacao(@Value("${ecommerce.precificacao.modo:fundido}") String modo,
+			@Value("${ecommerce.precificacao.memorizacao:true}") boolean memorizar, RegrasVigentes regras,
+			CacheManager cacheManager)
+	{
+		MotorDePrecificacao motor = criarMotor(modo, regras);
+		if (!memorizar)
+		{
+			return motor;
+		}
+		CaffeineCache cotacoes = (CaffeineCache) cacheManager.getCache(CacheConfig.CACHE_COTACOES);
+		return new PrecificacaoMemorizada(motor, regras, cotacoes.getNativeCache());
+	}
+
+	private static MotorDePrecificacao criarMotor(String modo, RegrasVigentes regras)
+	{
+		switch (modo.trim().toLowerCase())
+		{
+			case "fundido":
+				return new PrecificacaoFundida(regras);
+			case "centavos":
+				return new PrecificacaoEmCentavos(regras, new PrecificacaoFundida(regras));
+			default:
+				throw new IllegalArgumentException("Modo de precificação desconhecido: " + modo);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package ecommerce.config;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.precificacao.RegrasDePrecificacao;
+import ecommerce.service.precificacao.RegrasDePrecificacao.Faixa;
+import ecommerce.service.precificacao.RegrasVigentes;
+
+/**
+ * {@code GET /actuator/precificacao} mostra as regras em vigor;
+ * {@code POST /actuator/precificacao} recarrega as regras da configuração e as
+ * troca sem interromper as cotações. Regras inválidas respondem 400 e as
+ * anteriores continuam valendo.
+ */
+@Component
+@Endpoint(id = "precificacao")
+public class RegrasDePrecificacaoEndpoint
+{
+
+	public record Regras(long versao, List<Faixa> descontoPorValor, List<Faixa> faixasDeFrete,
+			BigDecimal freteAcimaDasFaixas, Map<Regiao, BigDecimal> multiplicadorPorRegiao,
+			Map<TipoCliente, BigDecimal> descontoDeFretePorCliente,
+			Map<TipoProduto, List<Faixa>> descontoPorQuantidade)
+	{
+	}
+
+	private final RegrasVigentes regrasVigentes;
+	private final CarregadorDeRegrasDePrecificacao carregador;
+
+	@Autowired
+	public RegrasDePrecificacaoEndpoint(RegrasVigentes regrasVigentes, CarregadorDeRegrasDePrecificacao carregador)
+	{
+		this.regrasVigentes = regrasVigentes;
+		this.carregador = carregador;
+	}
+
+	@ReadOperation
+	public Regras regras()
+	{
+		return descrever(regrasVigentes.versao(), regrasVigentes.get());
+	}
+
+	@WriteOperation
+	public Regras recarregar()
+	{
+		RegrasDePrecificacao novas;
+		try
+		{
+			novas = carregador.carregar();
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+		}
+		regrasVigentes.trocar(novas);
+		return regras();
+	}
+
+	private static Regras descrever(long versao, RegrasDePrecificacao regras)
+	{
+		return new Regras(versao, regras.descontoPorValor(), regras.faixasDeFrete(), regras.freteAcimaDasFaixas(),
+				regras.multiplicadorPorRegiao(), regras.descontoDeFretePorCliente(), regras.descontoPorQuantidade());
+	}
+}
@@ -0,0 +1,66 @@
+package ecommerce.config;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import ecommerce.external.ChamadaProtegida;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bulkhead, tempo máximo e circuit breaker separados para estoque e pagamento,
+ * configurados em {@code ecommerce.resiliencia.estoque.*} e
+ * {@code ecommerce.resiliencia.pagamento.*}. Com
+ * {@code ecommerce.resiliencia.habilitada=false} as chamadas vão direto aos
+ * serviços. Com {@code ecommerce.threads.virtuais=true} as chamadas rodam em
+ * threads virtuais, limitadas por um semáforo em vez do pool de threads do
+ * bulkhead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.resiliencia.habilitada", havingValue = "true", matchIfMissing = true)
+public class ResilienciaConfig
+{
+
+	public static final String PROTECAO_ESTOQUE = "protecaoEstoque";
+	public static final String PROTECAO_PAGAMENTO = "protecaoPagamento";
+
+	@Bean(name = PROTECAO_ESTOQUE, destroyMethod = "close")
+	public ChamadaProtegida protecaoEstoque(Environment ambiente, MeterRegistry metricas)
+	{
+		return new ChamadaProtegida("estoque", configuracao(ambiente, "estoque"), metricas,
+				threadsVirtuais(ambiente, "estoque-"));
+	}
+
+	@Bean(name = PROTECAO_PAGAMENTO, destroyMethod = "close")
+	public ChamadaProtegida protecaoPagamento(Environment ambiente, MeterRegistry metricas)
+	{
+		return new ChamadaProtegida("pagamento", configuracao(ambiente, "pagamento"), metricas,
+				threadsVirtuais(ambiente, "pagamento-"));
+	}
+
+	private static ExecutorService threadsVirtuais(Environment ambiente, String prefixo)
+	{
+		boolean habilitadas = ambiente.getProperty("ecommerce.threads.virtuais", Boolean.class, false);
+		return habilitadas ? ThreadsVirtuais.novoExecutorPorTarefa(prefixo) : null;
+	}
+
+	/** Mesmas chaves para os dois serviços, cada um com o seu prefixo. */
+	private static ChamadaProtegida.Configuracao configuracao(Environment ambiente, String servico)
+	{
+		String prefixo = "ecommerce.resiliencia." + servico + ".";
+		return new ChamadaProtegida.Configuracao(
+				ambiente.getProperty(prefixo + "concorrencia", Integer.class, 64),
+				ambiente.getProperty(prefixo + "fila", Integer.class, 100),
+				ambiente.getProperty(prefixo + "tempo-maximo", Duration.class, Duration.ofSeconds(2)),
+				ambiente.getProperty(prefixo + "circuito.taxa-falhas", Float.class, 50f),
+				ambiente.getProperty(prefixo + "circuito.janela", Integer.class, 50),
+				ambiente.getProperty(prefixo + "circuito.minimo-chamadas", Integer.class, 20),
+				ambiente.getProperty(prefixo + "circuito.espera-aberto", Duration.class, Duration.ofSeconds(10)),
+				ambiente.getProperty(prefixo + "compensacao.tentativas", Integer.class, 5),
+				ambiente.getProperty(prefixo + "compensacao.intervalo", Duration.class, Duration.ofMillis(100)));
+	}
+}
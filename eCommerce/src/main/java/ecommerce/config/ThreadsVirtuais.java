@@ -0,0 +1,61 @@
+package ecommerce.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Criação de executores com threads virtuais. O projeto compila para Java 17,
+ * então a API do Java 21 ({@code Thread.ofVirtual()}) é acessada por reflexão.
+ */
+public final class ThreadsVirtuais
+{
+
+	private ThreadsVirtuais()
+	{
+	}
+
+	/** Indica se a JVM em execução oferece threads virtuais. */
+	public static boolean suportadas()
+	{
+		try
+		{
+			Thread.class.getMethod("ofVirtual").invoke(null);
+			return true;
+		}
+		catch (ReflectiveOperationException | UnsupportedOperationException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Executor que cria uma thread virtual por tarefa, com nomes
+	 * {@code prefixo0}, {@code prefixo1}, ...
+	 *
+	 * @throws IllegalStateException se a JVM não oferecer threads virtuais
+	 */
+	public static ExecutorService novoExecutorPorTarefa(String prefixo)
+	{
+		try
+		{
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> tipoBuilder = Class.forName("java.lang.Thread$Builder");
+			builder = tipoBuilder.getMethod("name", String.class, long.class).invoke(builder, prefixo, 0L);
+			ThreadFactory fabrica = (ThreadFactory) tipoBuilder.getMethod("factory").invoke(builder);
+
+			Method novoExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) novoExecutor.invoke(null, fabrica);
+		}
+		catch (NoSuchMethodException | ClassNotFoundException e)
+		{
+			throw new IllegalStateException("Threads virtuais exigem Java 21 ou superior", e);
+		}
+		catch (InvocationTargetException | IllegalAccessException e)
+		{
+			throw new IllegalStateException("Não foi possível criar threads virtuais", e);
+		}
+	}
+}
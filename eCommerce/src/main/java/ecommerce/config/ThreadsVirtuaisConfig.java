@@ -0,0 +1,52 @@
+package ecommerce.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Modo de threads virtuais ({@code ecommerce.threads.virtuais=true}, Java 21+):
+ * cada requisição HTTP roda em uma thread virtual em vez do pool de threads do
+ * Tomcat, então chamadas bloqueantes a estoque e pagamento não esgotam o pool.
+ * As chamadas externas do checkout paralelo seguem o mesmo modo (ver
+ * {@link CheckoutConfig}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.threads.virtuais", havingValue = "true")
+public class ThreadsVirtuaisConfig
+{
+
+	/**
+	 * Entrega ao Tomcat o executor de threads virtuais e o encerra com o
+	 * contexto. O executor não é um bean, para não tomar o lugar do
+	 * {@code applicationTaskExecutor} do Spring Boot.
+	 */
+	static class ThreadsVirtuaisNoTomcat implements TomcatProtocolHandlerCustomizer<ProtocolHandler>, DisposableBean
+	{
+
+		private final ExecutorService executor = ThreadsVirtuais.novoExecutorPorTarefa("http-virtual-");
+
+		@Override
+		public void customize(ProtocolHandler protocolHandler)
+		{
+			protocolHandler.setExecutor(executor);
+		}
+
+		@Override
+		public void destroy()
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Bean
+	public ThreadsVirtuaisNoTomcat threadsVirtuaisNoTomcat()
+	{
+		return new ThreadsVirtuaisNoTomcat();
+	}
+}
@@ -0,0 +1,88 @@
+package ecommerce.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.net.URI;
+import ecommerce.dto.ItemDoCarrinhoDTO;
+import ecommerce.dto.TotaisCarrinhoDTO;
+import ecommerce.service.EdicaoDeCarrinhoService;
+
+/**
+ * Edição dos itens de um carrinho. Cada resposta traz os totais do carrinho já
+ * atualizados: subtotal, peso, faixas de desconto e de frete e custo total.
+ */
+@RestController
+@RequestMapping("/carrinhos/{carrinhoId}")
+public class CarrinhoController
+{
+
+	private final EdicaoDeCarrinhoService edicaoDeCarrinhoService;
+
+	@Autowired
+	public CarrinhoController(EdicaoDeCarrinhoService edicaoDeCarrinhoService)
+	{
+		this.edicaoDeCarrinhoService = edicaoDeCarrinhoService;
+	}
+
+	@GetMapping("/totais")
+	public ResponseEntity<TotaisCarrinhoDTO> consultarTotais(@PathVariable Long carrinhoId,
+			@RequestParam Long clienteId)
+	{
+		try
+		{
+			return ResponseEntity.ok(edicaoDeCarrinhoService.consultarTotais(carrinhoId, clienteId));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@PostMapping("/itens")
+	public ResponseEntity<ItemDoCarrinhoDTO> adicionarItem(@PathVariable Long carrinhoId,
+			@RequestParam Long clienteId, @RequestParam Long produtoId, @RequestParam Long quantidade)
+	{
+		try
+		{
+			ItemDoCarrinhoDTO item = edicaoDeCarrinhoService.adicionarItem(carrinhoId, clienteId, produtoId,
+					quantidade);
+			return ResponseEntity.created(URI.create("/carrinhos/" + carrinhoId + "/itens/" + item.itemId()))
+					.body(item);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@PutMapping("/itens/{itemId}")
+	public ResponseEntity<ItemDoCarrinhoDTO> alterarQuantidade(@PathVariable Long carrinhoId,
+			@PathVariable Long itemId, @RequestParam Long clienteId, @RequestParam Long quantidade)
+	{
+		try
+		{
+			return ResponseEntity
+					.ok(edicaoDeCarrinhoService.alterarQuantidade(carrinhoId, clienteId, itemId, quantidade));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@DeleteMapping("/itens/{itemId}")
+	public ResponseEntity<TotaisCarrinhoDTO> removerItem(@PathVariable Long carrinhoId, @PathVariable Long itemId,
+			@RequestParam Long clienteId)
+	{
+		try
+		{
+			return ResponseEntity.ok(edicaoDeCarrinhoService.removerItem(carrinhoId, clienteId, itemId));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+}
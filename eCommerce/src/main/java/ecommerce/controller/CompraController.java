@@ -1,11 +1,25 @@
 package ecommerce.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import ecommerce.dto.CheckoutAssincronoDTO;
 import ecommerce.dto.CompraDTO;
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.dto.CotacaoLoteDTO;
+import ecommerce.dto.ExplicacaoCustoDTO;
+import ecommerce.dto.ExplicacaoCustoJson;
+import ecommerce.service.CheckoutAssincronoService;
+import ecommerce.service.CompraIdempotenteService;
 import ecommerce.service.CompraService;
+import ecommerce.service.CotacaoEmLoteService;
 
 @RestController
 @RequestMapping("/")
@@ -13,19 +27,33 @@ public class CompraController
 {
 
 	private final CompraService compraService;
+	private final CotacaoEmLoteService cotacaoEmLoteService;
+	private final CheckoutAssincronoService checkoutAssincronoService;
+	private final CompraIdempotenteService compraIdempotenteService;
 
 	@Autowired
-	public CompraController(CompraService compraService)
+	public CompraController(CompraService compraService, CotacaoEmLoteService cotacaoEmLoteService,
+			CheckoutAssincronoService checkoutAssincronoService, CompraIdempotenteService compraIdempotenteService)
 	{
 		this.compraService = compraService;
+		this.cotacaoEmLoteService = cotacaoEmLoteService;
+		this.checkoutAssincronoService = checkoutAssincronoService;
+		this.compraIdempotenteService = compraIdempotenteService;
 	}
 
+	/**
+	 * Com o cabeçalho {@code Idempotency-Key}, repetições da mesma compra recebem
+	 * a resposta da primeira execução em vez de cobrar de novo.
+	 */
 	@PostMapping("/finalizar")
-	public ResponseEntity<CompraDTO> finalizarCompra(@RequestParam Long carrinhoId, @RequestParam Long clienteId)
+	public ResponseEntity<CompraDTO> finalizarCompra(@RequestParam Long carrinhoId, @RequestParam Long clienteId,
+			@RequestHeader(name = "Idempotency-Key", required = false) String chaveIdempotencia)
 	{
 		try
 		{
-			CompraDTO compraDTO = compraService.finalizarCompra(carrinhoId, clienteId);
+			CompraDTO compraDTO = chaveIdempotencia == null || chaveIdempotencia.isBlank()
+					? compraService.finalizarCompra(carrinhoId, clienteId)
+					: compraIdempotenteService.finalizarCompra(chaveIdempotencia, carrinhoId, clienteId);
 			return ResponseEntity.ok(compraDTO);
 		}
 		catch (IllegalArgumentException e)
@@ -41,5 +69,121 @@ public class CompraController
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
 					.body(new CompraDTO(false, null, "Erro ao processar compra."));
 		}
-	} 
+	}
+
+	/**
+	 * Aceita o checkout e responde 202 com o id; a situação fica em
+	 * {@code GET /finalizar/assincrono/{checkoutId}}. Com a fila cheia responde 503.
+	 */
+	@PostMapping("/finalizar/assincrono")
+	public ResponseEntity<CheckoutAssincronoDTO> finalizarCompraAssincrona(@RequestParam Long carrinhoId,
+			@RequestParam Long clienteId)
+	{
+		try
+		{
+			CheckoutAssincronoDTO checkout = checkoutAssincronoService.iniciar(carrinhoId, clienteId);
+			return ResponseEntity.accepted().location(URI.create("/finalizar/assincrono/" + checkout.checkoutId()))
+					.body(checkout);
+		}
+		catch (RejectedExecutionException e)
+		{
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+		}
+	}
+
+	@GetMapping("/finalizar/assincrono/{checkoutId}")
+	public ResponseEntity<CheckoutAssincronoDTO> consultarCompraAssincrona(@PathVariable String checkoutId)
+	{
+		CheckoutAssincronoDTO checkout = checkoutAssincronoService.consultar(checkoutId);
+		if (checkout == null)
+		{
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(checkout);
+	}
+
+	/**
+	 * Cotação somente leitura para a vitrine, com o mesmo corpo de
+	 * {@code /cotacoes/explicacao}. A resposta leva um ETag do conteúdo do
+	 * carrinho; com {@code If-None-Match} igual responde 304 sem calcular o custo.
+	 */
+	@GetMapping("/cotacoes")
+	public ResponseEntity<byte[]> cotar(@RequestParam Long carrinhoId, @RequestParam Long clienteId,
+			@RequestHeader HttpHeaders cabecalhos)
+	{
+		try
+		{
+			List<String> conhecidas = cabecalhos.getIfNoneMatch();
+			CotacaoDTO cotacao = compraService.cotarCarrinho(carrinhoId, clienteId,
+					versao -> conhecida(conhecidas, versao));
+			ResponseEntity.BodyBuilder resposta = ResponseEntity
+					.status(cotacao.explicacao() == null ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+					.cacheControl(CacheControl.noCache());
+			if (cotacao.versao() != null)
+			{
+				resposta.eTag(cotacao.versao());
+			}
+			if (cotacao.explicacao() == null)
+			{
+				return resposta.build();
+			}
+			return resposta.contentType(MediaType.APPLICATION_JSON)
+					.body(ExplicacaoCustoJson.escrever(cotacao.explicacao()));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	/** Comparação fraca de ETags, como pede o If-None-Match. */
+	private static boolean conhecida(List<String> etags, String versao)
+	{
+		for (String etag : etags)
+		{
+			String valor = etag.trim();
+			if (valor.startsWith("W/"))
+			{
+				valor = valor.substring(2);
+			}
+			if (valor.equals("*") || valor.equals("\"" + versao + "\""))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Detalhamento do custo do carrinho: contribuição de cada item e faixas aplicadas. */
+	@GetMapping("/cotacoes/explicacao")
+	public ResponseEntity<ExplicacaoCustoDTO> explicarCusto(@RequestParam Long carrinhoId,
+			@RequestParam Long clienteId)
+	{
+		try
+		{
+			return ResponseEntity.ok(compraService.explicarCustoTotal(carrinhoId, clienteId));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@PostMapping("/cotacoes/lote")
+	public ResponseEntity<CotacaoLoteDTO> cotarLote(@RequestBody List<Long> carrinhosIds)
+	{
+		try
+		{
+			return ResponseEntity.ok(cotacaoEmLoteService.cotarPorIds(carrinhosIds));
+		}
+		catch (IllegalArgumentException e)
+		{
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(CotacaoLoteDTO.recusado(e.getMessage()));
+		}
+		catch (Exception e)
+		{
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body(CotacaoLoteDTO.recusado("Erro ao processar cotação em lote."));
+		}
+	}
 }
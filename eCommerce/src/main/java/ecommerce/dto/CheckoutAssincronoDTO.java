@@ -0,0 +1,14 @@
+package ecommerce.dto;
+
+/**
+ * Situação de um checkout assíncrono; {@code resultado} só é preenchido quando
+ * o status é {@code CONCLUIDO}.
+ */
+public record CheckoutAssincronoDTO(String checkoutId, Status status, CompraDTO resultado)
+{
+
+	public enum Status
+	{
+		PENDENTE, PROCESSANDO, CONCLUIDO
+	}
+}
@@ -0,0 +1,7 @@
+package ecommerce.dto;
+
+import java.math.BigDecimal;
+
+public record CotacaoCarrinhoDTO(Long carrinhoId, Boolean sucesso, BigDecimal custoTotal, String mensagem)
+{
+}
@@ -0,0 +1,11 @@
+package ecommerce.dto;
+
+/**
+ * Cotação de um carrinho: {@code versao} identifica o conteúdo cotado (usada
+ * como ETag) e {@code explicacao} detalha o custo. Sem explicação quando a
+ * versão já era conhecida de quem pediu; sem versão quando o carrinho não pode
+ * ser identificado.
+ */
+public record CotacaoDTO(String versao, ExplicacaoCustoDTO explicacao)
+{
+}
@@ -0,0 +1,18 @@
+package ecommerce.dto;
+
+import java.util.List;
+
+/** Resultado de uma cotação em lote; {@code mensagem} só vem preenchida se o lote inteiro for recusado. */
+public record CotacaoLoteDTO(List<CotacaoCarrinhoDTO> resultados, MetricasLoteDTO metricas, String mensagem)
+{
+
+	public CotacaoLoteDTO(List<CotacaoCarrinhoDTO> resultados, MetricasLoteDTO metricas)
+	{
+		this(resultados, metricas, null);
+	}
+
+	public static CotacaoLoteDTO recusado(String mensagem)
+	{
+		return new CotacaoLoteDTO(List.of(), null, mensagem);
+	}
+}
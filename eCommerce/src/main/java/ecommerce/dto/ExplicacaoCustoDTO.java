@@ -0,0 +1,30 @@
+package ecommerce.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Detalhamento do custo total de um carrinho: a contribuição de cada item e as
+ * faixas de desconto e de frete aplicadas ao carrinho. {@code descontoPorTipo}
+ * soma os descontos por quantidade de cada tipo de produto; o percentual de
+ * {@code desconto} é o da faixa do subtotal já sem esse valor. {@code frete} é
+ * o valor por peso na faixa {@code faixaFrete} (0 é a primeira);
+ * {@code freteTotal} soma a taxa de produtos frágeis e aplica o multiplicador
+ * da região e o desconto de frete do tipo de cliente.
+ */
+public record ExplicacaoCustoDTO(List<Item> itens, BigDecimal subtotal, BigDecimal descontoPorTipo,
+		BigDecimal percentualDesconto, BigDecimal desconto, BigDecimal pesoTotal, Integer faixaFrete,
+		BigDecimal fretePorKg, BigDecimal frete, BigDecimal taxaFragilidade, BigDecimal multiplicadorRegiao,
+		BigDecimal descontoFreteCliente, BigDecimal freteTotal, BigDecimal custoTotal)
+{
+
+	/**
+	 * Linha do carrinho. Os pesos físico e cúbico são unitários; o peso
+	 * tributável é o maior dos dois vezes a quantidade.
+	 */
+	public record Item(Long produtoId, String nome, Long quantidade, BigDecimal precoUnitario, BigDecimal subtotal,
+			BigDecimal pesoFisico, BigDecimal pesoCubico, Boolean pesoCubicoAplicado, BigDecimal pesoTributavel,
+			BigDecimal taxaFragilidade)
+	{
+	}
+}
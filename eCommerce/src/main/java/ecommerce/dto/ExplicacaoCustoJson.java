@@ -0,0 +1,102 @@
+package ecommerce.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escreve um {@link ExplicacaoCustoDTO} em JSON direto em um
+ * {@link StringBuilder}, sem a introspecção do Jackson: a cotação é a
+ * resposta mais pedida da vitrine. Produz os mesmos campos, na mesma ordem,
+ * que o Jackson produz para o record; números decimais saem sem notação
+ * científica.
+ */
+public final class ExplicacaoCustoJson
+{
+
+	private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+	private static final int TAMANHO_POR_ITEM = 320;
+
+	private ExplicacaoCustoJson()
+	{
+	}
+
+	public static byte[] escrever(ExplicacaoCustoDTO explicacao)
+	{
+		StringBuilder json = new StringBuilder(TAMANHO_POR_ITEM * (explicacao.itens().size() + 2));
+		json.append("{\"itens\":[");
+		for (int i = 0; i < explicacao.itens().size(); i++)
+		{
+			if (i > 0)
+			{
+				json.append(',');
+			}
+			escreverItem(json, explicacao.itens().get(i));
+		}
+		json.append(']');
+		campo(json, "subtotal", explicacao.subtotal());
+		campo(json, "descontoPorTipo", explicacao.descontoPorTipo());
+		campo(json, "percentualDesconto", explicacao.percentualDesconto());
+		campo(json, "desconto", explicacao.desconto());
+		campo(json, "pesoTotal", explicacao.pesoTotal());
+		campo(json, "faixaFrete", explicacao.faixaFrete());
+		campo(json, "fretePorKg", explicacao.fretePorKg());
+		campo(json, "frete", explicacao.frete());
+		campo(json, "taxaFragilidade", explicacao.taxaFragilidade());
+		campo(json, "multiplicadorRegiao", explicacao.multiplicadorRegiao());
+		campo(json, "descontoFreteCliente", explicacao.descontoFreteCliente());
+		campo(json, "freteTotal", explicacao.freteTotal());
+		campo(json, "custoTotal", explicacao.custoTotal());
+		json.append('}');
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void escreverItem(StringBuilder json, ExplicacaoCustoDTO.Item item)
+	{
+		json.append("{\"produtoId\":").append(item.produtoId());
+		json.append(",\"nome\":");
+		texto(json, item.nome());
+		campo(json, "quantidade", item.quantidade());
+		campo(json, "precoUnitario", item.precoUnitario());
+		campo(json, "subtotal", item.subtotal());
+		campo(json, "pesoFisico", item.pesoFisico());
+		campo(json, "pesoCubico", item.pesoCubico());
+		campo(json, "pesoCubicoAplicado", item.pesoCubicoAplicado());
+		campo(json, "pesoTributavel", item.pesoTributavel());
+		campo(json, "taxaFragilidade", item.taxaFragilidade());
+		json.append('}');
+	}
+
+	/** Números e booleanos; nulo sai como {@code null}. */
+	private static void campo(StringBuilder json, String nome, Object valor)
+	{
+		json.append(",\"").append(nome).append("\":");
+		json.append(valor instanceof BigDecimal decimal ? decimal.toPlainString() : String.valueOf(valor));
+	}
+
+	private static void texto(StringBuilder json, String valor)
+	{
+		if (valor == null)
+		{
+			json.append("null");
+			return;
+		}
+		json.append('"');
+		for (int i = 0; i < valor.length(); i++)
+		{
+			char c = valor.charAt(i);
+			if (c == '"' || c == '\\')
+			{
+				json.append('\\').append(c);
+			}
+			else if (c < 0x20)
+			{
+				json.append("\\u00").append(HEXADECIMAL[c >> 4]).append(HEXADECIMAL[c & 0xF]);
+			}
+			else
+			{
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+}
@@ -0,0 +1,6 @@
+package ecommerce.dto;
+
+/** Item incluído ou alterado em um carrinho, com os totais do carrinho já atualizados. */
+public record ItemDoCarrinhoDTO(Long itemId, Long produtoId, Long quantidade, TotaisCarrinhoDTO totais)
+{
+}
@@ -0,0 +1,6 @@
+package ecommerce.dto;
+
+public record MetricasLoteDTO(Integer totalCarrinhos, Integer sucessos, Integer falhas, Long duracaoMs,
+		Double carrinhosPorSegundo, Integer paralelismo)
+{
+}
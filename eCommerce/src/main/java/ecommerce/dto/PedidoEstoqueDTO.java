@@ -0,0 +1,8 @@
+package ecommerce.dto;
+
+import java.util.List;
+
+/** Produtos e quantidades de um carrinho, em uma chamada de estoque em lote. */
+public record PedidoEstoqueDTO(List<Long> produtosIds, List<Long> produtosQuantidades)
+{
+}
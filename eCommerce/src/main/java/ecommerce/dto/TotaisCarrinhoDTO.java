@@ -0,0 +1,15 @@
+package ecommerce.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Totais mantidos de um carrinho em edição: quantidade de itens (linhas),
+ * subtotal, peso tributável em kg, unidades de produtos frágeis, desconto por
+ * quantidade de cada tipo, percentual da faixa de desconto por valor, faixa de
+ * frete (0 é a primeira) e custo total, nulo com o carrinho vazio.
+ */
+public record TotaisCarrinhoDTO(Long carrinhoId, Integer itens, BigDecimal subtotal, BigDecimal pesoTributavel,
+		Long unidadesFrageis, BigDecimal descontoPorTipo, BigDecimal percentualDesconto, Integer faixaFrete,
+		BigDecimal custoTotal)
+{
+}
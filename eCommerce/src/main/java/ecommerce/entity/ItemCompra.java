@@ -1,6 +1,7 @@
 package ecommerce.entity;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -8,14 +9,16 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 
 @Entity
-public class ItemCompra
+public class ItemCompra implements ItemPrecificavel
 {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 
-	@ManyToOne // Vários itens podem se referir ao mesmo produto
+	// Vários itens podem se referir ao mesmo produto. Lazy: no checkout os
+	// atributos de preço vêm do catálogo de precificação, não da entidade.
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "produto_id")
 	private Produto produto;
 
@@ -43,6 +46,7 @@ public class ItemCompra
 		this.id = id;
 	}
 
+	@Override
 	public Produto getProduto()
 	{
 		return produto;
@@ -53,6 +57,7 @@ public class ItemCompra
 		this.produto = produto;
 	}
 
+	@Override
 	public Long getQuantidade()
 	{
 		return quantidade;
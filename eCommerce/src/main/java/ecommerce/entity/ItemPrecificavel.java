@@ -0,0 +1,13 @@
+package ecommerce.entity;
+
+/**
+ * Linha de carrinho vista pelos motores de precificação: um produto e a
+ * quantidade comprada.
+ */
+public interface ItemPrecificavel
+{
+
+	ProdutoPrecificavel getProduto();
+
+	Long getQuantidade();
+}
@@ -3,14 +3,23 @@ package ecommerce.entity;
 import java.math.BigDecimal;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Transient;
+
+import ecommerce.service.catalogo.ProdutoAlteradoListener;
+import ecommerce.service.util.MetodosAuxilar;
 
 @Entity
-public class Produto
+@EntityListeners(ProdutoAlteradoListener.class)
+public class Produto implements ProdutoPrecificavel
 {
 
 	@Id
@@ -38,6 +47,23 @@ public class Produto
 	@Enumerated(EnumType.STRING)
 	private TipoProduto tipo;
 
+	/*
+	 * Atributos de precificação derivados, calculados ao carregar/gravar o produto
+	 * e invalidados quando preço, peso ou dimensões mudam.
+	 */
+
+	/** Peso tributável unitário: max(peso físico, peso cúbico), em kg. */
+	@Transient
+	private BigDecimal pesoTributavelUnitario;
+
+	/** Peso tributável unitário em 10^-10 kg; nulo se não couber nessa escala. */
+	@Transient
+	private Long pesoTributavelUnitarioFixo;
+
+	/** Preço unitário em centavos; nulo se tiver frações de centavo. */
+	@Transient
+	private Long precoEmCentavos;
+
 	public Produto()
 	{
 	}
@@ -58,6 +84,7 @@ public class Produto
 	}
 
 	// Getters e Setters
+	@Override
 	public Long getId()
 	{
 		return id;
@@ -68,6 +95,7 @@ public class Produto
 		this.id = id;
 	}
 
+	@Override
 	public String getNome()
 	{
 		return nome;
@@ -88,6 +116,7 @@ public class Produto
 		this.descricao = descricao;
 	}
 
+	@Override
 	public BigDecimal getPreco()
 	{
 		return preco;
@@ -96,8 +125,10 @@ public class Produto
 	public void setPreco(BigDecimal preco)
 	{
 		this.preco = preco;
+		invalidarAtributosDePrecificacao();
 	}
 
+	@Override
 	public BigDecimal getPesoFisico()
 	{
 		return pesoFisico;
@@ -106,8 +137,10 @@ public class Produto
 	public void setPesoFisico(BigDecimal pesoFisico)
 	{
 		this.pesoFisico = pesoFisico;
+		invalidarAtributosDePrecificacao();
 	}
 
+	@Override
 	public BigDecimal getComprimento()
 	{
 		return comprimento;
@@ -116,8 +149,10 @@ public class Produto
 	public void setComprimento(BigDecimal comprimento)
 	{
 		this.comprimento = comprimento;
+		invalidarAtributosDePrecificacao();
 	}
 
+	@Override
 	public BigDecimal getLargura()
 	{
 		return largura;
@@ -126,8 +161,10 @@ public class Produto
 	public void setLargura(BigDecimal largura)
 	{
 		this.largura = largura;
+		invalidarAtributosDePrecificacao();
 	}
 
+	@Override
 	public BigDecimal getAltura()
 	{
 		return altura;
@@ -136,8 +173,10 @@ public class Produto
 	public void setAltura(BigDecimal altura)
 	{
 		this.altura = altura;
+		invalidarAtributosDePrecificacao();
 	}
 
+	@Override
 	public Boolean isFragil()
 	{
 		return fragil;
@@ -148,6 +187,7 @@ public class Produto
 		this.fragil = fragil;
 	}
 
+	@Override
 	public TipoProduto getTipo()
 	{
 		return tipo;
@@ -157,4 +197,70 @@ public class Produto
 	{
 		this.tipo = tipo;
 	}
-}
\ No newline at end of file
+
+	@Override
+	public BigDecimal getPesoTributavelUnitario()
+	{
+		if (pesoTributavelUnitario == null)
+		{
+			atualizarAtributosDePrecificacao();
+		}
+		return pesoTributavelUnitario;
+	}
+
+	@Override
+	public Long getPesoTributavelUnitarioFixo()
+	{
+		if (pesoTributavelUnitario == null)
+		{
+			atualizarAtributosDePrecificacao();
+		}
+		return pesoTributavelUnitarioFixo;
+	}
+
+	@Override
+	public Long getPrecoEmCentavos()
+	{
+		if (precoEmCentavos == null && preco != null)
+		{
+			precoEmCentavos = paraEscalaFixa(preco, 2);
+		}
+		return precoEmCentavos;
+	}
+
+	@PostLoad
+	@PrePersist
+	@PreUpdate
+	void atualizarAtributosDePrecificacao()
+	{
+		precoEmCentavos = preco != null ? paraEscalaFixa(preco, 2) : null;
+
+		if (pesoFisico == null || comprimento == null || largura == null || altura == null)
+		{
+			pesoTributavelUnitario = null;
+			pesoTributavelUnitarioFixo = null;
+			return;
+		}
+		pesoTributavelUnitario = MetodosAuxilar.calcularPesoTributavel(this);
+		pesoTributavelUnitarioFixo = paraEscalaFixa(pesoTributavelUnitario, MetodosAuxilar.ESCALA_PESO_CUBICO);
+	}
+
+	private void invalidarAtributosDePrecificacao()
+	{
+		pesoTributavelUnitario = null;
+		pesoTributavelUnitarioFixo = null;
+		precoEmCentavos = null;
+	}
+
+	private static Long paraEscalaFixa(BigDecimal valor, int escala)
+	{
+		try
+		{
+			return valor.movePointRight(escala).longValueExact();
+		}
+		catch (ArithmeticException e)
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package ecommerce.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * Atributos de um produto usados na precificação. Implementado pela entidade
+ * {@link Produto} e pelas cópias imutáveis do catálogo de precificação.
+ */
+public interface ProdutoPrecificavel
+{
+
+	Long getId();
+
+	String getNome();
+
+	BigDecimal getPreco();
+
+	BigDecimal getPesoFisico();
+
+	BigDecimal getComprimento();
+
+	BigDecimal getLargura();
+
+	BigDecimal getAltura();
+
+	Boolean isFragil();
+
+	TipoProduto getTipo();
+
+	/** Peso tributável unitário: max(peso físico, peso cúbico), em kg. */
+	BigDecimal getPesoTributavelUnitario();
+
+	/** Peso tributável unitário em 10^-10 kg; nulo se não couber nessa escala. */
+	Long getPesoTributavelUnitarioFixo();
+
+	/** Preço unitário em centavos; nulo se tiver frações de centavo. */
+	Long getPrecoEmCentavos();
+
+	/**
+	 * Versão destes atributos, diferente a cada alteração do produto. Nula
+	 * quando o produto não é versionado (a entidade gerenciada); cotações com
+	 * esses produtos não são memorizadas.
+	 */
+	default Long getVersao()
+	{
+		return null;
+	}
+}
@@ -0,0 +1,351 @@
+package ecommerce.external;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedThreadPoolBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Proteção das chamadas a um serviço externo: no máximo {@code concorrencia}
+ * chamadas ao mesmo tempo (com até {@code fila} esperando), tempo máximo por
+ * chamada e circuit breaker. Com o circuito aberto, a fila cheia ou o tempo
+ * esgotado a chamada falha na hora com {@link IllegalStateException}, que o
+ * checkout trata como recusa.
+ *
+ * A chamada roda em uma thread do bulkhead enquanto a thread do checkout espera
+ * o resultado; ao esgotar o tempo a espera é abandonada, mas a chamada remota
+ * pode ainda terminar depois. Por isso escritas que não podem ser repetidas
+ * nem desfeitas às cegas (baixa de estoque, confirmação de reserva) usam
+ * {@link #executarSemTempoMaximo}: passam pelo circuito e pelo bulkhead, mas
+ * esperam a resposta do serviço, limitada só pelo timeout do próprio cliente.
+ * Escritas que podem ser desfeitas (autorização de pagamento) mantêm o tempo
+ * máximo e informam como desfazê-las ({@link #executar(Supplier, Consumer)}):
+ * se a resposta chegar depois de a espera ter sido abandonada, o resultado é
+ * desfeito como uma compensação.
+ *
+ * Com threads virtuais (construtor com {@code threadsVirtuais}), cada chamada
+ * roda em uma thread virtual própria e o bulkhead é um semáforo de
+ * {@code concorrencia} permissões: uma thread de plataforma do bulkhead por
+ * chamada anularia as threads virtuais do checkout. Nesse modo não há fila
+ * com tamanho; a chamada espera uma permissão por até {@code tempoMaximo} e,
+ * como a espera roda na thread virtual, ela conta no tempo máximo da chamada.
+ *
+ * Compensações ({@link #compensar}) não passam pelo circuito, pelo bulkhead
+ * nem pelo tempo máximo: são repetidas até {@code tentativasDeCompensacao}
+ * vezes e, se ainda falharem, a falha é lançada e contada.
+ *
+ * Métricas (Micrometer): {@code resilience4j.circuitbreaker.*},
+ * {@code resilience4j.bulkhead.*} (ou {@code resilience4j.thread_pool_bulkhead.*}),
+ * {@code resilience4j.timelimiter.*} e
+ * {@code ecommerce.externo.rejeicoes}, com as tags {@code servico} e
+ * {@code motivo}.
+ */
+public final class ChamadaProtegida implements AutoCloseable
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(ChamadaProtegida.class);
+
+	public record Configuracao(int concorrencia, int fila, Duration tempoMaximo, float taxaDeFalhas,
+			int janela, int minimoDeChamadas, Duration esperaComCircuitoAberto, int tentativasDeCompensacao,
+			Duration intervaloDeCompensacao)
+	{
+	}
+
+	private final String servico;
+	private final CircuitBreaker circuito;
+	/** Nulo com threads virtuais. */
+	private final ThreadPoolBulkhead bulkhead;
+	/** Só com threads virtuais, assim como {@code threadsVirtuais}. */
+	private final Bulkhead semaforo;
+	private final ExecutorService threadsVirtuais;
+	private final TimeLimiter limiteDeTempo;
+	private final Counter rejeitadasPorCircuito;
+	private final Counter rejeitadasPorSobrecarga;
+	private final Counter rejeitadasPorTempo;
+	private final Counter compensacoesNaoConcluidas;
+	private final int tentativasDeCompensacao;
+	private final Duration intervaloDeCompensacao;
+
+	public ChamadaProtegida(String servico, Configuracao configuracao, MeterRegistry metricas)
+	{
+		this(servico, configuracao, metricas, null);
+	}
+
+	/**
+	 * @param threadsVirtuais executor com uma thread virtual por tarefa, ou nulo
+	 *                        para o bulkhead com pool de threads; passa a
+	 *                        pertencer a esta proteção, que o encerra em
+	 *                        {@link #close()}
+	 */
+	public ChamadaProtegida(String servico, Configuracao configuracao, MeterRegistry metricas,
+			ExecutorService threadsVirtuais)
+	{
+		this.servico = servico;
+		this.threadsVirtuais = threadsVirtuais;
+
+		CircuitBreakerRegistry circuitos = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+				.failureRateThreshold(configuracao.taxaDeFalhas())
+				.slidingWindowSize(configuracao.janela())
+				.minimumNumberOfCalls(configuracao.minimoDeChamadas())
+				.waitDurationInOpenState(configuracao.esperaComCircuitoAberto())
+				// fila cheia não é falha do serviço, e dados inválidos são erro de quem chama
+				.ignoreExceptions(BulkheadFullException.class, IllegalArgumentException.class)
+				.build());
+		TimeLimiterRegistry limites = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+				.timeoutDuration(configuracao.tempoMaximo())
+				.cancelRunningFuture(true)
+				.build());
+
+		this.circuito = circuitos.circuitBreaker(servico);
+		this.limiteDeTempo = limites.timeLimiter(servico);
+		if (threadsVirtuais != null)
+		{
+			BulkheadRegistry semaforos = BulkheadRegistry.of(BulkheadConfig.custom()
+					.maxConcurrentCalls(configuracao.concorrencia())
+					.maxWaitDuration(configuracao.tempoMaximo())
+					.build());
+			this.semaforo = semaforos.bulkhead(servico);
+			this.bulkhead = null;
+			TaggedBulkheadMetrics.ofBulkheadRegistry(semaforos).bindTo(metricas);
+		}
+		else
+		{
+			ThreadPoolBulkheadRegistry bulkheads = ThreadPoolBulkheadRegistry.of(ThreadPoolBulkheadConfig.custom()
+					.coreThreadPoolSize(configuracao.concorrencia())
+					.maxThreadPoolSize(configuracao.concorrencia())
+					.queueCapacity(configuracao.fila())
+					.build());
+			this.bulkhead = bulkheads.bulkhead(servico);
+			this.semaforo = null;
+			TaggedThreadPoolBulkheadMetrics.ofThreadPoolBulkheadRegistry(bulkheads).bindTo(metricas);
+		}
+
+		TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitos).bindTo(metricas);
+		TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(limites).bindTo(metricas);
+		this.rejeitadasPorCircuito = rejeicoes(metricas, "circuito-aberto");
+		this.rejeitadasPorSobrecarga = rejeicoes(metricas, "sobrecarga");
+		this.rejeitadasPorTempo = rejeicoes(metricas, "tempo-esgotado");
+		this.compensacoesNaoConcluidas = Counter.builder("ecommerce.externo.compensacoes.falhas")
+				.description("Compensações que falharam em todas as tentativas")
+				.tag("servico", servico)
+				.register(metricas);
+		this.tentativasDeCompensacao = Math.max(1, configuracao.tentativasDeCompensacao());
+		this.intervaloDeCompensacao = configuracao.intervaloDeCompensacao();
+	}
+
+	private Counter rejeicoes(MeterRegistry metricas, String motivo)
+	{
+		return Counter.builder("ecommerce.externo.rejeicoes")
+				.description("Chamadas a serviços externos recusadas sem resposta do serviço")
+				.tag("servico", servico).tag("motivo", motivo)
+				.register(metricas);
+	}
+
+	public <T> T executar(Supplier<T> chamada)
+	{
+		return proteger(() -> circuito.executeCallable(() -> limiteDeTempo
+				.executeFutureSupplier(() -> submeter(chamada))));
+	}
+
+	/**
+	 * Como {@link #executar(Supplier)}; se o tempo esgotar e a chamada ainda
+	 * assim terminar com sucesso, {@code desfazer} recebe o resultado abandonado
+	 * e roda como uma {@linkplain #compensar compensação}, na thread que
+	 * completou a chamada.
+	 */
+	public <T> T executar(Supplier<T> chamada, Consumer<T> desfazer)
+	{
+		return proteger(() -> circuito.executeCallable(() -> {
+			CompletableFuture<T> resposta = submeter(chamada);
+			try
+			{
+				// o limite de tempo cancela a cópia, não a resposta, que ainda pode chegar
+				return limiteDeTempo.executeFutureSupplier(() -> resposta.thenApply(resultado -> resultado));
+			}
+			catch (TimeoutException e)
+			{
+				resposta.thenAccept(abandonado -> desfazerAbandonado(desfazer, abandonado));
+				throw e;
+			}
+		}));
+	}
+
+	private <T> void desfazerAbandonado(Consumer<T> desfazer, T abandonado)
+	{
+		try
+		{
+			compensar(() -> desfazer.accept(abandonado));
+		}
+		catch (RuntimeException e)
+		{
+			LOG.error("Resposta do serviço de {} chegou depois do tempo máximo e não foi desfeita.", servico, e);
+		}
+	}
+
+	/** Como {@link #executar(Supplier)}, mas sem abandonar a espera por tempo. */
+	public <T> T executarSemTempoMaximo(Supplier<T> chamada)
+	{
+		return proteger(() -> circuito.executeCallable(() -> {
+			try
+			{
+				return submeter(chamada).get();
+			}
+			catch (ExecutionException e)
+			{
+				throw e.getCause() instanceof Exception causa ? causa : e;
+			}
+		}));
+	}
+
+	/** Entrega a chamada ao bulkhead: fila do pool de threads ou semáforo em uma thread virtual. */
+	private <T> CompletableFuture<T> submeter(Supplier<T> chamada)
+	{
+		if (semaforo != null)
+		{
+			return CompletableFuture.supplyAsync(Bulkhead.decorateSupplier(semaforo, chamada), threadsVirtuais);
+		}
+		return bulkhead.executeSupplier(chamada).toCompletableFuture();
+	}
+
+	private <T> T proteger(Callable<T> chamada)
+	{
+		try
+		{
+			return chamada.call();
+		}
+		catch (CallNotPermittedException e)
+		{
+			rejeitadasPorCircuito.increment();
+			throw new IllegalStateException("Serviço de " + servico + " indisponível.", e);
+		}
+		catch (BulkheadFullException e)
+		{
+			rejeitadasPorSobrecarga.increment();
+			throw new IllegalStateException("Serviço de " + servico + " sobrecarregado.", e);
+		}
+		catch (TimeoutException e)
+		{
+			rejeitadasPorTempo.increment();
+			throw new IllegalStateException("Tempo esgotado no serviço de " + servico + ".", e);
+		}
+		catch (RuntimeException e)
+		{
+			throw e;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Chamada ao serviço de " + servico + " interrompida.", e);
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	public void executar(Runnable chamada)
+	{
+		executar(() -> {
+			chamada.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Executa uma compensação (cancelar um pagamento, liberar uma reserva) na
+	 * thread de quem chama. Circuito aberto, bulkhead cheio e tempo esgotado
+	 * recusariam a compensação justamente quando o serviço está instável,
+	 * deixando a operação original pendurada. Falhas são repetidas com
+	 * intervalo dobrando a cada tentativa; dados inválidos não são repetidos.
+	 *
+	 * @throws RuntimeException a falha da última tentativa
+	 */
+	public void compensar(Runnable chamada)
+	{
+		Duration intervalo = intervaloDeCompensacao;
+		for (int tentativa = 1;; tentativa++)
+		{
+			try
+			{
+				chamada.run();
+				return;
+			}
+			catch (RuntimeException e)
+			{
+				if (e instanceof IllegalArgumentException || tentativa >= tentativasDeCompensacao
+						|| !esperar(intervalo))
+				{
+					compensacoesNaoConcluidas.increment();
+					throw e;
+				}
+				intervalo = intervalo.multipliedBy(2);
+			}
+		}
+	}
+
+	/** Falso se a thread foi interrompida, mantendo a interrupção. */
+	private static boolean esperar(Duration intervalo)
+	{
+		try
+		{
+			Thread.sleep(intervalo.toMillis());
+			return true;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	public CircuitBreaker.State estadoDoCircuito()
+	{
+		return circuito.getState();
+	}
+
+	@Override
+	public void close()
+	{
+		if (threadsVirtuais != null)
+		{
+			threadsVirtuais.shutdown();
+			return;
+		}
+		try
+		{
+			bulkhead.close();
+		}
+		catch (Exception e)
+		{
+			throw new IllegalStateException("Não foi possível encerrar o bulkhead de " + servico, e);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package ecommerce.external;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PedidoEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+
+/**
+ * Estoque que junta as verificações e baixas de checkouts concorrentes em
+ * chamadas {@code ...EmLote} do estoque real: com N checkouts na mesma janela, o
+ * serviço de estoque recebe uma chamada em vez de N. Cada checkout continua
+ * recebendo só o resultado do próprio carrinho.
+ *
+ * O custo é até uma janela a mais de latência quando há pouco tráfego; por isso
+ * a janela deve ser pequena perto da latência da chamada remota.
+ *
+ * Baixas inválidas são recusadas antes de entrar no lote: um lote de baixas
+ * recusado pelo estoque não é reenviado pedido a pedido, então um pedido
+ * malformado derrubaria os demais.
+ */
+public class EstoqueEmMicroLote implements IEstoqueExternal, AutoCloseable
+{
+
+	private final IEstoqueExternal estoque;
+	private final ScheduledExecutorService agendador;
+	private final ExecutorService envio;
+	private final MicroLote<PedidoEstoqueDTO, DisponibilidadeDTO> verificacoes;
+	private final MicroLote<PedidoEstoqueDTO, EstoqueBaixaDTO> baixas;
+
+	/**
+	 * @param envio executor dos lotes que expiram pela janela; passa a pertencer a
+	 *              esta instância e é encerrado em {@link #close()}
+	 */
+	public EstoqueEmMicroLote(IEstoqueExternal estoque, int tamanhoMaximo, Duration janela, ExecutorService envio)
+	{
+		this.estoque = estoque;
+		this.envio = envio;
+		this.agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+			Thread thread = new Thread(tarefa, "estoque-micro-lote");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.verificacoes = new MicroLote<>(estoque::verificarDisponibilidadeEmLote, tamanhoMaximo, janela.toNanos(),
+				agendador, envio, true);
+		this.baixas = new MicroLote<>(estoque::darBaixaEmLote, tamanhoMaximo, janela.toNanos(), agendador, envio,
+				false);
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return verificacoes.executar(new PedidoEstoqueDTO(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		validar(produtosIds, produtosQuantidades);
+		return baixas.executar(new PedidoEstoqueDTO(produtosIds, produtosQuantidades));
+	}
+
+	/** Já é um lote: vai direto ao estoque. */
+	@Override
+	public List<DisponibilidadeDTO> verificarDisponibilidadeEmLote(List<PedidoEstoqueDTO> pedidos)
+	{
+		return estoque.verificarDisponibilidadeEmLote(pedidos);
+	}
+
+	/** Já é um lote: vai direto ao estoque. */
+	@Override
+	public List<EstoqueBaixaDTO> darBaixaEmLote(List<PedidoEstoqueDTO> pedidos)
+	{
+		return estoque.darBaixaEmLote(pedidos);
+	}
+
+	/** Reservas não passam pelos lotes: cada checkout reserva direto no estoque. */
+	@Override
+	public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration validade)
+	{
+		return estoque.reservar(produtosIds, produtosQuantidades, validade);
+	}
+
+	@Override
+	public EstoqueBaixaDTO confirmarReserva(Long reservaId)
+	{
+		return estoque.confirmarReserva(reservaId);
+	}
+
+	@Override
+	public void liberarReserva(Long reservaId)
+	{
+		estoque.liberarReserva(reservaId);
+	}
+
+	private static void validar(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		if (produtosIds == null || produtosQuantidades == null || produtosIds.size() != produtosQuantidades.size())
+		{
+			throw new IllegalArgumentException("Listas de produtos e quantidades devem ter o mesmo tamanho");
+		}
+		for (int i = 0; i < produtosIds.size(); i++)
+		{
+			Long quantidade = produtosQuantidades.get(i);
+			if (produtosIds.get(i) == null || quantidade == null || quantidade <= 0)
+			{
+				throw new IllegalArgumentException("Produto ou quantidade inválidos na posição " + i);
+			}
+		}
+	}
+
+	/** Envia as janelas ainda abertas e encerra os executores. */
+	@Override
+	public void close()
+	{
+		agendador.shutdown();
+		try
+		{
+			agendador.awaitTermination(1, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		envio.shutdown();
+	}
+}
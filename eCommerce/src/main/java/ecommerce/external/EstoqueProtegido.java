@@ -0,0 +1,70 @@
+package ecommerce.external;
+
+import java.time.Duration;
+import java.util.List;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PedidoEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+
+/**
+ * Estoque com as chamadas passando por uma {@link ChamadaProtegida}. Baixas e
+ * confirmações de reserva não têm tempo máximo: abandonadas, ainda poderiam ser
+ * aplicadas depois que o checkout desistiu e cancelou o pagamento. A liberação
+ * de reserva é uma compensação ({@link ChamadaProtegida#compensar}).
+ */
+public class EstoqueProtegido implements IEstoqueExternal
+{
+
+	private final IEstoqueExternal estoque;
+	private final ChamadaProtegida protecao;
+
+	public EstoqueProtegido(IEstoqueExternal estoque, ChamadaProtegida protecao)
+	{
+		this.estoque = estoque;
+		this.protecao = protecao;
+	}
+
+	@Override
+	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return protecao.executarSemTempoMaximo(() -> estoque.darBaixa(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		return protecao.executar(() -> estoque.verificarDisponibilidade(produtosIds, produtosQuantidades));
+	}
+
+	@Override
+	public List<DisponibilidadeDTO> verificarDisponibilidadeEmLote(List<PedidoEstoqueDTO> pedidos)
+	{
+		return protecao.executar(() -> estoque.verificarDisponibilidadeEmLote(pedidos));
+	}
+
+	@Override
+	public List<EstoqueBaixaDTO> darBaixaEmLote(List<PedidoEstoqueDTO> pedidos)
+	{
+		return protecao.executarSemTempoMaximo(() -> estoque.darBaixaEmLote(pedidos));
+	}
+
+	@Override
+	public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration validade)
+	{
+		return protecao.executar(() -> estoque.reservar(produtosIds, produtosQuantidades, validade));
+	}
+
+	@Override
+	public EstoqueBaixaDTO confirmarReserva(Long reservaId)
+	{
+		return protecao.executarSemTempoMaximo(() -> estoque.confirmarReserva(reservaId));
+	}
+
+	@Override
+	public void liberarReserva(Long reservaId)
+	{
+		protecao.compensar(() -> estoque.liberarReserva(reservaId));
+	}
+}
@@ -1,9 +1,13 @@
 package ecommerce.external;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PedidoEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
 
 public interface IEstoqueExternal
 {
@@ -12,4 +16,44 @@ public interface IEstoqueExternal
 
 	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades);
 
+	/**
+	 * Verifica vários carrinhos em uma chamada; o resultado i corresponde ao
+	 * pedido i. Um pedido inválido faz a chamada inteira lançar exceção.
+	 */
+	public default List<DisponibilidadeDTO> verificarDisponibilidadeEmLote(List<PedidoEstoqueDTO> pedidos)
+	{
+		List<DisponibilidadeDTO> resultados = new ArrayList<>(pedidos.size());
+		for (PedidoEstoqueDTO pedido : pedidos)
+		{
+			resultados.add(verificarDisponibilidade(pedido.produtosIds(), pedido.produtosQuantidades()));
+		}
+		return resultados;
+	}
+
+	/**
+	 * Dá baixa em vários carrinhos em uma chamada; o resultado i corresponde ao
+	 * pedido i e cada pedido é tudo-ou-nada. Se a chamada lançar exceção, nenhuma
+	 * baixa do lote pode ter sido aplicada: as implementações validam todos os
+	 * pedidos antes de aplicar o primeiro. Não tem implementação padrão porque
+	 * repetir {@link #darBaixa} pedido a pedido não cumpre essa garantia.
+	 */
+	public List<EstoqueBaixaDTO> darBaixaEmLote(List<PedidoEstoqueDTO> pedidos);
+
+	/**
+	 * Separa as quantidades para um carrinho por até {@code validade}: enquanto a
+	 * reserva existir, outros pedidos não enxergam esse saldo. A reserva é
+	 * tudo-ou-nada; sem saldo, volta {@code reservado=false} com os produtos
+	 * indisponíveis. Uma reserva não confirmada dentro da validade é devolvida ao
+	 * estoque.
+	 */
+	public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration validade);
+
+	/**
+	 * Transforma a reserva em baixa definitiva. Volta {@code sucesso=false} se a
+	 * reserva já expirou ou foi liberada.
+	 */
+	public EstoqueBaixaDTO confirmarReserva(Long reservaId);
+
+	/** Devolve a reserva ao estoque; liberar de novo, ou depois de expirada, não tem efeito. */
+	public void liberarReserva(Long reservaId);
 }
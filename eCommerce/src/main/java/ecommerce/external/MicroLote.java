@@ -0,0 +1,174 @@
+package ecommerce.external;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Junta chamadas unitárias concorrentes em uma chamada em lote. O primeiro
+ * pedido abre uma janela; o lote é enviado quando a janela expira ou quando
+ * atinge o tamanho máximo, o que vier antes. Quem completa o lote o envia na
+ * própria thread; lotes que expiram são enviados pelo executor de envio.
+ *
+ * Se a operação em lote lançar {@link IllegalArgumentException} (algum pedido
+ * inválido) e for só de leitura ({@code reenviarSozinhos}), cada pedido é
+ * reenviado sozinho para que só o inválido falhe. Operações com efeito não são
+ * repetidas: a falha vale para todos os pedidos do lote, como qualquer outra.
+ */
+final class MicroLote<P, R>
+{
+
+	private record Pendente<P, R>(P pedido, CompletableFuture<R> resultado)
+	{
+	}
+
+	private final Function<List<P>, List<R>> operacao;
+	private final int tamanhoMaximo;
+	private final long janelaNanos;
+	private final ScheduledExecutorService agendador;
+	private final Executor envio;
+	private final boolean reenviarSozinhos;
+
+	private final Object trava = new Object();
+	private List<Pendente<P, R>> aberto = new ArrayList<>();
+	private long geracao;
+
+	MicroLote(Function<List<P>, List<R>> operacao, int tamanhoMaximo, long janelaNanos,
+			ScheduledExecutorService agendador, Executor envio, boolean reenviarSozinhos)
+	{
+		if (tamanhoMaximo < 1 || janelaNanos < 0)
+		{
+			throw new IllegalArgumentException("Tamanho do lote deve ser positivo e janela não negativa");
+		}
+		this.operacao = operacao;
+		this.tamanhoMaximo = tamanhoMaximo;
+		this.janelaNanos = janelaNanos;
+		this.agendador = agendador;
+		this.envio = envio;
+		this.reenviarSozinhos = reenviarSozinhos;
+	}
+
+	/** Entra no próximo lote e espera o resultado deste pedido. */
+	R executar(P pedido)
+	{
+		Pendente<P, R> pendente = new Pendente<>(pedido, new CompletableFuture<>());
+		List<Pendente<P, R>> completo = null;
+		synchronized (trava)
+		{
+			aberto.add(pendente);
+			if (aberto.size() >= tamanhoMaximo || janelaNanos == 0)
+			{
+				completo = fechar();
+			}
+			else if (aberto.size() == 1)
+			{
+				long lote = geracao;
+				agendador.schedule(() -> expirar(lote), janelaNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+		if (completo != null)
+		{
+			enviar(completo);
+		}
+
+		try
+		{
+			return pendente.resultado().join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException causa)
+			{
+				throw causa;
+			}
+			throw e;
+		}
+	}
+
+	/** Chamado pelo agendador; ignora janelas de lotes já enviados por tamanho. */
+	private void expirar(long lote)
+	{
+		List<Pendente<P, R>> expirado;
+		synchronized (trava)
+		{
+			if (lote != geracao || aberto.isEmpty())
+			{
+				return;
+			}
+			expirado = fechar();
+		}
+		try
+		{
+			envio.execute(() -> enviar(expirado));
+		}
+		catch (RejectedExecutionException e)
+		{
+			enviar(expirado);
+		}
+	}
+
+	private List<Pendente<P, R>> fechar()
+	{
+		List<Pendente<P, R>> lote = aberto;
+		aberto = new ArrayList<>(tamanhoMaximo);
+		geracao++;
+		return lote;
+	}
+
+	private void enviar(List<Pendente<P, R>> lote)
+	{
+		List<P> pedidos = new ArrayList<>(lote.size());
+		for (Pendente<P, R> pendente : lote)
+		{
+			pedidos.add(pendente.pedido());
+		}
+
+		List<R> resultados;
+		try
+		{
+			resultados = operacao.apply(pedidos);
+			if (resultados == null || resultados.size() != pedidos.size())
+			{
+				throw new IllegalStateException("Lote com " + pedidos.size() + " pedidos retornou "
+						+ (resultados == null ? "nenhum resultado" : resultados.size() + " resultados"));
+			}
+		}
+		catch (IllegalArgumentException e)
+		{
+			if (!reenviarSozinhos || lote.size() == 1)
+			{
+				falhar(lote, e);
+				return;
+			}
+			for (Pendente<P, R> pendente : lote)
+			{
+				enviar(List.of(pendente));
+			}
+			return;
+		}
+		catch (RuntimeException | Error e)
+		{
+			falhar(lote, e);
+			return;
+		}
+
+		for (int i = 0; i < lote.size(); i++)
+		{
+			lote.get(i).resultado().complete(resultados.get(i));
+		}
+	}
+
+	private static <P, R> void falhar(List<Pendente<P, R>> lote, Throwable e)
+	{
+		for (Pendente<P, R> pendente : lote)
+		{
+			pendente.resultado().completeExceptionally(e);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package ecommerce.external;
+
+import ecommerce.dto.PagamentoDTO;
+
+/**
+ * Pagamento com as chamadas passando por uma {@link ChamadaProtegida}; o
+ * cancelamento é uma compensação ({@link ChamadaProtegida#compensar}). Uma
+ * autorização que chega depois do tempo máximo, quando o checkout já falhou,
+ * é cancelada para não deixar uma cobrança sem compra.
+ */
+public class PagamentoProtegido implements IPagamentoExternal
+{
+
+	private final IPagamentoExternal pagamento;
+	private final ChamadaProtegida protecao;
+
+	public PagamentoProtegido(IPagamentoExternal pagamento, ChamadaProtegida protecao)
+	{
+		this.pagamento = pagamento;
+		this.protecao = protecao;
+	}
+
+	@Override
+	public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal)
+	{
+		return protecao.executar(() -> pagamento.autorizarPagamento(clienteId, custoTotal), autorizacao -> {
+			if (autorizacao != null && Boolean.TRUE.equals(autorizacao.autorizado())
+					&& autorizacao.transacaoId() != null)
+			{
+				pagamento.cancelarPagamento(clienteId, autorizacao.transacaoId());
+			}
+		});
+	}
+
+	@Override
+	public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId)
+	{
+		protecao.compensar(() -> pagamento.cancelarPagamento(clienteId, pagamentoTransacaoId));
+	}
+}
@@ -1,28 +1,333 @@
 package ecommerce.external.fake;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PedidoEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
 import ecommerce.external.IEstoqueExternal;
 
+/**
+ * Estoque em memória para rodar e testar a aplicação localmente. Cada produto
+ * tem um contador atômico de saldo; produtos nunca vistos começam com
+ * {@code ecommerce.simulado.estoque.saldo-inicial} unidades. Cada chamada
+ * espera a latência configurada ({@link LatenciaSimulada}).
+ *
+ * A baixa de vários produtos é tudo-ou-nada e sem locks: cada saldo é
+ * decrementado por CAS e nunca fica negativo. Se algum produto não tiver saldo,
+ * as baixas já feitas no mesmo pedido são devolvidas. Nesse intervalo outro
+ * pedido pode ver o saldo temporariamente menor, mas nunca há venda além do
+ * estoque.
+ *
+ * Uma reserva já desconta o saldo; confirmá-la só a torna definitiva, e
+ * liberá-la ou deixá-la vencer devolve as quantidades. Reservas vencidas são
+ * devolvidas na próxima operação de reserva, em ordem de vencimento.
+ */
 @Service
 public class EstoqueSimulado implements IEstoqueExternal
 {
 
+	private final Map<Long, AtomicLong> saldos = new ConcurrentHashMap<>();
+	private final long saldoInicial;
+	private final LatenciaSimulada latencia;
+
+	private final AtomicLong proximaReserva = new AtomicLong(1);
+	private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+	private final DelayQueue<Reserva> vencimentos = new DelayQueue<>();
+
+	private record Reserva(Long id, Map<Long, Long> itens, long venceEmNanos) implements Delayed
+	{
+
+		boolean vencida()
+		{
+			return System.nanoTime() - venceEmNanos >= 0;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unidade)
+		{
+			return unidade.convert(venceEmNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed outra)
+		{
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), outra.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+
+	public EstoqueSimulado(long saldoInicial, LatenciaSimulada latencia)
+	{
+		this.saldoInicial = saldoInicial;
+		this.latencia = latencia;
+	}
+
+	@Autowired
+	public EstoqueSimulado(@Value("${ecommerce.simulado.estoque.saldo-inicial:1000}") long saldoInicial,
+			@Value("${ecommerce.simulado.estoque.latencia.distribuicao:fixa}") String distribuicao,
+			@Value("${ecommerce.simulado.estoque.latencia.minima:0ms}") Duration latenciaMinima,
+			@Value("${ecommerce.simulado.estoque.latencia.maxima:0ms}") Duration latenciaMaxima,
+			@Value("${ecommerce.simulado.estoque.latencia.forma-cauda:1.5}") double formaCauda)
+	{
+		this(saldoInicial, new LatenciaSimulada(LatenciaSimulada.Distribuicao.de(distribuicao), latenciaMinima,
+				latenciaMaxima, formaCauda));
+	}
+
 	@Override
 	public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades)
 	{
-		// TODO Auto-generated method stub
-		return null;
+		Map<Long, Long> pedido = agrupar(produtosIds, produtosQuantidades);
+		latencia.aguardar();
+		return new EstoqueBaixaDTO(baixar(pedido));
 	}
 
 	@Override
 	public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades)
 	{
-		// TODO Auto-generated method stub
-		return null;
+		Map<Long, Long> pedido = agrupar(produtosIds, produtosQuantidades);
+		latencia.aguardar();
+		return verificar(pedido);
+	}
+
+	/** Um único round-trip (uma espera de latência) para o lote inteiro. */
+	@Override
+	public List<DisponibilidadeDTO> verificarDisponibilidadeEmLote(List<PedidoEstoqueDTO> pedidos)
+	{
+		List<Map<Long, Long>> agrupados = agrupar(pedidos);
+		latencia.aguardar();
+
+		List<DisponibilidadeDTO> resultados = new ArrayList<>(agrupados.size());
+		for (Map<Long, Long> pedido : agrupados)
+		{
+			resultados.add(verificar(pedido));
+		}
+		return resultados;
+	}
+
+	/**
+	 * Um único round-trip para o lote inteiro. Todos os pedidos são validados antes
+	 * da primeira baixa; cada pedido continua tudo-ou-nada e independente dos
+	 * demais.
+	 */
+	@Override
+	public List<EstoqueBaixaDTO> darBaixaEmLote(List<PedidoEstoqueDTO> pedidos)
+	{
+		List<Map<Long, Long>> agrupados = agrupar(pedidos);
+		latencia.aguardar();
+
+		List<EstoqueBaixaDTO> resultados = new ArrayList<>(agrupados.size());
+		for (Map<Long, Long> pedido : agrupados)
+		{
+			resultados.add(new EstoqueBaixaDTO(baixar(pedido)));
+		}
+		return resultados;
+	}
+
+	@Override
+	public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades, Duration validade)
+	{
+		Map<Long, Long> pedido = agrupar(produtosIds, produtosQuantidades);
+		if (validade == null || validade.isNegative() || validade.isZero())
+		{
+			throw new IllegalArgumentException("Validade da reserva deve ser positiva");
+		}
+		latencia.aguardar();
+		devolverVencidas();
+
+		if (!baixar(pedido))
+		{
+			return new ReservaEstoqueDTO(false, null, verificar(pedido).idsProdutosIndisponiveis());
+		}
+		Reserva reserva = new Reserva(proximaReserva.getAndIncrement(), pedido, System.nanoTime() + validade.toNanos());
+		reservas.put(reserva.id(), reserva);
+		vencimentos.add(reserva);
+		return new ReservaEstoqueDTO(true, reserva.id(), List.of());
+	}
+
+	@Override
+	public EstoqueBaixaDTO confirmarReserva(Long reservaId)
+	{
+		validarReserva(reservaId);
+		latencia.aguardar();
+
+		Reserva reserva = reservas.remove(reservaId);
+		if (reserva == null)
+		{
+			return new EstoqueBaixaDTO(false);
+		}
+		if (reserva.vencida())
+		{
+			devolver(reserva);
+			return new EstoqueBaixaDTO(false);
+		}
+		return new EstoqueBaixaDTO(true);
+	}
+
+	@Override
+	public void liberarReserva(Long reservaId)
+	{
+		validarReserva(reservaId);
+		latencia.aguardar();
+
+		Reserva reserva = reservas.remove(reservaId);
+		if (reserva != null)
+		{
+			devolver(reserva);
+		}
+	}
+
+	/** Reservas ainda não confirmadas nem liberadas, devolvendo antes as vencidas. */
+	public int contarReservas()
+	{
+		devolverVencidas();
+		return reservas.size();
+	}
+
+	/** Define o saldo de um produto (carga inicial, testes). */
+	public void definirSaldo(Long produtoId, long quantidade)
+	{
+		if (quantidade < 0)
+		{
+			throw new IllegalArgumentException("Saldo não pode ser negativo");
+		}
+		saldo(produtoId).set(quantidade);
+	}
+
+	public long consultarSaldo(Long produtoId)
+	{
+		return saldo(produtoId).get();
+	}
+
+	private boolean baixar(Map<Long, Long> pedido)
+	{
+		List<Map.Entry<Long, Long>> baixados = new ArrayList<>(pedido.size());
+		for (Map.Entry<Long, Long> linha : pedido.entrySet())
+		{
+			if (!decrementar(saldo(linha.getKey()), linha.getValue()))
+			{
+				for (Map.Entry<Long, Long> baixado : baixados)
+				{
+					saldo(baixado.getKey()).addAndGet(baixado.getValue());
+				}
+				return false;
+			}
+			baixados.add(linha);
+		}
+		return true;
+	}
+
+	private DisponibilidadeDTO verificar(Map<Long, Long> pedido)
+	{
+		List<Long> indisponiveis = new ArrayList<>();
+		for (Map.Entry<Long, Long> linha : pedido.entrySet())
+		{
+			if (saldo(linha.getKey()).get() < linha.getValue())
+			{
+				indisponiveis.add(linha.getKey());
+			}
+		}
+		return new DisponibilidadeDTO(indisponiveis.isEmpty(), indisponiveis);
+	}
+
+	private void devolverVencidas()
+	{
+		Reserva vencida;
+		while ((vencida = vencimentos.poll()) != null)
+		{
+			// confirmadas e liberadas já saíram do mapa
+			if (reservas.remove(vencida.id(), vencida))
+			{
+				devolver(vencida);
+			}
+		}
+	}
+
+	private void devolver(Reserva reserva)
+	{
+		for (Map.Entry<Long, Long> linha : reserva.itens().entrySet())
+		{
+			saldo(linha.getKey()).addAndGet(linha.getValue());
+		}
+	}
+
+	private static void validarReserva(Long reservaId)
+	{
+		if (reservaId == null)
+		{
+			throw new IllegalArgumentException("Reserva não pode ser nula");
+		}
+	}
+
+	private AtomicLong saldo(Long produtoId)
+	{
+		return saldos.computeIfAbsent(produtoId, id -> new AtomicLong(saldoInicial));
+	}
+
+	/** Subtrai a quantidade só se houver saldo suficiente. */
+	private static boolean decrementar(AtomicLong saldo, long quantidade)
+	{
+		long atual;
+		do
+		{
+			atual = saldo.get();
+			if (atual < quantidade)
+			{
+				return false;
+			}
+		}
+		while (!saldo.compareAndSet(atual, atual - quantidade));
+		return true;
+	}
+
+	private static List<Map<Long, Long>> agrupar(List<PedidoEstoqueDTO> pedidos)
+	{
+		if (pedidos == null)
+		{
+			throw new IllegalArgumentException("Lista de pedidos não pode ser nula");
+		}
+		List<Map<Long, Long>> agrupados = new ArrayList<>(pedidos.size());
+		for (PedidoEstoqueDTO pedido : pedidos)
+		{
+			agrupados.add(agrupar(pedido.produtosIds(), pedido.produtosQuantidades()));
+		}
+		return agrupados;
+	}
+
+	/**
+	 * Soma as quantidades de ids repetidos e ordena por id, para que pedidos
+	 * concorrentes sobre os mesmos produtos os percorram na mesma ordem.
+	 */
+	private static Map<Long, Long> agrupar(List<Long> produtosIds, List<Long> produtosQuantidades)
+	{
+		if (produtosIds == null || produtosQuantidades == null || produtosIds.size() != produtosQuantidades.size())
+		{
+			throw new IllegalArgumentException("Listas de produtos e quantidades devem ter o mesmo tamanho");
+		}
+		Map<Long, Long> pedido = new TreeMap<>();
+		for (int i = 0; i < produtosIds.size(); i++)
+		{
+			Long produtoId = produtosIds.get(i);
+			Long quantidade = produtosQuantidades.get(i);
+			if (produtoId == null || quantidade == null || quantidade <= 0)
+			{
+				throw new IllegalArgumentException("Produto ou quantidade inválidos na posição " + i);
+			}
+			pedido.merge(produtoId, quantidade, Math::addExact);
+		}
+		return pedido;
 	}
 }
@@ -0,0 +1,100 @@
+package ecommerce.external.fake;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latência artificial dos serviços simulados, sorteada a cada chamada:
+ * <ul>
+ * <li>{@code fixa}: sempre a latência mínima;</li>
+ * <li>{@code uniforme}: qualquer valor entre a mínima e a máxima;</li>
+ * <li>{@code cauda-longa}: Pareto com escala na mínima, limitada à máxima. A
+ * maioria das chamadas fica perto da mínima e algumas demoram muito mais; quanto
+ * menor a forma, mais pesada a cauda.</li>
+ * </ul>
+ */
+public final class LatenciaSimulada
+{
+
+	public enum Distribuicao
+	{
+		FIXA, UNIFORME, CAUDA_LONGA;
+
+		public static Distribuicao de(String nome)
+		{
+			return valueOf(nome.trim().toUpperCase().replace('-', '_'));
+		}
+	}
+
+	private static final LatenciaSimulada NENHUMA = new LatenciaSimulada(Distribuicao.FIXA, Duration.ZERO,
+			Duration.ZERO, 1.0);
+
+	private final Distribuicao distribuicao;
+	private final long minimaNanos;
+	private final long maximaNanos;
+	private final double formaCauda;
+
+	public LatenciaSimulada(Distribuicao distribuicao, Duration minima, Duration maxima, double formaCauda)
+	{
+		if (minima.isNegative() || maxima.isNegative())
+		{
+			throw new IllegalArgumentException("Latência não pode ser negativa");
+		}
+		if (distribuicao != Distribuicao.FIXA && maxima.compareTo(minima) < 0)
+		{
+			throw new IllegalArgumentException("Latência máxima deve ser maior ou igual à mínima");
+		}
+		if (formaCauda <= 0)
+		{
+			throw new IllegalArgumentException("Forma da cauda deve ser maior que zero");
+		}
+		this.distribuicao = distribuicao;
+		this.minimaNanos = minima.toNanos();
+		this.maximaNanos = maxima.toNanos();
+		this.formaCauda = formaCauda;
+	}
+
+	public static LatenciaSimulada nenhuma()
+	{
+		return NENHUMA;
+	}
+
+	public static LatenciaSimulada fixa(Duration latencia)
+	{
+		return new LatenciaSimulada(Distribuicao.FIXA, latencia, latencia, 1.0);
+	}
+
+	/** Sorteia a latência de uma chamada, em nanossegundos. */
+	public long sortearNanos()
+	{
+		switch (distribuicao)
+		{
+			case UNIFORME:
+				return ThreadLocalRandom.current().nextLong(minimaNanos, maximaNanos + 1);
+			case CAUDA_LONGA:
+				double u = ThreadLocalRandom.current().nextDouble();
+				double pareto = minimaNanos * Math.pow(1.0 - u, -1.0 / formaCauda);
+				return (long) Math.min(pareto, maximaNanos);
+			default:
+				return minimaNanos;
+		}
+	}
+
+	/** Bloqueia a thread atual pela latência sorteada. */
+	public void aguardar()
+	{
+		long nanos = sortearNanos();
+		if (nanos <= 0)
+		{
+			return;
+		}
+		try
+		{
+			Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
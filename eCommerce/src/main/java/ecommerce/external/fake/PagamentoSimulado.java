@@ -1,25 +1,110 @@
 package ecommerce.external.fake;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import ecommerce.dto.PagamentoDTO;
 import ecommerce.external.IPagamentoExternal;
 
+/**
+ * Gateway de pagamento em memória para testes de carga locais. Os ids de
+ * transação vêm de um contador atômico e as transações autorizadas e canceladas
+ * ficam em um cache limitado a {@code maximo-transacoes}: em uma carga longa
+ * parte delas é descartada, e cancelar ou consultar uma transação descartada se
+ * comporta como para uma inexistente.
+ *
+ * Cada chamada espera a latência configurada ({@link LatenciaSimulada}). Uma
+ * fração das autorizações é recusada ({@code taxa-recusa}) e outra falha com
+ * exceção, como um serviço fora do ar ({@code taxa-erro}).
+ */
 @Service
 public class PagamentoSimulado implements IPagamentoExternal
 {
 
+	private final AtomicLong proximaTransacao = new AtomicLong(1);
+	private final Cache<Long, TransacaoSimulada> transacoes;
+	private final LatenciaSimulada latencia;
+	private final double taxaRecusa;
+	private final double taxaErro;
+
+	public PagamentoSimulado(LatenciaSimulada latencia, double taxaRecusa, double taxaErro, long maximoTransacoes)
+	{
+		if (taxaRecusa < 0 || taxaRecusa > 1 || taxaErro < 0 || taxaErro > 1)
+		{
+			throw new IllegalArgumentException("Taxas de recusa e de erro devem estar entre 0 e 1");
+		}
+		this.latencia = latencia;
+		this.taxaRecusa = taxaRecusa;
+		this.taxaErro = taxaErro;
+		this.transacoes = Caffeine.newBuilder().maximumSize(maximoTransacoes).build();
+	}
+
+	@Autowired
+	public PagamentoSimulado(@Value("${ecommerce.simulado.pagamento.latencia.distribuicao:fixa}") String distribuicao,
+			@Value("${ecommerce.simulado.pagamento.latencia.minima:0ms}") Duration latenciaMinima,
+			@Value("${ecommerce.simulado.pagamento.latencia.maxima:0ms}") Duration latenciaMaxima,
+			@Value("${ecommerce.simulado.pagamento.latencia.forma-cauda:1.5}") double formaCauda,
+			@Value("${ecommerce.simulado.pagamento.taxa-recusa:0.0}") double taxaRecusa,
+			@Value("${ecommerce.simulado.pagamento.taxa-erro:0.0}") double taxaErro,
+			@Value("${ecommerce.simulado.pagamento.maximo-transacoes:100000}") long maximoTransacoes)
+	{
+		this(new LatenciaSimulada(LatenciaSimulada.Distribuicao.de(distribuicao), latenciaMinima, latenciaMaxima,
+				formaCauda), taxaRecusa, taxaErro, maximoTransacoes);
+	}
+
 	@Override
 	public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal)
 	{
-		// TODO Auto-generated method stub
-		return null;
+		latencia.aguardar();
+
+		double sorteio = ThreadLocalRandom.current().nextDouble();
+		if (sorteio < taxaErro)
+		{
+			throw new IllegalStateException("Serviço de pagamento indisponível.");
+		}
+		if (sorteio < taxaErro + taxaRecusa)
+		{
+			return new PagamentoDTO(false, null);
+		}
+
+		Long transacaoId = proximaTransacao.getAndIncrement();
+		transacoes.put(transacaoId,
+				new TransacaoSimulada(transacaoId, clienteId, custoTotal, TransacaoSimulada.Status.AUTORIZADA));
+		return new PagamentoDTO(true, transacaoId);
 	}
 
+	/** Cancela uma transação autorizada; cancelar de novo não tem efeito. */
 	@Override
 	public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId)
 	{
-		// TODO Auto-generated method stub
+		latencia.aguardar();
+
+		TransacaoSimulada transacao = transacoes.asMap().computeIfPresent(pagamentoTransacaoId,
+				(id, atual) -> atual.clienteId().equals(clienteId) ? atual.cancelada() : atual);
+		if (transacao == null || !transacao.clienteId().equals(clienteId))
+		{
+			throw new IllegalArgumentException("Transação não encontrada para o cliente: " + pagamentoTransacaoId);
+		}
+	}
+
+	public Optional<TransacaoSimulada> consultarTransacao(Long transacaoId)
+	{
+		return Optional.ofNullable(transacoes.getIfPresent(transacaoId));
+	}
 
+	/** Conta só as transações ainda guardadas, depois de aplicar os descartes pendentes. */
+	public long contarTransacoes(TransacaoSimulada.Status status)
+	{
+		transacoes.cleanUp();
+		return transacoes.asMap().values().stream().filter(t -> t.status() == status).count();
 	}
 }
@@ -0,0 +1,16 @@
+package ecommerce.external.fake;
+
+/** Transação registrada pelo {@link PagamentoSimulado}. */
+public record TransacaoSimulada(Long transacaoId, Long clienteId, Double valor, Status status)
+{
+
+	public enum Status
+	{
+		AUTORIZADA, CANCELADA
+	}
+
+	TransacaoSimulada cancelada()
+	{
+		return new TransacaoSimulada(transacaoId, clienteId, valor, Status.CANCELADA);
+	}
+}
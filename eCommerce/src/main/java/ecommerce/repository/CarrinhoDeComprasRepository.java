@@ -1,8 +1,13 @@
 package ecommerce.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ecommerce.entity.CarrinhoDeCompras;
@@ -13,4 +18,21 @@ public interface CarrinhoDeComprasRepository extends JpaRepository<CarrinhoDeCom
 {
 
 	Optional<CarrinhoDeCompras> findByIdAndCliente(Long id, Cliente cliente);
+
+	/**
+	 * Carrega o carrinho do cliente informado já com cliente e itens, verificando
+	 * a posse do carrinho na mesma consulta. Os produtos ficam como proxies lazy:
+	 * no checkout eles vêm do catálogo de precificação.
+	 */
+	@EntityGraph(attributePaths = { "cliente", "itens" })
+	Optional<CarrinhoDeCompras> findComClienteEItensByIdAndClienteId(Long id, Long clienteId);
+
+	/** Carrinho do cliente informado, com o cliente e sem os itens (edição de um item). */
+	@EntityGraph(attributePaths = { "cliente" })
+	Optional<CarrinhoDeCompras> findComClienteByIdAndClienteId(Long id, Long clienteId);
+
+	/** Carrega os carrinhos com cliente, itens e produtos em uma única consulta. */
+	@Query("select distinct c from CarrinhoDeCompras c left join fetch c.cliente left join fetch c.itens i "
+			+ "left join fetch i.produto where c.id in :ids")
+	List<CarrinhoDeCompras> findAllComItensByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,11 +1,68 @@
 package ecommerce.repository;
 
+import java.util.List;
+
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import ecommerce.config.CacheConfig;
 import ecommerce.entity.Cliente;
 
+/**
+ * Todas as gravações e remoções invalidam o cache de clientes lido por
+ * {@code ClienteService.buscarPorId}. As operações sobre vários clientes, ou
+ * sobre a tabela inteira, limpam o cache todo.
+ */
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long>
 {
-}
\ No newline at end of file
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, key = "#result.id")
+	<S extends Cliente> S save(S cliente);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, key = "#result.id")
+	<S extends Cliente> S saveAndFlush(S cliente);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, allEntries = true)
+	<S extends Cliente> List<S> saveAll(Iterable<S> clientes);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, allEntries = true)
+	<S extends Cliente> List<S> saveAllAndFlush(Iterable<S> clientes);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, key = "#p0")
+	void deleteById(Long id);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, key = "#p0.id")
+	void delete(Cliente cliente);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, allEntries = true)
+	void deleteAllById(Iterable<? extends Long> ids);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, allEntries = true)
+	void deleteAll(Iterable<? extends Cliente> clientes);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, allEntries = true)
+	void deleteAll();
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, allEntries = true)
+	void deleteAllInBatch(Iterable<Cliente> clientes);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, allEntries = true)
+	void deleteAllByIdInBatch(Iterable<Long> ids);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.CACHE_CLIENTES, allEntries = true)
+	void deleteAllInBatch();
+}
@@ -0,0 +1,55 @@
+package ecommerce.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import ecommerce.entity.ItemCompra;
+import ecommerce.service.precificacao.AssinaturaDoCarrinho;
+
+/**
+ * Itens de um carrinho lidos e gravados um a um, sem carregar a coleção
+ * {@code itens} do carrinho.
+ */
+@Repository
+public interface ItemCompraRepository extends JpaRepository<ItemCompra, Long>
+{
+
+	@Query("select i from CarrinhoDeCompras c join c.itens i where c.id = :carrinhoId and i.id = :itemId")
+	Optional<ItemCompra> findDoCarrinho(@Param("carrinhoId") Long carrinhoId, @Param("itemId") Long itemId);
+
+	@Query("select i from CarrinhoDeCompras c join c.itens i where c.id = :carrinhoId")
+	List<ItemCompra> findAllDoCarrinho(@Param("carrinhoId") Long carrinhoId);
+
+	/** Pares (id, quantidade) das linhas do carrinho, sem carregar itens nem produtos. */
+	@Query("select i.id, i.quantidade from CarrinhoDeCompras c join c.itens i where c.id = :carrinhoId")
+	List<Object[]> findLinhasDoCarrinho(@Param("carrinhoId") Long carrinhoId);
+
+	/** Assinatura dos itens gravados, comparável com a de {@link ecommerce.service.precificacao.TotaisDoCarrinho}. */
+	default AssinaturaDoCarrinho calcularAssinatura(Long carrinhoId)
+	{
+		List<Object[]> linhas = findLinhasDoCarrinho(carrinhoId);
+		long unidades = 0;
+		long resumo = 0;
+		for (Object[] linha : linhas)
+		{
+			long quantidade = linha[1] != null ? (Long) linha[1] : 0;
+			unidades += quantidade;
+			resumo += AssinaturaDoCarrinho.linha((Long) linha[0], quantidade);
+		}
+		return new AssinaturaDoCarrinho(linhas.size(), unidades, resumo);
+	}
+
+	/**
+	 * Liga um item já gravado ao carrinho. A coluna pertence à coleção do
+	 * carrinho, que precisaria ser carregada inteira para receber o item.
+	 */
+	@Modifying
+	@Query(value = "update item_compra set carrinho_id = :carrinhoId where id = :itemId", nativeQuery = true)
+	void vincularAoCarrinho(@Param("carrinhoId") Long carrinhoId, @Param("itemId") Long itemId);
+}
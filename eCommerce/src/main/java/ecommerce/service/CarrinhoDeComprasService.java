@@ -1,5 +1,7 @@
 package ecommerce.service;
 
+import java.util.Optional;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -23,4 +25,15 @@ public class CarrinhoDeComprasService
 		return repository.findByIdAndCliente(carrinhoId, cliente)
 				.orElseThrow(() -> new IllegalArgumentException("Carrinho não encontrado."));
 	}
+
+	/**
+	 * Busca o carrinho com o seu cliente e itens em uma única consulta. Os
+	 * produtos ficam como proxies lazy: o checkout só lê os ids e busca os
+	 * produtos no catálogo de precificação. Vazio quando o carrinho não existe ou
+	 * não pertence ao cliente.
+	 */
+	public Optional<CarrinhoDeCompras> buscarComClientePorCarrinhoIdEClienteId(Long carrinhoId, Long clienteId)
+	{
+		return repository.findComClienteEItensByIdAndClienteId(carrinhoId, clienteId);
+	}
 }
@@ -0,0 +1,115 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.dto.CheckoutAssincronoDTO;
+import ecommerce.dto.CheckoutAssincronoDTO.Status;
+import ecommerce.dto.CompraDTO;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Checkout que responde na hora com um id e finaliza a compra em segundo plano.
+ * Os checkouts aceitos esperam em uma fila limitada por um número fixo de
+ * workers; com a fila cheia o pedido é recusado com
+ * {@link RejectedExecutionException}, para o cliente tentar de novo mais tarde
+ * em vez de acumular trabalho sem limite.
+ *
+ * As situações ficam em memória por {@code ecommerce.checkout.assincrono.retencao}
+ * depois da última mudança, até {@code maximo-resultados} checkouts.
+ */
+@Service
+public class CheckoutAssincronoService
+{
+
+	private final CompraService compraService;
+	private final ThreadPoolExecutor workers;
+	private final Cache<String, CheckoutAssincronoDTO> checkouts;
+
+	@Autowired
+	public CheckoutAssincronoService(CompraService compraService,
+			@Value("${ecommerce.checkout.assincrono.workers:16}") int quantidadeWorkers,
+			@Value("${ecommerce.checkout.assincrono.fila:1000}") int fila,
+			@Value("${ecommerce.checkout.assincrono.retencao:10m}") Duration retencao,
+			@Value("${ecommerce.checkout.assincrono.maximo-resultados:100000}") long maximoResultados)
+	{
+		this.compraService = compraService;
+		AtomicInteger numero = new AtomicInteger();
+		this.workers = new ThreadPoolExecutor(quantidadeWorkers, quantidadeWorkers, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(fila), tarefa -> new Thread(tarefa, "checkout-" + numero.getAndIncrement()));
+		this.checkouts = Caffeine.newBuilder().expireAfterWrite(retencao).maximumSize(maximoResultados).build();
+	}
+
+	/**
+	 * Aceita o checkout e devolve o id para consulta.
+	 *
+	 * @throws RejectedExecutionException se a fila de checkouts estiver cheia
+	 */
+	public CheckoutAssincronoDTO iniciar(Long carrinhoId, Long clienteId)
+	{
+		String checkoutId = UUID.randomUUID().toString();
+		CheckoutAssincronoDTO pendente = new CheckoutAssincronoDTO(checkoutId, Status.PENDENTE, null);
+		checkouts.put(checkoutId, pendente);
+		try
+		{
+			workers.execute(() -> processar(checkoutId, carrinhoId, clienteId));
+		}
+		catch (RejectedExecutionException e)
+		{
+			checkouts.invalidate(checkoutId);
+			throw e;
+		}
+		return pendente;
+	}
+
+	/** Situação atual do checkout, ou {@code null} se o id não existe ou já expirou. */
+	public CheckoutAssincronoDTO consultar(String checkoutId)
+	{
+		return checkouts.getIfPresent(checkoutId);
+	}
+
+	/** Checkouts aceitos que ainda esperam um worker. */
+	public int emFila()
+	{
+		return workers.getQueue().size();
+	}
+
+	private void processar(String checkoutId, Long carrinhoId, Long clienteId)
+	{
+		checkouts.put(checkoutId, new CheckoutAssincronoDTO(checkoutId, Status.PROCESSANDO, null));
+		CompraDTO resultado;
+		try
+		{
+			resultado = compraService.finalizarCompra(carrinhoId, clienteId);
+		}
+		catch (IllegalArgumentException | IllegalStateException e)
+		{
+			resultado = new CompraDTO(false, null, e.getMessage());
+		}
+		catch (Exception e)
+		{
+			resultado = new CompraDTO(false, null, "Erro ao processar compra.");
+		}
+		checkouts.put(checkoutId, new CheckoutAssincronoDTO(checkoutId, Status.CONCLUIDO, resultado));
+	}
+
+	/** Termina os checkouts já aceitos antes de encerrar a aplicação. */
+	@PreDestroy
+	public void encerrar() throws InterruptedException
+	{
+		workers.shutdown();
+		workers.awaitTermination(30, TimeUnit.SECONDS);
+	}
+}
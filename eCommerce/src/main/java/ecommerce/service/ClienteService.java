@@ -1,9 +1,10 @@
 package ecommerce.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import ecommerce.entity.Cliente;
+import ecommerce.config.CacheConfig;
 import ecommerce.repository.ClienteRepository;
 
 @Service
@@ -18,9 +19,12 @@ public class ClienteService
 		this.repository = repository;
 	}
 
-	public Cliente buscarPorId(Long clienteId)
+	/** Cópia do cliente; o cache guarda a cópia, nunca a entidade gerenciada. */
+	@Cacheable(CacheConfig.CACHE_CLIENTES)
+	public ClienteSnapshot buscarPorId(Long clienteId)
 	{
-		return repository.findById(clienteId).orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+		return repository.findById(clienteId).map(ClienteSnapshot::de)
+				.orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
 	}
 
 }
@@ -0,0 +1,19 @@
+package ecommerce.service;
+
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+
+/**
+ * Cópia imutável de um {@link Cliente}, guardada no cache de clientes no lugar
+ * da entidade: pode ser compartilhada entre threads e transações, e quem a
+ * recebe do cache não consegue alterá-la.
+ */
+public record ClienteSnapshot(Long id, String nome, Regiao regiao, TipoCliente tipo)
+{
+
+	public static ClienteSnapshot de(Cliente cliente)
+	{
+		return new ClienteSnapshot(cliente.getId(), cliente.getNome(), cliente.getRegiao(), cliente.getTipo());
+	}
+}
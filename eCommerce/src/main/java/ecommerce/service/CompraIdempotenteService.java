@@ -0,0 +1,112 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.dto.CompraDTO;
+
+/**
+ * Finalização de compra com chave de idempotência: a primeira requisição com
+ * uma chave executa o checkout e as repetições recebem o mesmo resultado, sem
+ * chamar estoque e pagamento de novo. Repetições que chegam durante a execução
+ * esperam por ela.
+ *
+ * Recusas do checkout ({@link IllegalArgumentException} e
+ * {@link CompraRecusadaException}) também são guardadas e relançadas nas
+ * repetições. Outras falhas, inclusive as passageiras dos serviços externos
+ * (tempo esgotado, circuito aberto, serviço sobrecarregado ou indisponível),
+ * não são guardadas: a próxima repetição tenta de novo. A exceção é uma falha
+ * cuja compensação também falhou
+ * ({@link CompraService#deixouCompensacaoPendente}): com um pagamento que pode
+ * continuar autorizado, repetir cobraria de novo, então a falha é guardada e
+ * relançada nas repetições, como uma recusa. As chaves ficam em
+ * memória por {@code ecommerce.checkout.idempotencia.retencao}, até
+ * {@code maximo-chaves} chaves.
+ */
+@Service
+public class CompraIdempotenteService
+{
+
+	private record Execucao(Long carrinhoId, Long clienteId, CompletableFuture<CompraDTO> resultado)
+	{
+	}
+
+	private final CompraService compraService;
+	private final Cache<String, Execucao> execucoes;
+
+	@Autowired
+	public CompraIdempotenteService(CompraService compraService,
+			@Value("${ecommerce.checkout.idempotencia.retencao:24h}") Duration retencao,
+			@Value("${ecommerce.checkout.idempotencia.maximo-chaves:100000}") long maximoChaves)
+	{
+		this.compraService = compraService;
+		this.execucoes = Caffeine.newBuilder().expireAfterWrite(retencao).maximumSize(maximoChaves).build();
+	}
+
+	/**
+	 * @throws IllegalArgumentException se a chave já foi usada com outro carrinho
+	 *                                  ou cliente
+	 */
+	public CompraDTO finalizarCompra(String chave, Long carrinhoId, Long clienteId)
+	{
+		Execucao nova = new Execucao(carrinhoId, clienteId, new CompletableFuture<>());
+		Execucao existente = execucoes.asMap().putIfAbsent(chave, nova);
+
+		if (existente == null)
+		{
+			executar(chave, nova);
+			return resultado(nova);
+		}
+		if (!existente.carrinhoId().equals(carrinhoId) || !existente.clienteId().equals(clienteId))
+		{
+			throw new IllegalArgumentException("Chave de idempotência já usada em outra compra.");
+		}
+		return resultado(existente);
+	}
+
+	private void executar(String chave, Execucao execucao)
+	{
+		try
+		{
+			execucao.resultado().complete(compraService.finalizarCompra(execucao.carrinhoId(), execucao.clienteId()));
+		}
+		catch (IllegalArgumentException | CompraRecusadaException e)
+		{
+			execucao.resultado().completeExceptionally(e);
+		}
+		catch (RuntimeException | Error e)
+		{
+			// falha passageira ou inesperada: libera a chave para a próxima tentativa,
+			// a menos que um pagamento ou uma reserva tenha ficado sem compensação
+			if (!CompraService.deixouCompensacaoPendente(e))
+			{
+				execucoes.asMap().remove(chave, execucao);
+			}
+			execucao.resultado().completeExceptionally(e);
+		}
+	}
+
+	private static CompraDTO resultado(Execucao execucao)
+	{
+		try
+		{
+			return execucao.resultado().join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException causa)
+			{
+				throw causa;
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package ecommerce.service;
+
+/**
+ * Recusa de negócio no checkout: itens fora de estoque ou pagamento não
+ * autorizado. Repetir a mesma compra dá a mesma resposta, ao contrário de
+ * falhas passageiras dos serviços externos (tempo esgotado, circuito aberto,
+ * serviço sobrecarregado), que também são {@link IllegalStateException}.
+ */
+public class CompraRecusadaException extends IllegalStateException
+{
+
+	public enum Motivo
+	{
+		SEM_ESTOQUE("Itens fora de estoque."),
+		PAGAMENTO_NAO_AUTORIZADO("Pagamento não autorizado.");
+
+		private final String mensagem;
+
+		Motivo(String mensagem)
+		{
+			this.mensagem = mensagem;
+		}
+	}
+
+	private static final long serialVersionUID = 1L;
+
+	private final Motivo motivo;
+
+	public CompraRecusadaException(Motivo motivo)
+	{
+		super(motivo.mensagem);
+		this.motivo = motivo;
+	}
+
+	public Motivo getMotivo()
+	{
+		return motivo;
+	}
+}
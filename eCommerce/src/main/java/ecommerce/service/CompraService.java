@@ -2,92 +2,466 @@ package ecommerce.service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ecommerce.config.ChamadasExternas;
 import ecommerce.dto.CompraDTO;
+import ecommerce.dto.CotacaoDTO;
 import ecommerce.dto.DisponibilidadeDTO;
 import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.ExplicacaoCustoDTO;
 import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
 import ecommerce.entity.CarrinhoDeCompras;
 import ecommerce.entity.Cliente;
 import ecommerce.entity.ItemCompra;
+import ecommerce.entity.ItemPrecificavel;
 import ecommerce.entity.Produto;
 import ecommerce.entity.Regiao;
 import ecommerce.entity.TipoCliente;
 import ecommerce.entity.TipoProduto;
 import ecommerce.external.IEstoqueExternal;
 import ecommerce.external.IPagamentoExternal;
+import ecommerce.service.MetricasDoCheckout.Compensacao;
+import ecommerce.service.MetricasDoCheckout.Fase;
+import ecommerce.service.catalogo.CatalogoDePrecificacao;
+import ecommerce.service.precificacao.MotorDePrecificacao;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.service.util.MetodosAuxilar;
 import jakarta.transaction.Transactional;
 
 @Service
 public class CompraService {
 
+	private static final Logger LOG = LoggerFactory.getLogger(CompraService.class);
+
 	private final CarrinhoDeComprasService carrinhoService;
 	private final ClienteService clienteService;
 	private final IEstoqueExternal estoqueExternal;
 	private final IPagamentoExternal pagamentoExternal;
+	private final MotorDePrecificacao precificacao;
+	private final CatalogoDePrecificacao catalogo;
+	private final Executor chamadasExternas;
+	private final Duration validadeReserva;
+	private final MetricasDoCheckout metricas;
 
-	@Autowired
 	public CompraService(CarrinhoDeComprasService carrinhoService, ClienteService clienteService,
 			IEstoqueExternal estoqueExternal, IPagamentoExternal pagamentoExternal) {
+		this(carrinhoService, clienteService, estoqueExternal, pagamentoExternal, new PrecificacaoFundida(), null,
+				Optional.empty(), "verificacao", null, MetricasDoCheckout.desligadas());
+	}
+
+	/**
+	 * @param catalogo         nulo nos testes de unidade: os produtos vêm dos
+	 *                         itens do carrinho
+	 * @param chamadasExternas executor do modo {@code paralela}; vazio no modo
+	 *                         sequencial, em que estoque e pagamento são
+	 *                         chamados um após o outro
+	 * @param modoEstoque      {@code verificacao} (verifica o estoque e dá baixa
+	 *                         depois) ou {@code reserva}
+	 */
+	@Autowired
+	public CompraService(CarrinhoDeComprasService carrinhoService, ClienteService clienteService,
+			IEstoqueExternal estoqueExternal, IPagamentoExternal pagamentoExternal, MotorDePrecificacao precificacao,
+			CatalogoDePrecificacao catalogo,
+			Optional<ChamadasExternas> chamadasExternas,
+			@Value("${ecommerce.checkout.estoque:verificacao}") String modoEstoque,
+			@Value("${ecommerce.checkout.reserva.validade:30s}") Duration validadeReserva,
+			MetricasDoCheckout metricas) {
 		this.carrinhoService = carrinhoService;
 		this.clienteService = clienteService;
 
 		this.estoqueExternal = estoqueExternal;
 		this.pagamentoExternal = pagamentoExternal;
+		// argumentos nulos só vêm de testes de unidade (ex.: @InjectMocks), que
+		// usam os padrões do construtor de quatro argumentos
+		this.precificacao = precificacao != null ? precificacao : new PrecificacaoFundida();
+		this.catalogo = catalogo;
+		this.chamadasExternas = chamadasExternas != null ? chamadasExternas.map(ChamadasExternas::executor).orElse(null)
+				: null;
+		this.validadeReserva = "reserva".equalsIgnoreCase(modoEstoque) ? validadeReserva : null;
+		this.metricas = metricas != null ? metricas : MetricasDoCheckout.desligadas();
 	}
 
 	 @Transactional
 	public CompraDTO finalizarCompra(Long carrinhoId, Long clienteId) {
+		long inicio = System.nanoTime();
+		try {
+			CompraDTO compra = finalizar(carrinhoId, clienteId);
+			metricas.registrarSucesso(inicio);
+			return compra;
+		} catch (RuntimeException e) {
+			metricas.registrarFalha(inicio, e);
+			throw e;
+		}
+	}
 
-		Cliente cliente = clienteService.buscarPorId(clienteId);
-		CarrinhoDeCompras carrinho = carrinhoService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente);
+	private CompraDTO finalizar(Long carrinhoId, Long clienteId) {
 
-		List<Long> produtosIds = carrinho.getItens().stream().map(i -> i.getProduto().getId())
-				.collect(Collectors.toList());
-		List<Long> produtosQtds = carrinho.getItens().stream().map(i -> i.getQuantidade()).collect(Collectors.toList());
+		CarrinhoDeCompras carrinho = buscarCarrinhoDoCliente(carrinhoId, clienteId);
+		Cliente cliente = carrinho.getCliente();
+		List<? extends ItemPrecificavel> itens = resolverProdutos(carrinho);
+		metricas.registrarCarrinho(itens);
 
-		DisponibilidadeDTO disponibilidade = estoqueExternal.verificarDisponibilidade(produtosIds, produtosQtds);
+		List<Long> produtosIds = itens.stream().map(i -> i.getProduto().getId()).collect(Collectors.toList());
+		List<Long> produtosQtds = itens.stream().map(i -> i.getQuantidade()).collect(Collectors.toList());
 
-		if (!disponibilidade.disponivel()) {
-			throw new IllegalStateException("Itens fora de estoque.");
+		if (validadeReserva != null) {
+			return finalizarComReserva(cliente, itens, produtosIds, produtosQtds);
 		}
 
-		BigDecimal custoTotal = calcularCustoTotal(carrinho, cliente.getRegiao(), cliente.getTipo());
+		PagamentoDTO pagamento = chamadasExternas != null
+				? verificarEstoqueEAutorizarEmParalelo(cliente, itens, produtosIds, produtosQtds)
+				: verificarEstoqueEAutorizar(cliente, itens, produtosIds, produtosQtds);
 
-		PagamentoDTO pagamento = pagamentoExternal.autorizarPagamento(cliente.getId(), custoTotal.doubleValue());
-
-		if (!pagamento.autorizado()) {
-			throw new IllegalStateException("Pagamento não autorizado.");
+		EstoqueBaixaDTO baixaDTO;
+		try {
+			baixaDTO = darBaixa(produtosIds, produtosQtds);
+		} catch (RuntimeException e) {
+			// baixa recusada sem ser aplicada (erro do estoque, circuito aberto, bulkhead
+			// cheio; a baixa não tem tempo máximo): não deixa a autorização pendurada
+			cancelar(cliente, pagamento, e);
+			throw e;
 		}
 
-		EstoqueBaixaDTO baixaDTO = estoqueExternal.darBaixa(produtosIds, produtosQtds);
-
 		if (!baixaDTO.sucesso()) {
-			pagamentoExternal.cancelarPagamento(cliente.getId(), pagamento.transacaoId());
-			throw new IllegalStateException("Erro ao dar baixa no estoque.");
+			IllegalStateException falha = new IllegalStateException("Erro ao dar baixa no estoque.");
+			cancelar(cliente, pagamento, falha);
+			throw falha;
 		}
 
 		CompraDTO compraDTO = new CompraDTO(true, pagamento.transacaoId(), "Compra finalizada com sucesso.");
 
 		return compraDTO;
 	} 
-    
+
+	/**
+	 * Fluxo com reserva de estoque: reserva, autoriza o pagamento e confirma a
+	 * reserva. O saldo reservado não pode ser vendido a outro checkout enquanto o
+	 * pagamento é autorizado, então a baixa só falha se a reserva vencer. Qualquer
+	 * falha antes da confirmação libera a reserva; no modo {@code paralela} a
+	 * reserva e a autorização são feitas ao mesmo tempo.
+	 */
+	private CompraDTO finalizarComReserva(Cliente cliente, List<? extends ItemPrecificavel> itens,
+			List<Long> produtosIds, List<Long> produtosQtds) {
+
+		BigDecimal custoTotal = precificar(itens, cliente);
+
+		ReservaEstoqueDTO reserva;
+		PagamentoDTO pagamento;
+		if (chamadasExternas != null) {
+			CompletableFuture<ReservaEstoqueDTO> reservaFutura = CompletableFuture.supplyAsync(
+					() -> reservar(produtosIds, produtosQtds), chamadasExternas);
+			CompletableFuture<PagamentoDTO> pagamentoFuturo = CompletableFuture.supplyAsync(
+					() -> autorizarPagamento(cliente, custoTotal), chamadasExternas);
+			CompletableFuture.allOf(reservaFutura, pagamentoFuturo).handle((r, e) -> null).join();
+
+			try {
+				reserva = exigirReserva(resultado(reservaFutura));
+			} catch (RuntimeException e) {
+				cancelarSeAutorizado(cliente, pagamentoFuturo, e);
+				throw e;
+			}
+			try {
+				pagamento = exigirAutorizacao(resultado(pagamentoFuturo));
+			} catch (RuntimeException e) {
+				liberar(reserva, e);
+				throw e;
+			}
+		} else {
+			reserva = exigirReserva(reservar(produtosIds, produtosQtds));
+			try {
+				pagamento = exigirAutorizacao(
+						autorizarPagamento(cliente, custoTotal));
+			} catch (RuntimeException e) {
+				liberar(reserva, e);
+				throw e;
+			}
+		}
+
+		EstoqueBaixaDTO confirmacao;
+		try {
+			confirmacao = confirmarReserva(reserva.reservaId());
+		} catch (RuntimeException e) {
+			cancelar(cliente, pagamento, e);
+			liberar(reserva, e);
+			throw e;
+		}
+
+		if (!confirmacao.sucesso()) {
+			IllegalStateException falha = new IllegalStateException("Erro ao dar baixa no estoque.");
+			cancelar(cliente, pagamento, falha);
+			throw falha;
+		}
+		return new CompraDTO(true, pagamento.transacaoId(), "Compra finalizada com sucesso.");
+	}
+
+	private static ReservaEstoqueDTO exigirReserva(ReservaEstoqueDTO reserva) {
+		if (!reserva.reservado()) {
+			throw new CompraRecusadaException(CompraRecusadaException.Motivo.SEM_ESTOQUE);
+		}
+		return reserva;
+	}
+
+	private static PagamentoDTO exigirAutorizacao(PagamentoDTO pagamento) {
+		if (!pagamento.autorizado()) {
+			throw new CompraRecusadaException(CompraRecusadaException.Motivo.PAGAMENTO_NAO_AUTORIZADO);
+		}
+		return pagamento;
+	}
+
+	/**
+	 * Verdadeiro se a falha do checkout carrega uma compensação que também
+	 * falhou ({@link #cancelar}, {@link #liberar}): o pagamento pode continuar
+	 * autorizado ou a reserva presa, então repetir a compra pode cobrar de novo.
+	 */
+	public static boolean deixouCompensacaoPendente(Throwable falha) {
+		return falha.getSuppressed().length > 0;
+	}
+
+	/**
+	 * Cancela o pagamento sem esconder a falha que levou ao cancelamento. Se o
+	 * cancelamento também falhar, o pagamento continua autorizado: a falha segue
+	 * suprimida na exceção do checkout, vai para o log com a transação e é
+	 * contada como compensação pendente.
+	 */
+	private void cancelar(Cliente cliente, PagamentoDTO pagamento, RuntimeException causa) {
+		try {
+			cancelarPagamento(cliente, pagamento.transacaoId());
+		} catch (RuntimeException e) {
+			causa.addSuppressed(e);
+			metricas.registrarCompensacaoPendente(Compensacao.PAGAMENTO);
+			LOG.error("Pagamento {} do cliente {} continua autorizado: cancelamento falhou.",
+					pagamento.transacaoId(), cliente.getId(), e);
+		}
+	}
+
+	/** Libera a reserva como {@link #cancelar} cancela o pagamento. */
+	private void liberar(ReservaEstoqueDTO reserva, RuntimeException causa) {
+		try {
+			metricas.medir(Fase.COMPENSACAO, () -> estoqueExternal.liberarReserva(reserva.reservaId()));
+		} catch (RuntimeException e) {
+			causa.addSuppressed(e);
+			metricas.registrarCompensacaoPendente(Compensacao.RESERVA);
+			LOG.error("Reserva {} continua presa: liberação falhou.", reserva.reservaId(), e);
+		}
+	}
+
+	private PagamentoDTO verificarEstoqueEAutorizar(Cliente cliente, List<? extends ItemPrecificavel> itens,
+			List<Long> produtosIds, List<Long> produtosQtds) {
+
+		DisponibilidadeDTO disponibilidade = verificarDisponibilidade(produtosIds, produtosQtds);
+
+		if (!disponibilidade.disponivel()) {
+			throw new CompraRecusadaException(CompraRecusadaException.Motivo.SEM_ESTOQUE);
+		}
+
+		BigDecimal custoTotal = precificar(itens, cliente);
+
+		PagamentoDTO pagamento = autorizarPagamento(cliente, custoTotal);
+
+		if (!pagamento.autorizado()) {
+			throw new CompraRecusadaException(CompraRecusadaException.Motivo.PAGAMENTO_NAO_AUTORIZADO);
+		}
+		return pagamento;
+	}
+
+	/**
+	 * Verifica o estoque e pré-autoriza o pagamento ao mesmo tempo, então a latência
+	 * é a da chamada mais lenta e não a soma das duas. O custo é calculado antes,
+	 * para que um carrinho inválido não chegue aos serviços externos. Se o estoque
+	 * falhar, uma autorização já concedida é cancelada.
+	 */
+	private PagamentoDTO verificarEstoqueEAutorizarEmParalelo(Cliente cliente, List<? extends ItemPrecificavel> itens,
+			List<Long> produtosIds, List<Long> produtosQtds) {
+
+		BigDecimal custoTotal = precificar(itens, cliente);
+
+		CompletableFuture<DisponibilidadeDTO> disponibilidade = CompletableFuture
+				.supplyAsync(() -> verificarDisponibilidade(produtosIds, produtosQtds), chamadasExternas);
+		CompletableFuture<PagamentoDTO> pagamento = CompletableFuture.supplyAsync(
+				() -> autorizarPagamento(cliente, custoTotal), chamadasExternas);
+
+		// espera as duas chamadas terminarem, com ou sem erro, antes de decidir
+		CompletableFuture.allOf(disponibilidade, pagamento).handle((r, e) -> null).join();
+
+		try {
+			if (!resultado(disponibilidade).disponivel()) {
+				throw new CompraRecusadaException(CompraRecusadaException.Motivo.SEM_ESTOQUE);
+			}
+		} catch (RuntimeException e) {
+			cancelarSeAutorizado(cliente, pagamento, e);
+			throw e;
+		}
+
+		PagamentoDTO autorizacao = resultado(pagamento);
+
+		if (!autorizacao.autorizado()) {
+			throw new CompraRecusadaException(CompraRecusadaException.Motivo.PAGAMENTO_NAO_AUTORIZADO);
+		}
+		return autorizacao;
+	}
+
+	/** Cancela, como {@link #cancelar}, a autorização feita em paralelo, se concedida. */
+	private void cancelarSeAutorizado(Cliente cliente, CompletableFuture<PagamentoDTO> pagamento,
+			RuntimeException causa) {
+		PagamentoDTO autorizacao = pagamento.isCompletedExceptionally() ? null : pagamento.join();
+		if (autorizacao != null && Boolean.TRUE.equals(autorizacao.autorizado())) {
+			cancelar(cliente, autorizacao, causa);
+		}
+	}
+
+	/** Chamadas externas e precificação, cada uma medida na sua fase. */
+	private DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQtds) {
+		return metricas.medir(Fase.DISPONIBILIDADE,
+				() -> estoqueExternal.verificarDisponibilidade(produtosIds, produtosQtds));
+	}
+
+	private ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQtds) {
+		return metricas.medir(Fase.RESERVA, () -> estoqueExternal.reservar(produtosIds, produtosQtds, validadeReserva));
+	}
+
+	private BigDecimal precificar(List<? extends ItemPrecificavel> itens, Cliente cliente) {
+		return metricas.medir(Fase.PRECIFICACAO,
+				() -> precificacao.calcularCustoTotal(itens, cliente.getRegiao(), cliente.getTipo()));
+	}
+
+	private PagamentoDTO autorizarPagamento(Cliente cliente, BigDecimal custoTotal) {
+		return metricas.medir(Fase.AUTORIZACAO,
+				() -> pagamentoExternal.autorizarPagamento(cliente.getId(), custoTotal.doubleValue()));
+	}
+
+	private EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQtds) {
+		return metricas.medir(Fase.BAIXA, () -> estoqueExternal.darBaixa(produtosIds, produtosQtds));
+	}
+
+	private EstoqueBaixaDTO confirmarReserva(Long reservaId) {
+		return metricas.medir(Fase.CONFIRMACAO, () -> estoqueExternal.confirmarReserva(reservaId));
+	}
+
+	private void cancelarPagamento(Cliente cliente, Long transacaoId) {
+		metricas.medir(Fase.COMPENSACAO, () -> pagamentoExternal.cancelarPagamento(cliente.getId(), transacaoId));
+	}
+
+	/** Resultado de uma chamada já concluída, relançando a exceção original. */
+	private static <T> T resultado(CompletableFuture<T> chamada) {
+		try {
+			return chamada.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Carrega carrinho e cliente em uma única consulta. O cliente só é consultado
+	 * à parte quando o carrinho não é encontrado, para manter a mensagem de erro
+	 * de cliente inexistente.
+	 */
+	private CarrinhoDeCompras buscarCarrinhoDoCliente(Long carrinhoId, Long clienteId) {
+		return metricas.medir(Fase.CARRINHO,
+				() -> carrinhoService.buscarComClientePorCarrinhoIdEClienteId(carrinhoId, clienteId)).orElseThrow(() -> {
+					metricas.medir(Fase.CLIENTE, () -> clienteService.buscarPorId(clienteId));
+					return new IllegalArgumentException("Carrinho não encontrado.");
+				});
+	}
+
+	/**
+	 * Produtos do carrinho vindos do catálogo de precificação, sem carregar as
+	 * entidades. Sem catálogo (ex.: testes de unidade) usa os itens do carrinho.
+	 */
+	private List<? extends ItemPrecificavel> resolverProdutos(CarrinhoDeCompras carrinho) {
+		if (catalogo == null || carrinho.getItens() == null) {
+			return carrinho.getItens();
+		}
+		return metricas.medir(Fase.PRODUTOS, () -> catalogo.resolverItens(carrinho.getItens()));
+	}
+
+	/**
+	 * Calcula o custo total com o motor de precificação configurado (por padrão o
+	 * fundido, que valida e acumula tudo em uma única passada pelos itens).
+	 */
 	public BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
+		return precificacao.calcularCustoTotal(carrinho, regiao, tipoCliente);
+	}
+
+	/**
+	 * Como {@link #calcularCustoTotal}, com os produtos trocados pelas cópias do
+	 * catálogo de precificação: as entidades não têm versão, e só com as cópias
+	 * o motor memorizado reconhece um carrinho já cotado.
+	 */
+	public BigDecimal cotarCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
+		MetodosAuxilar.validarEntradas(carrinho, regiao, tipoCliente);
+		List<? extends ItemPrecificavel> itens = catalogo != null ? catalogo.resolverItens(carrinho.getItens())
+				: carrinho.getItens();
+		return precificacao.calcularCustoTotal(itens, regiao, tipoCliente);
+	}
+
+	/**
+	 * Detalha o custo do carrinho do cliente item a item, com as faixas de
+	 * desconto e de frete aplicadas. Usa o mesmo motor do checkout, então o
+	 * custo total explicado é o mesmo que seria cobrado. Só lê: a transação é
+	 * somente leitura, como a de {@link #cotarCarrinho}.
+	 */
+	@org.springframework.transaction.annotation.Transactional(readOnly = true)
+	public ExplicacaoCustoDTO explicarCustoTotal(Long carrinhoId, Long clienteId) {
+		CarrinhoDeCompras carrinho = buscarCarrinhoDoCliente(carrinhoId, clienteId);
+		Cliente cliente = carrinho.getCliente();
+		List<? extends ItemPrecificavel> itens = resolverProdutos(carrinho);
 
-		validarEntradas(carrinho, regiao, tipoCliente);
+		return precificacao.explicarCustoTotal(itens, cliente.getRegiao(), cliente.getTipo());
+	}
+
+	/**
+	 * Cotação para a vitrine: o mesmo detalhamento de {@link #explicarCustoTotal},
+	 * em transação somente leitura (sem flush nem verificação de alterações das
+	 * entidades). A versão da cotação é a impressão digital do carrinho no motor;
+	 * se {@code versaoConhecida} a aceitar, o custo não é calculado e a cotação
+	 * volta sem explicação.
+	 */
+	// a anotação do jakarta não tem modo somente leitura
+	@org.springframework.transaction.annotation.Transactional(readOnly = true)
+	public CotacaoDTO cotarCarrinho(Long carrinhoId, Long clienteId, Predicate<String> versaoConhecida) {
+		CarrinhoDeCompras carrinho = buscarCarrinhoDoCliente(carrinhoId, clienteId);
+		Cliente cliente = carrinho.getCliente();
+		List<? extends ItemPrecificavel> itens = resolverProdutos(carrinho);
+
+		String versao = precificacao.impressaoDigital(itens, cliente.getRegiao(), cliente.getTipo());
+		if (versao != null && versaoConhecida.test(versao)) {
+			return new CotacaoDTO(versao, null);
+		}
+		return new CotacaoDTO(versao, precificacao.explicarCustoTotal(itens, cliente.getRegiao(), cliente.getTipo()));
+	}
+
+	/**
+	 * Cálculo original, com uma passada pelos itens para cada etapa. Mantido como
+	 * referência para os testes diferenciais e para os benchmarks.
+	 */
+	BigDecimal calcularCustoTotalEmPassos(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
+
+		MetodosAuxilar.validarEntradas(carrinho, regiao, tipoCliente);
 		List<ItemCompra> itensCarrinho = carrinho.getItens();
 		validarItens(itensCarrinho);
 	
 		BigDecimal subtotalGeral = calcularSubtotal(itensCarrinho);
-		// BigDecimal descontoPorTipo = calcularDescontoPorTipo(itensCarrinho);
-		// BigDecimal subtotalComDescontoPorTipo = subtotalGeral.subtract(descontoPorTipo);
-		BigDecimal descontoPorValorTotal = calcularDescontoPorValor(subtotalGeral);
-		BigDecimal subtotalFinal = subtotalGeral.subtract(descontoPorValorTotal);
+		BigDecimal descontoPorTipo = calcularDescontoPorTipo(itensCarrinho);
+		BigDecimal subtotalComDescontoPorTipo = subtotalGeral.subtract(descontoPorTipo);
+		BigDecimal descontoPorValorTotal = calcularDescontoPorValor(subtotalComDescontoPorTipo);
+		BigDecimal subtotalFinal = subtotalComDescontoPorTipo.subtract(descontoPorValorTotal);
 		BigDecimal pesoTotal = calcularPesoTotal(itensCarrinho);
 		BigDecimal valorFrete = calcularFrete(pesoTotal);
 		BigDecimal taxaFragilidade = calcularTaxaDeProdutosFrageis(itensCarrinho);
@@ -98,52 +472,9 @@ public class CompraService {
 		return subtotalFinal.add(valorFrete).setScale(2, RoundingMode.HALF_UP);
 	}
 	
-
-	private void validarEntradas(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
-		if (carrinho == null) {
-			throw new IllegalArgumentException("Carrinho não pode ser nulo");
-		}
-        if (carrinho.getItens() == null || carrinho.getItens().isEmpty()) {
-            throw new IllegalArgumentException("Carrinho não pode estar vazio");
-        }
-		if (regiao == null) {
-			throw new IllegalArgumentException("Região não pode ser nula");
-		}
-		if (tipoCliente == null) {
-			throw new IllegalArgumentException("Tipo de cliente não pode ser nulo");
-		}
-	}
-	
 	private void validarItens(List<ItemCompra> itensCarrinho) {
 		for (ItemCompra item : itensCarrinho) {
-			if (item == null || item.getProduto() == null) {
-				throw new IllegalArgumentException("Item de compra ou produto não pode ser nulo");
-			}
-
-            Produto p = item.getProduto();
-	
-			if (item.getQuantidade() == null || item.getQuantidade() <= 0) {
-				throw new IllegalArgumentException("Quantidade inválida no produto: " + item.getProduto().getNome());
-			}
-	
-			if (p.getPreco() == null || p.getPreco().compareTo(BigDecimal.ZERO) < 0) {
-				throw new IllegalArgumentException("Preço inválido no produto: " + item.getProduto().getNome());
-			}
-
-            if (p.getTipo() == null) {
-                throw new IllegalArgumentException("Tipo do produto não pode ser nulo: " + p.getNome());
-            }
-
-            if (p.getComprimento() == null || p.getLargura() == null || p.getAltura() == null ||
-                    p.getComprimento().compareTo(BigDecimal.ZERO) <= 0 ||
-                    p.getLargura().compareTo(BigDecimal.ZERO) <= 0 ||
-                    p.getAltura().compareTo(BigDecimal.ZERO) <= 0) {
-                throw new IllegalArgumentException("Dimensões inválidas (devem ser > 0) no produto: " + p.getNome());
-            }
-
-            if (p.getPesoFisico() == null || p.getPesoFisico().compareTo(BigDecimal.ZERO) <= 0) {
-                throw new IllegalArgumentException("Peso físico inválido (deve ser > 0) no produto: " + p.getNome());
-            }
+			MetodosAuxilar.validarItem(item);
 		}
 	}
 	
@@ -161,78 +492,50 @@ public class CompraService {
 		return subtotal;
 	}
 	
-	/* private BigDecimal calcularDescontoPorTipo(List<ItemCompra> itensCarrinho) {
+	/**
+	 * Desconto por quantidade de itens do mesmo tipo: quantidade e subtotal de
+	 * cada tipo são somados numa passada, em vetores indexados pelo ordinal do
+	 * tipo, e a faixa da quantidade vale sobre o subtotal do tipo.
+	 */
+	BigDecimal calcularDescontoPorTipo(List<ItemCompra> itensCarrinho) {
 
-		Map<TipoProduto, Long> quantidadePorTipo = new HashMap<>();
+		int tipos = TipoProduto.values().length;
+		long[] quantidadePorTipo = new long[tipos];
+		BigDecimal[] subtotalPorTipo = new BigDecimal[tipos];
+		Arrays.fill(subtotalPorTipo, BigDecimal.ZERO);
 
 		for (ItemCompra item : itensCarrinho) {
 			Produto produto = item.getProduto();
-			long quantidade = item.getQuantidade();
-            TipoProduto tipoProduto = produto.getTipo();
+			int tipo = produto.getTipo().ordinal();
+			BigDecimal quantidadeItem = BigDecimal.valueOf(item.getQuantidade());
 
-            quantidadePorTipo.put(tipoProduto, quantidadePorTipo.getOrDefault(tipoProduto, 0L)+ quantidade);
+			quantidadePorTipo[tipo] += item.getQuantidade();
+			subtotalPorTipo[tipo] = subtotalPorTipo[tipo].add(produto.getPreco().multiply(quantidadeItem));
 		}
 	
 		BigDecimal totalDesconto = BigDecimal.ZERO;
 	
-		for (Map.Entry<TipoProduto, Long> entrada : quantidadePorTipo.entrySet()) {
-			BigDecimal percentualDesconto = calcularPercentualDescontoPorQuantidade(entrada.getValue());
+		for (int tipo = 0; tipo < tipos; tipo++) {
+			BigDecimal percentualDesconto = MetodosAuxilar
+					.calcularPercentualDescontoPorQuantidade(quantidadePorTipo[tipo]);
 			if (percentualDesconto.compareTo(BigDecimal.ZERO) > 0) {
-				BigDecimal subtotalTipo = calcularSubtotalPorTipo(itensCarrinho, entrada.getKey());
-				totalDesconto = totalDesconto.add(subtotalTipo.multiply(percentualDesconto));
+				totalDesconto = totalDesconto.add(subtotalPorTipo[tipo].multiply(percentualDesconto));
 			}
 		}
 	
 		return totalDesconto;
 	}
 	
-	private BigDecimal calcularPercentualDescontoPorQuantidade(Long quantidade) {
-		if (quantidade >= 3 && quantidade <= 4) return new BigDecimal("0.05");
-		if (quantidade >= 5 && quantidade <= 7) return new BigDecimal("0.10");
-		if (quantidade >= 8) return new BigDecimal("0.15");
-		return BigDecimal.ZERO;
-	} 
-	
-	private BigDecimal calcularSubtotalPorTipo(List<ItemCompra> itensCarrinho, TipoProduto tipoProduto) {
-		BigDecimal subtotalTipo = BigDecimal.ZERO;
-	
-		for (ItemCompra item : itensCarrinho) {
-			Produto produto = item.getProduto();
-			if (produto.getTipo() == tipoProduto) {
-				BigDecimal precoProduto = produto.getPreco();
-				BigDecimal quantidadeItem = BigDecimal.valueOf(item.getQuantidade());
-				subtotalTipo = subtotalTipo.add(precoProduto.multiply(quantidadeItem));
-			}
-		}
-	
-		return subtotalTipo;
-	} */
-	
-	private BigDecimal calcularDescontoPorValor(BigDecimal subtotal) {
-		if (subtotal.compareTo(new BigDecimal("1000.00")) >= 0) {
-			return subtotal.multiply(new BigDecimal("0.20"));
-		} else if (subtotal.compareTo(new BigDecimal("500.00")) >= 0) {
-			return subtotal.multiply(new BigDecimal("0.10"));
-		}
-		return BigDecimal.ZERO;
+	BigDecimal calcularDescontoPorValor(BigDecimal subtotal) {
+		return MetodosAuxilar.calcularDescontoPorValor(subtotal);
 	}
 	
-	private BigDecimal calcularPesoTotal(List<ItemCompra> itensCarrinho) {
+	BigDecimal calcularPesoTotal(List<ItemCompra> itensCarrinho) {
 		BigDecimal pesoTotal = BigDecimal.ZERO;
 	
 		for (ItemCompra item : itensCarrinho) {
-			Produto produto = item.getProduto();
-
-			BigDecimal pesoFisico = produto.getPesoFisico();
-			BigDecimal comprimento = produto.getComprimento();
-			BigDecimal largura = produto.getLargura();
-			BigDecimal altura = produto.getAltura();
-            BigDecimal quantidade = BigDecimal.valueOf(item.getQuantidade());
-
-			BigDecimal pesoCubico = comprimento.multiply(largura).multiply(altura).divide(new BigDecimal("6000"), 
-			10, RoundingMode.HALF_UP);
-
-			BigDecimal pesoTributavel = pesoFisico.max(pesoCubico);
+			BigDecimal pesoTributavel = item.getProduto().getPesoTributavelUnitario();
+			BigDecimal quantidade = BigDecimal.valueOf(item.getQuantidade());
 	
 			pesoTotal = pesoTotal.add(pesoTributavel.multiply(quantidade));
 		}
@@ -240,27 +543,18 @@ public class CompraService {
 		return pesoTotal;
 	}
 	
-	private BigDecimal calcularFrete(BigDecimal pesoTotal) {
-		if (pesoTotal.compareTo(new BigDecimal("5.00")) <= 0)
-			return BigDecimal.ZERO;
-
-		if (pesoTotal.compareTo(new BigDecimal("10.00")) <= 0)
-			return pesoTotal.multiply(new BigDecimal("2.00"));
-	
-		if (pesoTotal.compareTo(new BigDecimal("50.00")) <= 0)
-			return pesoTotal.multiply(new BigDecimal("4.00"));
-	
-		return pesoTotal.multiply(new BigDecimal("7.00"));
+	BigDecimal calcularFrete(BigDecimal pesoTotal) {
+		return MetodosAuxilar.calcularFrete(pesoTotal);
 	}
 	
-	private BigDecimal calcularTaxaDeProdutosFrageis(List<ItemCompra> itensCarrinho) {
+	BigDecimal calcularTaxaDeProdutosFrageis(List<ItemCompra> itensCarrinho) {
 		BigDecimal taxaTotal = BigDecimal.ZERO;
 	
 		for (ItemCompra item : itensCarrinho) {
 			Produto produto = item.getProduto();
 			if (Boolean.TRUE.equals(produto.isFragil())) {
 				BigDecimal quantidade = BigDecimal.valueOf(item.getQuantidade());
-				taxaTotal = taxaTotal.add(new BigDecimal("5.00").multiply(quantidade));
+				taxaTotal = taxaTotal.add(MetodosAuxilar.TAXA_PRODUTO_FRAGIL.multiply(quantidade));
 			}
 		}
 	
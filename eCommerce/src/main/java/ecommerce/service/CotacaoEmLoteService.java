@@ -0,0 +1,172 @@
+package ecommerce.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.dto.CotacaoCarrinhoDTO;
+import ecommerce.dto.CotacaoLoteDTO;
+import ecommerce.dto.MetricasLoteDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cotação de muitos carrinhos de uma vez (reprecificação noturna, feeds de
+ * marketplace). Os carrinhos são avaliados em paralelo em um pool ForkJoin de
+ * tamanho fixo e cada carrinho tem o seu próprio resultado: um carrinho inválido
+ * não derruba o lote.
+ */
+@Service
+public class CotacaoEmLoteService
+{
+
+	/** Quantidade de ids por consulta, para não montar cláusulas IN gigantes. */
+	private static final int IDS_POR_CONSULTA = 1000;
+
+	private final CarrinhoDeComprasRepository carrinhoRepository;
+	private final CompraService compraService;
+	private final ForkJoinPool pool;
+	private final int tamanhoMaximoLote;
+
+	@Autowired
+	public CotacaoEmLoteService(CarrinhoDeComprasRepository carrinhoRepository, CompraService compraService,
+			@Value("${ecommerce.cotacao.lote.paralelismo:0}") int paralelismo,
+			@Value("${ecommerce.cotacao.lote.tamanho-maximo:50000}") int tamanhoMaximoLote)
+	{
+		this.carrinhoRepository = carrinhoRepository;
+		this.compraService = compraService;
+		this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+		this.tamanhoMaximoLote = tamanhoMaximoLote;
+	}
+
+	@Transactional(readOnly = true)
+	public CotacaoLoteDTO cotarPorIds(List<Long> carrinhosIds)
+	{
+		validarLote(carrinhosIds);
+		long inicio = System.nanoTime();
+
+		Map<Long, CarrinhoDeCompras> carrinhosPorId = new HashMap<>();
+		for (int i = 0; i < carrinhosIds.size(); i += IDS_POR_CONSULTA)
+		{
+			List<Long> ids = carrinhosIds.subList(i, Math.min(i + IDS_POR_CONSULTA, carrinhosIds.size()));
+			for (CarrinhoDeCompras carrinho : carrinhoRepository.findAllComItensByIdIn(ids))
+			{
+				carrinhosPorId.put(carrinho.getId(), carrinho);
+			}
+		}
+
+		List<CotacaoCarrinhoDTO> resultados = avaliarEmParalelo(carrinhosIds, id -> {
+			CarrinhoDeCompras carrinho = carrinhosPorId.get(id);
+			if (carrinho == null)
+			{
+				return new CotacaoCarrinhoDTO(id, false, null, "Carrinho não encontrado.");
+			}
+			return cotar(carrinho);
+		});
+
+		return montarResposta(resultados, inicio);
+	}
+
+	public CotacaoLoteDTO cotarCarrinhos(List<CarrinhoDeCompras> carrinhos)
+	{
+		validarLote(carrinhos);
+		long inicio = System.nanoTime();
+
+		List<CotacaoCarrinhoDTO> resultados = avaliarEmParalelo(carrinhos, this::cotar);
+
+		return montarResposta(resultados, inicio);
+	}
+
+	private CotacaoCarrinhoDTO cotar(CarrinhoDeCompras carrinho)
+	{
+		Long carrinhoId = carrinho != null ? carrinho.getId() : null;
+		try
+		{
+			Cliente cliente = carrinho != null ? carrinho.getCliente() : null;
+			if (carrinho != null && cliente == null)
+			{
+				throw new IllegalArgumentException("Cliente não encontrado");
+			}
+			BigDecimal custoTotal = compraService.cotarCustoTotal(carrinho,
+					cliente != null ? cliente.getRegiao() : null, cliente != null ? cliente.getTipo() : null);
+
+			return new CotacaoCarrinhoDTO(carrinhoId, true, custoTotal, null);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return new CotacaoCarrinhoDTO(carrinhoId, false, null, e.getMessage());
+		}
+		catch (RuntimeException e)
+		{
+			return new CotacaoCarrinhoDTO(carrinhoId, false, null, "Erro ao calcular o custo do carrinho.");
+		}
+	}
+
+	private <T> List<CotacaoCarrinhoDTO> avaliarEmParalelo(List<T> entradas,
+			Function<T, CotacaoCarrinhoDTO> avaliacao)
+	{
+		try
+		{
+			// parallelStream dentro do pool usa apenas as threads dele; toList mantém a ordem de entrada
+			return pool.submit(() -> entradas.parallelStream().map(avaliacao).toList()).get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Cotação em lote interrompida.", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Erro ao processar cotação em lote.", e.getCause());
+		}
+	}
+
+	private CotacaoLoteDTO montarResposta(List<CotacaoCarrinhoDTO> resultados, long inicio)
+	{
+		long duracaoNanos = System.nanoTime() - inicio;
+		int sucessos = 0;
+		for (CotacaoCarrinhoDTO resultado : resultados)
+		{
+			if (resultado.sucesso())
+			{
+				sucessos++;
+			}
+		}
+		double carrinhosPorSegundo = duracaoNanos > 0 ? resultados.size() * 1_000_000_000d / duracaoNanos : 0d;
+
+		MetricasLoteDTO metricas = new MetricasLoteDTO(resultados.size(), sucessos, resultados.size() - sucessos,
+				duracaoNanos / 1_000_000, carrinhosPorSegundo, pool.getParallelism());
+
+		return new CotacaoLoteDTO(new ArrayList<>(resultados), metricas);
+	}
+
+	private void validarLote(List<?> lote)
+	{
+		if (lote == null || lote.isEmpty())
+		{
+			throw new IllegalArgumentException("Lote de carrinhos não pode estar vazio");
+		}
+		if (lote.size() > tamanhoMaximoLote)
+		{
+			throw new IllegalArgumentException("Lote excede o tamanho máximo de " + tamanhoMaximoLote + " carrinhos");
+		}
+	}
+
+	@PreDestroy
+	public void encerrar()
+	{
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,263 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.dto.ItemDoCarrinhoDTO;
+import ecommerce.dto.TotaisCarrinhoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ItemCompraRepository;
+import ecommerce.repository.ProdutoRepository;
+import ecommerce.service.catalogo.CatalogoDePrecificacao;
+import ecommerce.service.catalogo.ItemDeCatalogo;
+import ecommerce.service.catalogo.ProdutoAlteradoEvent;
+import ecommerce.service.catalogo.ProdutoSnapshot;
+import ecommerce.service.precificacao.AssinaturaDoCarrinho;
+import ecommerce.service.precificacao.RegrasDePrecificacao;
+import ecommerce.service.precificacao.RegrasVigentes;
+import ecommerce.service.precificacao.TotaisDoCarrinho;
+import ecommerce.service.util.MetodosAuxilar;
+import jakarta.transaction.Transactional;
+
+/**
+ * Edição de carrinhos (incluir, alterar a quantidade e remover itens) com os
+ * totais mantidos em {@link TotaisDoCarrinho}: cada edição aplica só a
+ * diferença do item editado, e faixa de desconto, faixa de frete e custo total
+ * saem dos acumulados, sem precificar o carrinho inteiro de novo.
+ *
+ * Os totais ficam em memória por carrinho, por {@code ecommerce.carrinho.totais.retencao},
+ * até {@code maximo-carrinhos} carrinhos, e são montados a partir dos itens
+ * gravados na primeira consulta ou edição. Cada edição carrega e grava só o
+ * item editado; das outras linhas lê apenas id e quantidade, para calcular a
+ * {@link AssinaturaDoCarrinho} dos itens gravados. Se ela não bater com a dos
+ * totais (carrinho alterado por fora deste serviço), os totais são montados de
+ * novo. Edições desfeitas por
+ * rollback e produtos alterados ({@link ProdutoAlteradoEvent}) descartam os
+ * totais afetados.
+ */
+@Service
+public class EdicaoDeCarrinhoService
+{
+
+	private final CarrinhoDeComprasRepository carrinhoRepository;
+	private final ItemCompraRepository itemRepository;
+	private final ProdutoRepository produtoRepository;
+	private final CatalogoDePrecificacao catalogo;
+	private final RegrasVigentes regras;
+	private final Cache<Long, TotaisDoCarrinho> totaisPorCarrinho;
+
+	@Autowired
+	public EdicaoDeCarrinhoService(CarrinhoDeComprasRepository carrinhoRepository,
+			ItemCompraRepository itemRepository, ProdutoRepository produtoRepository, CatalogoDePrecificacao catalogo, RegrasVigentes regras,
+			@Value("${ecommerce.carrinho.totais.retencao:30m}") Duration retencao,
+			@Value("${ecommerce.carrinho.totais.maximo-carrinhos:100000}") long maximoCarrinhos)
+	{
+		this.carrinhoRepository = carrinhoRepository;
+		this.itemRepository = itemRepository;
+		this.produtoRepository = produtoRepository;
+		this.catalogo = catalogo;
+		this.regras = regras;
+		this.totaisPorCarrinho = Caffeine.newBuilder().expireAfterAccess(retencao).maximumSize(maximoCarrinhos)
+				.build();
+	}
+
+	@Transactional
+	public TotaisCarrinhoDTO consultarTotais(Long carrinhoId, Long clienteId)
+	{
+		CarrinhoDeCompras carrinho = buscarCarrinho(carrinhoId, clienteId);
+		return atualizar(carrinho, totais -> {
+		});
+	}
+
+	/** @throws IllegalArgumentException se o produto não existir ou o item for inválido */
+	@Transactional
+	public ItemDoCarrinhoDTO adicionarItem(Long carrinhoId, Long clienteId, Long produtoId, Long quantidade)
+	{
+		CarrinhoDeCompras carrinho = buscarCarrinho(carrinhoId, clienteId);
+		ProdutoSnapshot produto = produtoId != null ? catalogo.buscar(produtoId) : null;
+		if (produto == null)
+		{
+			throw new IllegalArgumentException("Produto não encontrado.");
+		}
+		MetodosAuxilar.validarItem(new ItemDeCatalogo(produto, quantidade));
+
+		ItemCompra item = itemRepository
+				.save(new ItemCompra(null, produtoRepository.getReferenceById(produtoId), quantidade));
+		itemRepository.vincularAoCarrinho(carrinho.getId(), item.getId());
+
+		TotaisCarrinhoDTO totais = atualizar(carrinho,
+				atuais -> atuais.adicionar(item.getId(), produto, quantidade));
+		return new ItemDoCarrinhoDTO(item.getId(), produtoId, quantidade, totais);
+	}
+
+	/** @throws IllegalArgumentException se o item não existir ou a quantidade for inválida */
+	@Transactional
+	public ItemDoCarrinhoDTO alterarQuantidade(Long carrinhoId, Long clienteId, Long itemId, Long quantidade)
+	{
+		CarrinhoDeCompras carrinho = buscarCarrinho(carrinhoId, clienteId);
+		ItemCompra item = buscarItem(carrinho, itemId);
+		Long produtoId = item.getProduto().getId();
+		ProdutoSnapshot produto = catalogo.buscar(produtoId);
+		MetodosAuxilar.validarItem(new ItemDeCatalogo(produto, quantidade));
+
+		item.setQuantidade(quantidade);
+		itemRepository.flush();
+
+		TotaisCarrinhoDTO totais = atualizar(carrinho, atuais -> atuais.alterarQuantidade(itemId, quantidade));
+		return new ItemDoCarrinhoDTO(itemId, produtoId, quantidade, totais);
+	}
+
+	/** @throws IllegalArgumentException se o item não existir */
+	@Transactional
+	public TotaisCarrinhoDTO removerItem(Long carrinhoId, Long clienteId, Long itemId)
+	{
+		CarrinhoDeCompras carrinho = buscarCarrinho(carrinhoId, clienteId);
+		ItemCompra item = buscarItem(carrinho, itemId);
+
+		itemRepository.delete(item);
+		itemRepository.flush();
+
+		return atualizar(carrinho, atuais -> atuais.remover(itemId));
+	}
+
+	/** Descarta, depois do commit, os totais de carrinhos com o produto alterado. */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void invalidar(ProdutoAlteradoEvent evento)
+	{
+		Long produtoId = evento.produtoId();
+		if (produtoId == null)
+		{
+			return;
+		}
+		// garante que a cópia antiga já saiu do catálogo antes de os totais serem remontados
+		catalogo.invalidar(evento);
+		for (Long carrinhoId : totaisPorCarrinho.asMap().keySet())
+		{
+			totaisPorCarrinho.asMap().computeIfPresent(carrinhoId,
+					(id, totais) -> totais.referencia(produtoId) ? null : totais);
+		}
+	}
+
+	/** Quantidade aproximada de carrinhos com totais em memória. */
+	public long tamanho()
+	{
+		return totaisPorCarrinho.estimatedSize();
+	}
+
+	private CarrinhoDeCompras buscarCarrinho(Long carrinhoId, Long clienteId)
+	{
+		return carrinhoRepository.findComClienteByIdAndClienteId(carrinhoId, clienteId)
+				.orElseThrow(() -> new IllegalArgumentException("Carrinho não encontrado."));
+	}
+
+	private ItemCompra buscarItem(CarrinhoDeCompras carrinho, Long itemId)
+	{
+		return itemRepository.findDoCarrinho(carrinho.getId(), itemId)
+				.orElseThrow(() -> new IllegalArgumentException("Item não encontrado no carrinho."));
+	}
+
+	/**
+	 * Aplica a edição, já gravada no banco, aos totais do carrinho. Os totais em
+	 * memória recebem a diferença e só são mantidos se a assinatura resultante
+	 * bater com a dos itens gravados; a aplicação de cada carrinho é atômica.
+	 * Senão os totais são montados a partir dos itens fora do mapa, para não
+	 * segurar o trecho dele (e outros carrinhos) enquanto o banco responde, e só
+	 * entram no mapa se nenhum outro pedido tiver colocado totais nesse meio tempo.
+	 */
+	private TotaisCarrinhoDTO atualizar(CarrinhoDeCompras carrinho, Consumer<TotaisDoCarrinho> edicao)
+	{
+		descartarSeDesfeita(carrinho.getId());
+		RegrasDePrecificacao vigentes = regras.get();
+		AssinaturaDoCarrinho gravada = itemRepository.calcularAssinatura(carrinho.getId());
+		TotaisCarrinhoDTO[] resposta = new TotaisCarrinhoDTO[1];
+
+		totaisPorCarrinho.asMap().computeIfPresent(carrinho.getId(), (id, totais) -> {
+			if (!aplicar(totais, edicao, gravada))
+			{
+				return null;
+			}
+			resposta[0] = descrever(carrinho, totais, vigentes);
+			return totais;
+		});
+		if (resposta[0] != null)
+		{
+			return resposta[0];
+		}
+
+		TotaisDoCarrinho montados = montar(carrinho.getId());
+		TotaisCarrinhoDTO descritos = descrever(carrinho, montados, vigentes);
+		totaisPorCarrinho.asMap().putIfAbsent(carrinho.getId(), montados);
+		return descritos;
+	}
+
+	/** Falso se os totais não correspondiam ao carrinho (linha editada ausente ou assinatura diferente). */
+	private static boolean aplicar(TotaisDoCarrinho totais, Consumer<TotaisDoCarrinho> edicao,
+			AssinaturaDoCarrinho gravada)
+	{
+		try
+		{
+			edicao.accept(totais);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return false;
+		}
+		return totais.assinatura().equals(gravada);
+	}
+
+	private TotaisDoCarrinho montar(Long carrinhoId)
+	{
+		TotaisDoCarrinho totais = new TotaisDoCarrinho();
+		for (ItemCompra item : itemRepository.findAllDoCarrinho(carrinhoId))
+		{
+			ProdutoSnapshot produto = catalogo.buscar(item.getProduto().getId());
+			MetodosAuxilar.validarItem(new ItemDeCatalogo(produto, item.getQuantidade()));
+			totais.adicionar(item.getId(), produto, item.getQuantidade());
+		}
+		return totais;
+	}
+
+	private static TotaisCarrinhoDTO descrever(CarrinhoDeCompras carrinho, TotaisDoCarrinho totais,
+			RegrasDePrecificacao regras)
+	{
+		Cliente cliente = carrinho.getCliente();
+		return new TotaisCarrinhoDTO(carrinho.getId(), totais.quantidadeDeLinhas(), totais.subtotal(),
+				totais.pesoTributavel(), totais.unidadesFrageis(), totais.calcularDescontoPorTipo(regras),
+				totais.calcularPercentualDesconto(regras), totais.calcularFaixaDeFrete(regras),
+				totais.quantidadeDeLinhas() == 0 ? null
+						: totais.calcularCustoTotal(regras, cliente.getRegiao(), cliente.getTipo()));
+	}
+
+	/** Edição desfeita: os totais em memória podem ter recebido a diferença, então são descartados. */
+	private void descartarSeDesfeita(Long carrinhoId)
+	{
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+		{
+			@Override
+			public void afterCompletion(int status)
+			{
+				if (status != STATUS_COMMITTED)
+				{
+					totaisPorCarrinho.invalidate(carrinhoId);
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,217 @@
+package ecommerce.service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import ecommerce.entity.ItemPrecificavel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Métricas do checkout no Micrometer:
+ * <ul>
+ * <li>{@code ecommerce.checkout.duracao} (tag {@code sucesso}): o checkout
+ * inteiro;</li>
+ * <li>{@code ecommerce.checkout.fase} (tag {@code fase}): cada etapa, com ou
+ * sem erro;</li>
+ * <li>{@code ecommerce.checkout.carrinho.itens} e
+ * {@code ecommerce.checkout.carrinho.unidades}: tamanho dos carrinhos;</li>
+ * <li>{@code ecommerce.checkout.resultados} (tag {@code resultado}): um dos
+ * códigos de {@link Resultado};</li>
+ * <li>{@code ecommerce.checkout.compensacoes.pendentes} (tag {@code tipo}):
+ * pagamentos que continuaram autorizados e reservas que continuaram presas
+ * porque a compensação falhou.</li>
+ * </ul>
+ *
+ * Timers e contadores são criados uma vez e reaproveitados, então medir uma
+ * etapa custa duas leituras de {@code System.nanoTime()} e um registro.
+ */
+@Component
+public class MetricasDoCheckout
+{
+
+	public enum Fase
+	{
+		/** Carrinho e cliente, carregados juntos. */
+		CARRINHO,
+		/** Só quando o carrinho não é encontrado, para distinguir cliente inexistente. */
+		CLIENTE,
+		/** Produtos do carrinho no catálogo de precificação. */
+		PRODUTOS,
+		DISPONIBILIDADE,
+		PRECIFICACAO,
+		AUTORIZACAO,
+		BAIXA,
+		RESERVA,
+		CONFIRMACAO,
+		/** Cancelamento de pagamento ou liberação de reserva depois de uma falha. */
+		COMPENSACAO;
+
+		private final String tag = name().toLowerCase(Locale.ROOT);
+	}
+
+	public enum Compensacao
+	{
+		PAGAMENTO, RESERVA;
+
+		private final String tag = name().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Desfecho do checkout. O conjunto é fixo: mensagens de erro não viram tag,
+	 * então o número de séries não depende do que os serviços externos respondem.
+	 */
+	public enum Resultado
+	{
+		SUCESSO,
+		/** {@link CompraRecusadaException} por itens fora de estoque. */
+		SEM_ESTOQUE,
+		/** {@link CompraRecusadaException} por pagamento não autorizado. */
+		PAGAMENTO_RECUSADO,
+		/** {@link IllegalArgumentException}: carrinho ou cliente inexistente, itens inválidos. */
+		INVALIDO,
+		/** Outras {@link IllegalStateException}: baixa recusada, tempo esgotado, circuito aberto. */
+		FALHA_EXTERNA,
+		ERRO_INESPERADO;
+
+		private final String tag = name().toLowerCase(Locale.ROOT).replace('_', '-');
+
+		static Resultado de(RuntimeException erro)
+		{
+			if (erro instanceof CompraRecusadaException recusa)
+			{
+				return recusa.getMotivo() == CompraRecusadaException.Motivo.SEM_ESTOQUE ? SEM_ESTOQUE
+						: PAGAMENTO_RECUSADO;
+			}
+			if (erro instanceof IllegalArgumentException)
+			{
+				return INVALIDO;
+			}
+			if (erro instanceof IllegalStateException)
+			{
+				return FALHA_EXTERNA;
+			}
+			return ERRO_INESPERADO;
+		}
+	}
+
+	private final MeterRegistry registro;
+	private final Map<Fase, Timer> fases = new EnumMap<>(Fase.class);
+	private final Timer comSucesso;
+	private final Timer semSucesso;
+	private final DistributionSummary itensPorCarrinho;
+	private final DistributionSummary unidadesPorCarrinho;
+	private final Map<Resultado, Counter> resultados = new EnumMap<>(Resultado.class);
+	private final Map<Compensacao, Counter> compensacoesPendentes = new EnumMap<>(Compensacao.class);
+
+	@Autowired
+	public MetricasDoCheckout(MeterRegistry registro)
+	{
+		this.registro = registro;
+		for (Fase fase : Fase.values())
+		{
+			fases.put(fase, histograma(Timer.builder("ecommerce.checkout.fase").tag("fase", fase.tag)));
+		}
+		this.comSucesso = histograma(Timer.builder("ecommerce.checkout.duracao").tag("sucesso", "true"));
+		this.semSucesso = histograma(Timer.builder("ecommerce.checkout.duracao").tag("sucesso", "false"));
+		this.itensPorCarrinho = DistributionSummary.builder("ecommerce.checkout.carrinho.itens")
+				.publishPercentileHistogram().maximumExpectedValue(1_000.0).register(registro);
+		this.unidadesPorCarrinho = DistributionSummary.builder("ecommerce.checkout.carrinho.unidades")
+				.publishPercentileHistogram().maximumExpectedValue(10_000.0).register(registro);
+		for (Resultado resultado : Resultado.values())
+		{
+			resultados.put(resultado, Counter.builder("ecommerce.checkout.resultados")
+					.tag("resultado", resultado.tag).register(registro));
+		}
+		for (Compensacao compensacao : Compensacao.values())
+		{
+			compensacoesPendentes.put(compensacao, Counter.builder("ecommerce.checkout.compensacoes.pendentes")
+					.tag("tipo", compensacao.tag).register(registro));
+		}
+	}
+
+	/** Métricas descartadas, para quando não há registro (ex.: testes de unidade). */
+	public static MetricasDoCheckout desligadas()
+	{
+		return new MetricasDoCheckout(new CompositeMeterRegistry());
+	}
+
+	private Timer histograma(Timer.Builder timer)
+	{
+		return timer.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofSeconds(30))
+				.register(registro);
+	}
+
+	public <T> T medir(Fase fase, Supplier<T> etapa)
+	{
+		long inicio = System.nanoTime();
+		try
+		{
+			return etapa.get();
+		}
+		finally
+		{
+			fases.get(fase).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	public void medir(Fase fase, Runnable etapa)
+	{
+		medir(fase, () -> {
+			etapa.run();
+			return null;
+		});
+	}
+
+	public void registrarCarrinho(List<? extends ItemPrecificavel> itens)
+	{
+		if (itens == null)
+		{
+			itensPorCarrinho.record(0);
+			unidadesPorCarrinho.record(0);
+			return;
+		}
+		long unidades = 0;
+		for (ItemPrecificavel item : itens)
+		{
+			if (item != null && item.getQuantidade() != null)
+			{
+				unidades += item.getQuantidade();
+			}
+		}
+		itensPorCarrinho.record(itens.size());
+		unidadesPorCarrinho.record(unidades);
+	}
+
+	public void registrarSucesso(long inicioNanos)
+	{
+		comSucesso.record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+		resultados.get(Resultado.SUCESSO).increment();
+	}
+
+	/** Contada pelo {@link Resultado} correspondente ao tipo do erro. */
+	public void registrarFalha(long inicioNanos, RuntimeException erro)
+	{
+		semSucesso.record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+		resultados.get(Resultado.de(erro)).increment();
+	}
+
+	/** Compensação que falhou: o pagamento ou a reserva precisa ser desfeito por fora. */
+	public void registrarCompensacaoPendente(Compensacao compensacao)
+	{
+		compensacoesPendentes.get(compensacao).increment();
+	}
+}
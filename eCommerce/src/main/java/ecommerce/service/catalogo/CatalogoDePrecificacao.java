@@ -0,0 +1,134 @@
+package ecommerce.service.catalogo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.Produto;
+import ecommerce.repository.ProdutoRepository;
+
+/**
+ * Cache dos atributos de preço dos produtos, por id. Guarda
+ * {@link ProdutoSnapshot}s imutáveis em vez de entidades gerenciadas, para que
+ * o checkout precifique o carrinho sem carregar produtos pelo JPA.
+ *
+ * É aquecido com o catálogo quando a aplicação sobe; um produto ausente é lido
+ * do repositório na primeira vez que aparece. Guarda até
+ * {@code ecommerce.catalogo.maximo-produtos} cópias, cada uma por até
+ * {@code ecommerce.catalogo.validade}. Alterações em produtos
+ * ({@link ProdutoAlteradoEvent}) removem a cópia depois do commit.
+ */
+@Service
+public class CatalogoDePrecificacao
+{
+
+	private final ProdutoRepository produtoRepository;
+	private final int tamanhoPagina;
+	private final Cache<Long, ProdutoSnapshot> produtos;
+	/** Incrementada a cada invalidação; leituras que a atravessam não entram no cache. */
+	private final AtomicLong invalidacoes = new AtomicLong();
+
+	@Autowired
+	public CatalogoDePrecificacao(ProdutoRepository produtoRepository,
+			@Value("${ecommerce.catalogo.aquecimento.tamanho-pagina:1000}") int tamanhoPagina,
+			@Value("${ecommerce.catalogo.maximo-produtos:100000}") long maximoProdutos,
+			@Value("${ecommerce.catalogo.validade:1h}") Duration validade)
+	{
+		this.produtoRepository = produtoRepository;
+		this.tamanhoPagina = tamanhoPagina;
+		this.produtos = Caffeine.newBuilder().maximumSize(maximoProdutos).expireAfterWrite(validade).build();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void aquecer()
+	{
+		Page<Produto> pagina = produtoRepository.findAll(PageRequest.of(0, tamanhoPagina, Sort.by("id")));
+		while (true)
+		{
+			for (Produto produto : pagina)
+			{
+				produtos.put(produto.getId(), ProdutoSnapshot.de(produto));
+			}
+			if (!pagina.hasNext())
+			{
+				break;
+			}
+			pagina = produtoRepository.findAll(pagina.nextPageable());
+		}
+	}
+
+	/**
+	 * Retorna a cópia do produto, lendo do repositório se ainda não estiver no
+	 * cache. Nulo se o produto não existir.
+	 *
+	 * A leitura é feita fora do cache, para não segurar o trecho do mapa enquanto
+	 * o banco responde. Se uma invalidação acontecer durante a leitura, a cópia
+	 * lida pode ser a antiga: ela é devolvida a quem buscou, mas não fica no cache.
+	 */
+	public ProdutoSnapshot buscar(Long produtoId)
+	{
+		ProdutoSnapshot produto = produtos.getIfPresent(produtoId);
+		if (produto != null)
+		{
+			return produto;
+		}
+
+		long antes = invalidacoes.get();
+		produto = produtoRepository.findById(produtoId).map(ProdutoSnapshot::de).orElse(null);
+		if (produto == null || invalidacoes.get() != antes)
+		{
+			return produto;
+		}
+		ProdutoSnapshot anterior = produtos.asMap().putIfAbsent(produtoId, produto);
+		if (invalidacoes.get() != antes)
+		{
+			produtos.asMap().remove(produtoId, produto);
+		}
+		return anterior != null ? anterior : produto;
+	}
+
+	/**
+	 * Troca o produto de cada item pela cópia do catálogo. Só o id do produto é
+	 * lido do item, o que não inicializa o proxy lazy. Itens sem produto ficam como
+	 * estão, para a validação dos motores tratá-los.
+	 */
+	public List<ItemPrecificavel> resolverItens(List<ItemCompra> itens)
+	{
+		List<ItemPrecificavel> resolvidos = new ArrayList<>(itens.size());
+		for (ItemCompra item : itens)
+		{
+			ProdutoSnapshot produto = item != null && item.getProduto() != null ? buscar(item.getProduto().getId())
+					: null;
+			resolvidos.add(produto != null ? new ItemDeCatalogo(produto, item.getQuantidade()) : item);
+		}
+		return resolvidos;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void invalidar(ProdutoAlteradoEvent evento)
+	{
+		invalidacoes.incrementAndGet();
+		produtos.invalidate(evento.produtoId());
+	}
+
+	public long tamanho()
+	{
+		return produtos.estimatedSize();
+	}
+}
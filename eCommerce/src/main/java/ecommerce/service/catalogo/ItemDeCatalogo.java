@@ -0,0 +1,21 @@
+package ecommerce.service.catalogo;
+
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.ProdutoPrecificavel;
+
+/** Linha de carrinho com o produto resolvido pelo catálogo de precificação. */
+public record ItemDeCatalogo(ProdutoPrecificavel produto, Long quantidade) implements ItemPrecificavel
+{
+
+	@Override
+	public ProdutoPrecificavel getProduto()
+	{
+		return produto;
+	}
+
+	@Override
+	public Long getQuantidade()
+	{
+		return quantidade;
+	}
+}
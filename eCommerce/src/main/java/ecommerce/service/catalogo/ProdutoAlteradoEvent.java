@@ -0,0 +1,6 @@
+package ecommerce.service.catalogo;
+
+/** Publicado quando um produto é criado, alterado ou removido. */
+public record ProdutoAlteradoEvent(Long produtoId)
+{
+}
@@ -0,0 +1,34 @@
+package ecommerce.service.catalogo;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import ecommerce.entity.Produto;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Listener JPA de {@link Produto}: transforma gravações e remoções em
+ * {@link ProdutoAlteradoEvent} para quem mantém cópias dos produtos. O
+ * Hibernate obtém a instância pelo contêiner do Spring.
+ */
+@Component
+public class ProdutoAlteradoListener
+{
+
+	private final ApplicationEventPublisher publisher;
+
+	public ProdutoAlteradoListener(ApplicationEventPublisher publisher)
+	{
+		this.publisher = publisher;
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	void publicarAlteracao(Produto produto)
+	{
+		publisher.publishEvent(new ProdutoAlteradoEvent(produto.getId()));
+	}
+}
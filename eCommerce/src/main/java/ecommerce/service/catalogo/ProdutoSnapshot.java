@@ -0,0 +1,138 @@
+package ecommerce.service.catalogo;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ecommerce.entity.Produto;
+import ecommerce.entity.ProdutoPrecificavel;
+import ecommerce.entity.TipoProduto;
+
+/**
+ * Cópia imutável dos atributos de preço de um {@link Produto}, com os valores
+ * derivados (peso tributável, preço em centavos) já calculados. Não guarda
+ * referência à entidade, então pode ser compartilhada entre threads e
+ * transações.
+ *
+ * Cada cópia recebe uma versão nova e crescente: quando o produto muda, o
+ * catálogo descarta a cópia e a seguinte tem outra versão, o que basta para
+ * quem memoriza resultados calculados com ela.
+ */
+public final class ProdutoSnapshot implements ProdutoPrecificavel
+{
+
+	private static final AtomicLong VERSOES = new AtomicLong();
+
+	private final Long id;
+	private final String nome;
+	private final BigDecimal preco;
+	private final BigDecimal pesoFisico;
+	private final BigDecimal comprimento;
+	private final BigDecimal largura;
+	private final BigDecimal altura;
+	private final Boolean fragil;
+	private final TipoProduto tipo;
+	private final BigDecimal pesoTributavelUnitario;
+	private final Long pesoTributavelUnitarioFixo;
+	private final Long precoEmCentavos;
+	private final Long versao;
+
+	private ProdutoSnapshot(Produto produto)
+	{
+		this.id = produto.getId();
+		this.nome = produto.getNome();
+		this.preco = produto.getPreco();
+		this.pesoFisico = produto.getPesoFisico();
+		this.comprimento = produto.getComprimento();
+		this.largura = produto.getLargura();
+		this.altura = produto.getAltura();
+		this.fragil = produto.isFragil();
+		this.tipo = produto.getTipo();
+		this.pesoTributavelUnitario = produto.getPesoTributavelUnitario();
+		this.pesoTributavelUnitarioFixo = produto.getPesoTributavelUnitarioFixo();
+		this.precoEmCentavos = produto.getPrecoEmCentavos();
+		this.versao = VERSOES.incrementAndGet();
+	}
+
+	public static ProdutoSnapshot de(Produto produto)
+	{
+		return new ProdutoSnapshot(produto);
+	}
+
+	@Override
+	public Long getId()
+	{
+		return id;
+	}
+
+	@Override
+	public String getNome()
+	{
+		return nome;
+	}
+
+	@Override
+	public BigDecimal getPreco()
+	{
+		return preco;
+	}
+
+	@Override
+	public BigDecimal getPesoFisico()
+	{
+		return pesoFisico;
+	}
+
+	@Override
+	public BigDecimal getComprimento()
+	{
+		return comprimento;
+	}
+
+	@Override
+	public BigDecimal getLargura()
+	{
+		return largura;
+	}
+
+	@Override
+	public BigDecimal getAltura()
+	{
+		return altura;
+	}
+
+	@Override
+	public Boolean isFragil()
+	{
+		return fragil;
+	}
+
+	@Override
+	public TipoProduto getTipo()
+	{
+		return tipo;
+	}
+
+	@Override
+	public BigDecimal getPesoTributavelUnitario()
+	{
+		return pesoTributavelUnitario;
+	}
+
+	@Override
+	public Long getPesoTributavelUnitarioFixo()
+	{
+		return pesoTributavelUnitarioFixo;
+	}
+
+	@Override
+	public Long getPrecoEmCentavos()
+	{
+		return precoEmCentavos;
+	}
+
+	@Override
+	public Long getVersao()
+	{
+		return versao;
+	}
+}
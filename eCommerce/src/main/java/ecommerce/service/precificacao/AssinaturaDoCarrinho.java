@@ -0,0 +1,27 @@
+package ecommerce.service.precificacao;
+
+/**
+ * Resumo das linhas de um carrinho para saber se os totais em memória ainda
+ * correspondem aos itens gravados: número de linhas, soma das quantidades e
+ * soma de um hash de 64 bits de cada par (id, quantidade). Incluir, remover ou
+ * mudar a quantidade de qualquer linha altera a assinatura; como a soma não
+ * depende da ordem, ela é mantida linha a linha, mas dois conjuntos de linhas
+ * diferentes só coincidem por acaso (chance da ordem de 2^-64), ao contrário
+ * de somas lineares como id × quantidade.
+ */
+public record AssinaturaDoCarrinho(long linhas, long unidades, long resumo) {
+
+	/** Parcela da linha no {@code resumo}. */
+	public static long linha(long id, long quantidade) {
+		return misturar(misturar(id) + quantidade);
+	}
+
+	/** Finalizador do MurmurHash3: bijetivo e com bom espalhamento dos bits. */
+	private static long misturar(long valor) {
+		valor ^= valor >>> 33;
+		valor *= 0xff51afd7ed558ccdL;
+		valor ^= valor >>> 33;
+		valor *= 0xc4ceb9fe1a85ec53L;
+		return valor ^ valor >>> 33;
+	}
+}
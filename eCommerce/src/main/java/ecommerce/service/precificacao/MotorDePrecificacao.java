@@ -0,0 +1,60 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import ecommerce.dto.ExplicacaoCustoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.util.MetodosAuxilar;
+
+/**
+ * Calcula o custo total de um carrinho. As implementações devem produzir o
+ * mesmo resultado (valor e escala) e as mesmas exceções de validação.
+ */
+public interface MotorDePrecificacao {
+
+	/**
+	 * Calcula o custo total a partir das linhas do carrinho, que podem vir das
+	 * entidades ou do catálogo de precificação.
+	 */
+	BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente);
+
+	/**
+	 * Mesmo cálculo, registrando em {@code rastro} cada etapa para que o valor
+	 * possa ser explicado. Com {@code rastro} nulo equivale ao método acima. Todo
+	 * motor precisa saber explicar o custo: a explicação e a cotação da vitrine
+	 * usam o motor do checkout.
+	 */
+	BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente,
+			RastroDePrecificacao rastro);
+
+	/**
+	 * Custo total com o detalhamento de {@link RastroDePrecificacao#explicar()}.
+	 * A explicação é imutável, então um motor pode devolver a mesma para
+	 * carrinhos com a mesma {@link #impressaoDigital impressão digital}.
+	 */
+	default ExplicacaoCustoDTO explicarCustoTotal(List<? extends ItemPrecificavel> itens, Regiao regiao,
+			TipoCliente tipoCliente) {
+		RastroDePrecificacao rastro = new RastroDePrecificacao(itens != null ? itens.size() : 0);
+		calcularCustoTotal(itens, regiao, tipoCliente, rastro);
+		return rastro.explicar();
+	}
+
+	/**
+	 * Identifica o conteúdo que determina o custo do carrinho: itens, versões dos
+	 * produtos, região, tipo de cliente e regras. A mesma impressão digital
+	 * implica o mesmo custo e a mesma explicação. Nula se o motor não souber
+	 * identificar o carrinho.
+	 */
+	default String impressaoDigital(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente) {
+		return null;
+	}
+
+	default BigDecimal calcularCustoTotal(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
+		MetodosAuxilar.validarEntradas(carrinho, regiao, tipoCliente);
+		return calcularCustoTotal(carrinho.getItens(), regiao, tipoCliente);
+	}
+}
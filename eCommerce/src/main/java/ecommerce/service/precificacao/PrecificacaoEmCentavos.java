@@ -0,0 +1,194 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.ProdutoPrecificavel;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.util.MetodosAuxilar;
+
+/**
+ * Motor de precificação em ponto fixo: faz todo o cálculo com {@code long}
+ * escalados e só converte para {@link BigDecimal} no valor final.
+ *
+ * Escalas usadas:
+ * - dinheiro em centavos (10^-2 R$);
+ * - peso em 10^-10 kg, a mesma escala em que o peso cúbico já é arredondado,
+ *   o que mantém o resultado idêntico ao do cálculo com {@link BigDecimal}.
+ *
+ * Preço e peso tributável de cada produto já vêm convertidos e guardados no
+ * próprio produto ({@link ProdutoPrecificavel}), então o cálculo por item não aloca.
+ *
+ * Toda operação é feita com aritmética exata ({@link Math#multiplyExact} etc.).
+ * Se algum valor não couber na escala fixa (mais casas decimais que o previsto)
+ * ou estourar a faixa de {@code long}, o carrinho é recalculado pelo motor
+ * alternativo em {@link BigDecimal}.
+ *
+ * As faixas de desconto e de frete vêm das {@link RegrasDePrecificacao}, já
+ * compiladas em ponto fixo. Quantidade e subtotal de cada tipo de produto são
+ * acumulados em vetores de {@code long} indexados pelo ordinal do tipo. Também vão para o motor alternativo os cálculos com
+ * regras que não cabem nas escalas, com ajuste de frete por região ou tipo de
+ * cliente e os pedidos com {@link RastroDePrecificacao}.
+ */
+public class PrecificacaoEmCentavos implements MotorDePrecificacao {
+
+	private static final int ESCALA_DINHEIRO = 2;
+	private static final int ESCALA_PESO = MetodosAuxilar.ESCALA_PESO_CUBICO;
+
+	private static final long CEM_POR_CENTO = 100;
+
+	private static final long TAXA_PRODUTO_FRAGIL = escalar(MetodosAuxilar.TAXA_PRODUTO_FRAGIL, ESCALA_DINHEIRO);
+
+	/**
+	 * Subtotal com desconto por tipo fica em 10^-4 R$ e, depois do desconto por
+	 * valor, em 10^-6 R$; o frete (peso × R$/kg) em 10^-12 R$.
+	 */
+	private static final long SUBTOTAL_DESCONTADO_POR_CENTAVO = CEM_POR_CENTO * CEM_POR_CENTO;
+	private static final long FRETE_POR_CENTAVO = (long) Math.pow(10, ESCALA_PESO);
+	private static final long FRACAO_POR_SUBTOTAL_DESCONTADO = FRETE_POR_CENTAVO / SUBTOTAL_DESCONTADO_POR_CENTAVO;
+
+	private final Supplier<RegrasDePrecificacao> regras;
+	private final MotorDePrecificacao alternativo;
+
+	public PrecificacaoEmCentavos() {
+		this(new PrecificacaoFundida());
+	}
+
+	public PrecificacaoEmCentavos(MotorDePrecificacao alternativo) {
+		this(RegrasDePrecificacao::padrao, alternativo);
+	}
+
+	/** O alternativo deve usar as mesmas regras, como {@code new PrecificacaoFundida(regras)}. */
+	public PrecificacaoEmCentavos(Supplier<RegrasDePrecificacao> regras, MotorDePrecificacao alternativo) {
+		this.regras = regras;
+		this.alternativo = alternativo;
+	}
+
+	@Override
+	public BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itensCarrinho, Regiao regiao,
+			TipoCliente tipoCliente) {
+
+		MetodosAuxilar.validarEntradas(itensCarrinho, regiao, tipoCliente);
+
+		RegrasDePrecificacao vigentes = regras.get();
+		if (!vigentes.emPontoFixo() || !vigentes.freteSemAjuste(regiao, tipoCliente)) {
+			return alternativo.calcularCustoTotal(itensCarrinho, regiao, tipoCliente);
+		}
+
+		try {
+			return BigDecimal.valueOf(calcularEmCentavos(itensCarrinho, vigentes), ESCALA_DINHEIRO);
+		} catch (ArithmeticException e) {
+			return alternativo.calcularCustoTotal(itensCarrinho, regiao, tipoCliente);
+		}
+	}
+
+	@Override
+	public BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itensCarrinho, Regiao regiao,
+			TipoCliente tipoCliente, RastroDePrecificacao rastro) {
+		if (rastro == null) {
+			return calcularCustoTotal(itensCarrinho, regiao, tipoCliente);
+		}
+		return alternativo.calcularCustoTotal(itensCarrinho, regiao, tipoCliente, rastro);
+	}
+
+	private long calcularEmCentavos(List<? extends ItemPrecificavel> itensCarrinho, RegrasDePrecificacao regras) {
+
+		boolean porTipo = regras.temDescontoPorQuantidade();
+		long[] quantidadePorTipo = porTipo ? new long[RegrasDePrecificacao.TIPOS_DE_PRODUTO] : null;
+		long[] subtotalPorTipo = porTipo ? new long[RegrasDePrecificacao.TIPOS_DE_PRODUTO] : null;
+
+		long subtotal = 0;
+		long pesoTotal = 0;
+		long taxaFragilidade = 0;
+
+		for (ItemPrecificavel item : itensCarrinho) {
+			MetodosAuxilar.validarItem(item);
+
+			ProdutoPrecificavel produto = item.getProduto();
+			long quantidade = item.getQuantidade();
+
+			long subtotalItem = Math.multiplyExact(exigirEscalaFixa(produto.getPrecoEmCentavos()), quantidade);
+			subtotal = Math.addExact(subtotal, subtotalItem);
+			pesoTotal = Math.addExact(pesoTotal,
+					Math.multiplyExact(exigirEscalaFixa(produto.getPesoTributavelUnitarioFixo()), quantidade));
+
+			if (porTipo) {
+				int tipo = produto.getTipo().ordinal();
+				quantidadePorTipo[tipo] = Math.addExact(quantidadePorTipo[tipo], quantidade);
+				subtotalPorTipo[tipo] = Math.addExact(subtotalPorTipo[tipo], subtotalItem);
+			}
+
+			if (Boolean.TRUE.equals(produto.isFragil())) {
+				taxaFragilidade = Math.addExact(taxaFragilidade, Math.multiplyExact(TAXA_PRODUTO_FRAGIL, quantidade));
+			}
+		}
+
+		long subtotalComDescontoPorTipo = porTipo
+				? aplicarDescontoPorQuantidade(quantidadePorTipo, subtotalPorTipo, regras)
+				: Math.multiplyExact(subtotal, CEM_POR_CENTO);
+		// os limites de desconto são centavos inteiros: comparar a parte inteira basta
+		long subtotalComDesconto = Math.multiplyExact(subtotalComDescontoPorTipo,
+				CEM_POR_CENTO - calcularPercentualDesconto(subtotalComDescontoPorTipo / CEM_POR_CENTO, regras));
+		long frete = calcularFrete(pesoTotal, regras);
+
+		long centavos = Math.addExact(Math.addExact(subtotalComDesconto / SUBTOTAL_DESCONTADO_POR_CENTAVO,
+				frete / FRETE_POR_CENTAVO), taxaFragilidade);
+		long fracao = (subtotalComDesconto % SUBTOTAL_DESCONTADO_POR_CENTAVO) * FRACAO_POR_SUBTOTAL_DESCONTADO
+				+ frete % FRETE_POR_CENTAVO;
+
+		centavos = Math.addExact(centavos, fracao / FRETE_POR_CENTAVO);
+		if (2 * (fracao % FRETE_POR_CENTAVO) >= FRETE_POR_CENTAVO) {
+			centavos = Math.incrementExact(centavos);
+		}
+		return centavos;
+	}
+
+	/** Soma, em 10^-4 R$, do subtotal de cada tipo já com o desconto da faixa da quantidade do tipo. */
+	private static long aplicarDescontoPorQuantidade(long[] quantidadePorTipo, long[] subtotalPorTipo,
+			RegrasDePrecificacao regras) {
+		long subtotalComDesconto = 0;
+		for (int tipo = 0; tipo < RegrasDePrecificacao.TIPOS_DE_PRODUTO; tipo++) {
+			long percentual = regras.calcularPercentualDescontoPorQuantidadeFixo(tipo, quantidadePorTipo[tipo]);
+			subtotalComDesconto = Math.addExact(subtotalComDesconto,
+					Math.multiplyExact(subtotalPorTipo[tipo], CEM_POR_CENTO - percentual));
+		}
+		return subtotalComDesconto;
+	}
+
+	/** Percentual da maior faixa cujo subtotal mínimo foi atingido (busca binária). */
+	private static long calcularPercentualDesconto(long subtotal, RegrasDePrecificacao regras) {
+		int posicao = Arrays.binarySearch(regras.limitesDescontoEmCentavos, subtotal);
+		int faixa = posicao >= 0 ? posicao : -posicao - 2;
+		return faixa < 0 ? 0 : regras.percentuaisDescontoFixos[faixa];
+	}
+
+	/** Frete da primeira faixa cujo peso máximo comporta o peso total (busca binária). */
+	private static long calcularFrete(long pesoTotal, RegrasDePrecificacao regras) {
+		int posicao = Arrays.binarySearch(regras.limitesFreteFixos, pesoTotal);
+		int faixa = posicao >= 0 ? posicao : -posicao - 1;
+		return Math.multiplyExact(pesoTotal, regras.fretePorKgEmCentavos[faixa]);
+	}
+
+	/**
+	 * Lê um valor em escala fixa guardado no produto. Nulo indica que o
+	 * valor não cabe na escala, e o carrinho vai para o motor alternativo.
+	 */
+	private static long exigirEscalaFixa(Long valor) {
+		if (valor == null) {
+			throw new ArithmeticException("Valor fora da escala fixa");
+		}
+		return valor;
+	}
+
+	/**
+	 * Converte para {@code long} na escala pedida. Lança {@link ArithmeticException}
+	 * se o valor tiver mais casas decimais que a escala ou não couber em um long.
+	 */
+	private static long escalar(BigDecimal valor, int escala) {
+		return valor.movePointRight(escala).longValueExact();
+	}
+}
@@ -0,0 +1,117 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.ProdutoPrecificavel;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.util.MetodosAuxilar;
+
+/**
+ * Motor de precificação que percorre os itens do carrinho uma única vez,
+ * validando cada item e acumulando subtotal, peso tributável e taxa de produtos
+ * frágeis na mesma passada. Quantidade e subtotal de cada {@link TipoProduto}
+ * também são acumulados nessa passada, em vetores indexados pelo ordinal do
+ * tipo, para o desconto por quantidade.
+ *
+ * Descontos e frete vêm das {@link RegrasDePrecificacao} lidas uma única vez
+ * por cálculo. Com as regras padrão o resultado é idêntico (valor e
+ * escala) ao do cálculo em passos de {@code CompraService}: os acumuladores
+ * somam os itens na mesma ordem e as faixas são as de {@link MetodosAuxilar}.
+ *
+ * Com um {@link RastroDePrecificacao} a mesma passada registra a contribuição
+ * de cada item; sem ele o único custo extra é um teste de nulo por item.
+ */
+public class PrecificacaoFundida implements MotorDePrecificacao {
+
+	private final Supplier<RegrasDePrecificacao> regras;
+
+	public PrecificacaoFundida() {
+		this(RegrasDePrecificacao::padrao);
+	}
+
+	public PrecificacaoFundida(Supplier<RegrasDePrecificacao> regras) {
+		this.regras = regras;
+	}
+
+	@Override
+	public BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itensCarrinho, Regiao regiao,
+			TipoCliente tipoCliente) {
+		return calcularCustoTotal(itensCarrinho, regiao, tipoCliente, null);
+	}
+
+	@Override
+	public BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itensCarrinho, Regiao regiao,
+			TipoCliente tipoCliente, RastroDePrecificacao rastro) {
+
+		MetodosAuxilar.validarEntradas(itensCarrinho, regiao, tipoCliente);
+		if (rastro != null) {
+			rastro.iniciar(itensCarrinho.size());
+		}
+
+		RegrasDePrecificacao vigentes = regras.get();
+		boolean porTipo = vigentes.temDescontoPorQuantidade();
+		long[] quantidadePorTipo = porTipo ? new long[RegrasDePrecificacao.TIPOS_DE_PRODUTO] : null;
+		BigDecimal[] subtotalPorTipo = porTipo ? novoSubtotalPorTipo() : null;
+
+		BigDecimal subtotal = BigDecimal.ZERO;
+		BigDecimal pesoTotal = BigDecimal.ZERO;
+		BigDecimal taxaFragilidade = BigDecimal.ZERO;
+
+		for (ItemPrecificavel item : itensCarrinho) {
+			MetodosAuxilar.validarItem(item);
+
+			ProdutoPrecificavel produto = item.getProduto();
+			BigDecimal quantidade = BigDecimal.valueOf(item.getQuantidade());
+
+			BigDecimal subtotalItem = produto.getPreco().multiply(quantidade);
+			BigDecimal pesoItem = produto.getPesoTributavelUnitario().multiply(quantidade);
+			subtotal = subtotal.add(subtotalItem);
+			pesoTotal = pesoTotal.add(pesoItem);
+
+			if (porTipo) {
+				int tipo = produto.getTipo().ordinal();
+				quantidadePorTipo[tipo] += item.getQuantidade();
+				subtotalPorTipo[tipo] = subtotalPorTipo[tipo].add(subtotalItem);
+			}
+
+			BigDecimal taxaItem = BigDecimal.ZERO;
+			if (Boolean.TRUE.equals(produto.isFragil())) {
+				taxaItem = MetodosAuxilar.TAXA_PRODUTO_FRAGIL.multiply(quantidade);
+				taxaFragilidade = taxaFragilidade.add(taxaItem);
+			}
+
+			if (rastro != null) {
+				rastro.registrarItem(produto, item.getQuantidade(), subtotalItem, pesoItem, taxaItem);
+			}
+		}
+
+		BigDecimal descontoPorTipo = porTipo
+				? vigentes.calcularDescontoPorQuantidade(quantidadePorTipo, subtotalPorTipo)
+				: BigDecimal.ZERO;
+		BigDecimal subtotalComDescontoPorTipo = subtotal.subtract(descontoPorTipo);
+		BigDecimal desconto = vigentes.calcularDescontoPorValor(subtotalComDescontoPorTipo);
+		BigDecimal frete = vigentes.calcularFrete(pesoTotal);
+		BigDecimal subtotalFinal = subtotalComDescontoPorTipo.subtract(desconto);
+		BigDecimal valorFrete = vigentes.ajustarFrete(frete.add(taxaFragilidade), regiao, tipoCliente);
+
+		BigDecimal custoTotal = subtotalFinal.add(valorFrete).setScale(2, RoundingMode.HALF_UP);
+		if (rastro != null) {
+			rastro.registrarCarrinho(vigentes, regiao, tipoCliente, subtotal, descontoPorTipo, desconto, pesoTotal,
+					frete, taxaFragilidade, valorFrete, custoTotal);
+		}
+		return custoTotal;
+	}
+
+	private static BigDecimal[] novoSubtotalPorTipo() {
+		BigDecimal[] subtotalPorTipo = new BigDecimal[RegrasDePrecificacao.TIPOS_DE_PRODUTO];
+		Arrays.fill(subtotalPorTipo, BigDecimal.ZERO);
+		return subtotalPorTipo;
+	}
+}
@@ -0,0 +1,229 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import ecommerce.dto.ExplicacaoCustoDTO;
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.ProdutoPrecificavel;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.catalogo.ProdutoAlteradoEvent;
+
+/**
+ * Motor que memoriza o custo total de cada carrinho já cotado. A chave é uma
+ * impressão digital do carrinho: região, tipo de cliente, versão das
+ * {@link RegrasVigentes} e (id, quantidade, versão) do produto de cada item.
+ * Um carrinho repetido custa então a montagem da chave e uma busca no cache,
+ * sem passar pelo motor. A {@linkplain #explicarCustoTotal explicação} do
+ * custo, usada pela cotação da vitrine, é memorizada na mesma chave e também
+ * responde pelo custo total.
+ *
+ * Como as versões fazem parte da chave, uma cotação memorizada nunca vale para
+ * um produto alterado nem para regras trocadas. Ainda assim o cache é limpo
+ * quando as regras mudam e, depois do commit, as cotações com um produto
+ * alterado ({@link ProdutoAlteradoEvent}) são removidas, para não ocupar o
+ * cache até expirarem.
+ *
+ * Carrinhos com produtos sem versão (entidades gerenciadas; use as cópias do
+ * catálogo), itens incompletos, cálculos com um {@link RastroDePrecificacao}
+ * de quem chama e cálculos que lançam exceção vão direto para o motor e não
+ * são memorizados.
+ *
+ * A mesma chave serve de {@link #impressaoDigital impressão digital} do
+ * carrinho, por exemplo para o ETag de uma cotação.
+ */
+public class PrecificacaoMemorizada implements MotorDePrecificacao {
+
+	private final MotorDePrecificacao motor;
+	private final RegrasVigentes regras;
+	private final Cache<Object, Object> cotacoes;
+	private final AtomicLong versaoDasRegras;
+
+	/** {@code cotacoes} define tamanho máximo e tempo de vida das cotações memorizadas. */
+	public PrecificacaoMemorizada(MotorDePrecificacao motor, RegrasVigentes regras, Cache<Object, Object> cotacoes) {
+		this.motor = motor;
+		this.regras = regras;
+		this.cotacoes = cotacoes;
+		this.versaoDasRegras = new AtomicLong(regras.versao());
+	}
+
+	@Override
+	public BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itensCarrinho, Regiao regiao,
+			TipoCliente tipoCliente) {
+
+		long versao = regras.versao();
+		Chave chave = Chave.de(itensCarrinho, regiao, tipoCliente, versao);
+		if (chave == null) {
+			return motor.calcularCustoTotal(itensCarrinho, regiao, tipoCliente);
+		}
+		limparSeAsRegrasMudaram(versao);
+
+		Object memorizado = cotacoes.getIfPresent(chave);
+		if (memorizado instanceof BigDecimal custoTotal) {
+			return custoTotal;
+		}
+		if (memorizado instanceof ExplicacaoCustoDTO explicacao) {
+			return explicacao.custoTotal();
+		}
+		BigDecimal custoTotal = motor.calcularCustoTotal(itensCarrinho, regiao, tipoCliente);
+		memorizar(chave, versao, custoTotal);
+		return custoTotal;
+	}
+
+	/** Substitui um custo total memorizado sem explicação pela explicação completa. */
+	@Override
+	public ExplicacaoCustoDTO explicarCustoTotal(List<? extends ItemPrecificavel> itensCarrinho, Regiao regiao,
+			TipoCliente tipoCliente) {
+
+		long versao = regras.versao();
+		Chave chave = Chave.de(itensCarrinho, regiao, tipoCliente, versao);
+		if (chave == null) {
+			return motor.explicarCustoTotal(itensCarrinho, regiao, tipoCliente);
+		}
+		limparSeAsRegrasMudaram(versao);
+
+		if (cotacoes.getIfPresent(chave) instanceof ExplicacaoCustoDTO explicacao) {
+			return explicacao;
+		}
+		ExplicacaoCustoDTO explicacao = motor.explicarCustoTotal(itensCarrinho, regiao, tipoCliente);
+		memorizar(chave, versao, explicacao);
+		return explicacao;
+	}
+
+	private void limparSeAsRegrasMudaram(long versao) {
+		long anterior = versaoDasRegras.get();
+		if (versao > anterior && versaoDasRegras.compareAndSet(anterior, versao)) {
+			cotacoes.invalidateAll();
+		}
+	}
+
+	private void memorizar(Chave chave, long versao, Object cotacao) {
+		// regras trocadas durante o cálculo: o motor pode ter usado as novas
+		if (regras.versao() == versao) {
+			cotacoes.put(chave, cotacao);
+		}
+	}
+
+	@Override
+	public BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itensCarrinho, Regiao regiao,
+			TipoCliente tipoCliente, RastroDePrecificacao rastro) {
+		if (rastro == null) {
+			return calcularCustoTotal(itensCarrinho, regiao, tipoCliente);
+		}
+		return motor.calcularCustoTotal(itensCarrinho, regiao, tipoCliente, rastro);
+	}
+
+	/**
+	 * Resumo da chave do carrinho. Versões de produtos e de regras só valem
+	 * dentro do processo, então o resumo muda quando a aplicação reinicia.
+	 */
+	@Override
+	public String impressaoDigital(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente) {
+		Chave chave = Chave.de(itens, regiao, tipoCliente, regras.versao());
+		return chave != null ? chave.resumo() : null;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void invalidar(ProdutoAlteradoEvent evento) {
+		if (evento.produtoId() != null) {
+			long produtoId = evento.produtoId();
+			cotacoes.asMap().keySet().removeIf(chave -> ((Chave) chave).referencia(produtoId));
+		}
+	}
+
+	/** Quantidade aproximada de cotações memorizadas. */
+	public long tamanho() {
+		return cotacoes.estimatedSize();
+	}
+
+	/**
+	 * Impressão digital de um carrinho em um único vetor de {@code long}: região
+	 * e tipo de cliente, versão das regras e, para cada item, id, quantidade e
+	 * versão do produto, na ordem dos itens.
+	 */
+	static final class Chave {
+
+		private static final int CABECALHO = 2;
+		private static final int POR_ITEM = 3;
+		private static final int BYTES_DO_RESUMO = 16;
+		/** Distingue os resumos deste processo dos de outro processo com as mesmas versões. */
+		private static final long ORIGEM = new SecureRandom().nextLong();
+
+		private final long[] valores;
+		private final int hash;
+
+		private Chave(long[] valores) {
+			this.valores = valores;
+			this.hash = Arrays.hashCode(valores);
+		}
+
+		/** Nula se algum item não puder entrar na chave; o motor trata o carrinho como está. */
+		static Chave de(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente,
+				long versaoDasRegras) {
+			if (itens == null || itens.isEmpty() || regiao == null || tipoCliente == null) {
+				return null;
+			}
+			long[] valores = new long[CABECALHO + POR_ITEM * itens.size()];
+			valores[0] = (long) regiao.ordinal() << Integer.SIZE | tipoCliente.ordinal();
+			valores[1] = versaoDasRegras;
+
+			int i = CABECALHO;
+			for (ItemPrecificavel item : itens) {
+				ProdutoPrecificavel produto = item != null ? item.getProduto() : null;
+				if (produto == null || produto.getId() == null || produto.getVersao() == null
+						|| item.getQuantidade() == null) {
+					return null;
+				}
+				valores[i++] = produto.getId();
+				valores[i++] = item.getQuantidade();
+				valores[i++] = produto.getVersao();
+			}
+			return new Chave(valores);
+		}
+
+		/** SHA-256 da chave, truncado em 128 bits e em Base64 para URL. */
+		String resumo() {
+			ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES * (valores.length + 1)).putLong(ORIGEM);
+			for (long valor : valores) {
+				bytes.putLong(valor);
+			}
+			try {
+				byte[] resumo = MessageDigest.getInstance("SHA-256").digest(bytes.array());
+				return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(resumo, BYTES_DO_RESUMO));
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		boolean referencia(long produtoId) {
+			for (int i = CABECALHO; i < valores.length; i += POR_ITEM) {
+				if (valores[i] == produtoId) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean equals(Object outro) {
+			return outro instanceof Chave chave && hash == chave.hash && Arrays.equals(valores, chave.valores);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import ecommerce.dto.ExplicacaoCustoDTO;
+import ecommerce.entity.ProdutoPrecificavel;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.util.MetodosAuxilar;
+
+/**
+ * Registro das etapas de um cálculo de custo (modo "explicar"), preenchido pelo
+ * motor durante a mesma passada pelos itens.
+ *
+ * Os itens ficam em vetores paralelos alocados de antemão: registrar um item só
+ * guarda referências para valores que o motor já calculou, sem alocar. O que é
+ * derivado (peso cúbico, faixas das {@link RegrasDePrecificacao} usadas) e o
+ * {@link ExplicacaoCustoDTO} só são montados em {@link #explicar()}. Sem
+ * rastro o motor segue o caminho de sempre.
+ *
+ * Pode ser reaproveitado entre cálculos; os vetores só crescem quando um
+ * carrinho não cabe. Não é thread-safe.
+ */
+public final class RastroDePrecificacao {
+
+	public static final int CAPACIDADE_PADRAO = 64;
+
+	private int tamanho;
+	private ProdutoPrecificavel[] produtos;
+	private long[] quantidades;
+	private BigDecimal[] subtotais;
+	private BigDecimal[] pesosTributaveis;
+	private BigDecimal[] taxasFragilidade;
+
+	private RegrasDePrecificacao regras;
+	private Regiao regiao;
+	private TipoCliente tipoCliente;
+	private BigDecimal subtotal;
+	private BigDecimal descontoPorTipo;
+	private BigDecimal desconto;
+	private BigDecimal pesoTotal;
+	private BigDecimal frete;
+	private BigDecimal taxaFragilidade;
+	private BigDecimal freteTotal;
+	private BigDecimal custoTotal;
+
+	public RastroDePrecificacao() {
+		this(CAPACIDADE_PADRAO);
+	}
+
+	public RastroDePrecificacao(int capacidade) {
+		alocar(Math.max(capacidade, 1));
+	}
+
+	/** Prepara o rastro para um novo carrinho, crescendo os vetores se preciso. */
+	void iniciar(int itens) {
+		limpar();
+		if (itens > produtos.length) {
+			alocar(Math.max(itens, produtos.length * 2));
+		}
+	}
+
+	void registrarItem(ProdutoPrecificavel produto, long quantidade, BigDecimal subtotalItem,
+			BigDecimal pesoTributavelItem, BigDecimal taxaFragilidadeItem) {
+		int i = tamanho++;
+		produtos[i] = produto;
+		quantidades[i] = quantidade;
+		subtotais[i] = subtotalItem;
+		pesosTributaveis[i] = pesoTributavelItem;
+		taxasFragilidade[i] = taxaFragilidadeItem;
+	}
+
+	void registrarCarrinho(RegrasDePrecificacao regras, Regiao regiao, TipoCliente tipoCliente, BigDecimal subtotal,
+			BigDecimal descontoPorTipo, BigDecimal desconto, BigDecimal pesoTotal, BigDecimal frete,
+			BigDecimal taxaFragilidade, BigDecimal freteTotal, BigDecimal custoTotal) {
+		this.regras = regras;
+		this.regiao = regiao;
+		this.tipoCliente = tipoCliente;
+		this.subtotal = subtotal;
+		this.descontoPorTipo = descontoPorTipo;
+		this.desconto = desconto;
+		this.pesoTotal = pesoTotal;
+		this.frete = frete;
+		this.taxaFragilidade = taxaFragilidade;
+		this.freteTotal = freteTotal;
+		this.custoTotal = custoTotal;
+	}
+
+	/** Quantidade de itens registrados no último cálculo. */
+	public int tamanho() {
+		return tamanho;
+	}
+
+	/** Monta o detalhamento do último cálculo concluído. */
+	public ExplicacaoCustoDTO explicar() {
+		if (custoTotal == null) {
+			throw new IllegalStateException("Nenhum cálculo concluído no rastro.");
+		}
+
+		List<ExplicacaoCustoDTO.Item> itens = new ArrayList<>(tamanho);
+		for (int i = 0; i < tamanho; i++) {
+			ProdutoPrecificavel produto = produtos[i];
+			BigDecimal pesoCubico = MetodosAuxilar.calcularPesoCubico(produto);
+
+			itens.add(new ExplicacaoCustoDTO.Item(produto.getId(), produto.getNome(), quantidades[i],
+					produto.getPreco(), subtotais[i], produto.getPesoFisico(), pesoCubico,
+					pesoCubico.compareTo(produto.getPesoFisico()) > 0, pesosTributaveis[i], taxasFragilidade[i]));
+		}
+
+		int faixaFrete = regras.calcularFaixaDeFrete(pesoTotal);
+		BigDecimal percentualDesconto = regras.calcularPercentualDesconto(subtotal.subtract(descontoPorTipo));
+		return new ExplicacaoCustoDTO(Collections.unmodifiableList(itens), subtotal, descontoPorTipo, percentualDesconto, desconto, pesoTotal,
+				faixaFrete, regras.fretePorKg(faixaFrete), frete, taxaFragilidade, regras.multiplicadorDaRegiao(regiao),
+				regras.descontoDeFreteDoCliente(tipoCliente), freteTotal, custoTotal);
+	}
+
+	/** Solta as referências do último cálculo, mantendo os vetores alocados. */
+	public void limpar() {
+		Arrays.fill(produtos, 0, tamanho, null);
+		Arrays.fill(subtotais, 0, tamanho, null);
+		Arrays.fill(pesosTributaveis, 0, tamanho, null);
+		Arrays.fill(taxasFragilidade, 0, tamanho, null);
+		tamanho = 0;
+		registrarCarrinho(null, null, null, null, null, null, null, null, null, null, null);
+	}
+
+	private void alocar(int capacidade) {
+		produtos = new ProdutoPrecificavel[capacidade];
+		quantidades = new long[capacidade];
+		subtotais = new BigDecimal[capacidade];
+		pesosTributaveis = new BigDecimal[capacidade];
+		taxasFragilidade = new BigDecimal[capacidade];
+	}
+}
@@ -0,0 +1,420 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.util.MetodosAuxilar;
+
+/**
+ * Tabela de regras de precificação compilada: descontos por valor do subtotal,
+ * faixas de frete por peso, multiplicador de frete por {@link Regiao}, desconto
+ * de frete por {@link TipoCliente} e descontos por quantidade de cada
+ * {@link TipoProduto}.
+ *
+ * As faixas ficam em vetores ordenados e a busca da faixa é binária; as regras
+ * por região e tipo de cliente ficam em {@link EnumMap}s e as faixas por
+ * quantidade em vetores indexados por {@link TipoProduto#ordinal()}, na mesma
+ * ordem dos acumuladores por tipo dos motores. A instância é imutável, então pode ser
+ * lida por qualquer número de cotações enquanto uma tabela nova é compilada e
+ * trocada em {@link RegrasVigentes}.
+ *
+ * Quando os valores cabem nas escalas do motor em centavos, a tabela também
+ * guarda as faixas de desconto (por valor e por quantidade) e de frete em
+ * {@code long}.
+ */
+public final class RegrasDePrecificacao {
+
+	/** Linha de uma tabela de faixas: o limite e o valor aplicado a partir dele (ou até ele). */
+	public record Faixa(BigDecimal limite, BigDecimal valor) {
+	}
+
+	private static final int ESCALA_DINHEIRO = 2;
+	/** Percentuais em centésimos: o motor em centavos desconta sobre {@code 100 - percentual}. */
+	private static final int ESCALA_PERCENTUAL = 2;
+	private static final int ESCALA_PESO = MetodosAuxilar.ESCALA_PESO_CUBICO;
+
+	private static final TipoProduto[] TIPOS = TipoProduto.values();
+	/** Tamanho dos vetores indexados por {@link TipoProduto#ordinal()}. */
+	static final int TIPOS_DE_PRODUTO = TIPOS.length;
+
+	private static final RegrasDePrecificacao PADRAO = compilar(
+			List.of(new Faixa(MetodosAuxilar.LIMITE_DESCONTO_10, MetodosAuxilar.DESCONTO_10),
+					new Faixa(MetodosAuxilar.LIMITE_DESCONTO_20, MetodosAuxilar.DESCONTO_20)),
+			List.of(new Faixa(MetodosAuxilar.LIMITE_FRETE_ISENTO, BigDecimal.ZERO),
+					new Faixa(MetodosAuxilar.LIMITE_FRETE_FAIXA_B, MetodosAuxilar.FRETE_POR_KG_FAIXA_B),
+					new Faixa(MetodosAuxilar.LIMITE_FRETE_FAIXA_C, MetodosAuxilar.FRETE_POR_KG_FAIXA_C)),
+			MetodosAuxilar.FRETE_POR_KG_FAIXA_D, Map.of(), Map.of(), descontoPorQuantidadePadrao());
+
+	/** Subtotal mínimo de cada faixa de desconto (crescente) e o percentual da faixa. */
+	private final BigDecimal[] limitesDesconto;
+	private final BigDecimal[] percentuaisDesconto;
+
+	/** Peso máximo de cada faixa de frete (crescente); {@code fretePorKg} tem uma posição a mais, acima da última. */
+	private final BigDecimal[] limitesFrete;
+	private final BigDecimal[] fretePorKg;
+
+	private final EnumMap<Regiao, BigDecimal> multiplicadorPorRegiao;
+	private final EnumMap<TipoCliente, BigDecimal> descontoDeFretePorCliente;
+
+	/** Por ordinal do tipo de produto: quantidade mínima de cada faixa (crescente) e percentual; vazios sem regra. */
+	private final long[][] limitesQuantidade;
+	private final BigDecimal[][] percentuaisQuantidade;
+	private final boolean temDescontoPorQuantidade;
+
+	/** Mesmas faixas em ponto fixo; nulos quando algum valor não cabe na escala. */
+	final long[] limitesDescontoEmCentavos;
+	final long[] percentuaisDescontoFixos;
+	final long[] limitesFreteFixos;
+	final long[] fretePorKgEmCentavos;
+	final long[][] percentuaisQuantidadeFixos;
+
+	private RegrasDePrecificacao(List<Faixa> descontoPorValor, List<Faixa> faixasDeFrete,
+			BigDecimal freteAcimaDasFaixas, Map<Regiao, BigDecimal> multiplicadorPorRegiao,
+			Map<TipoCliente, BigDecimal> descontoDeFretePorCliente,
+			Map<TipoProduto, List<Faixa>> descontoPorQuantidade) {
+
+		List<Faixa> descontos = ordenar(descontoPorValor, "desconto por valor");
+		limitesDesconto = limites(descontos);
+		percentuaisDesconto = valores(descontos, 0);
+		for (BigDecimal percentual : percentuaisDesconto) {
+			exigirPercentual(percentual, "desconto por valor");
+		}
+
+		List<Faixa> fretes = ordenar(faixasDeFrete, "frete");
+		limitesFrete = limites(fretes);
+		fretePorKg = valores(fretes, 1);
+		fretePorKg[fretes.size()] = exigirNaoNegativo(freteAcimaDasFaixas, "frete acima das faixas");
+
+		this.multiplicadorPorRegiao = new EnumMap<>(Regiao.class);
+		for (Regiao regiao : Regiao.values()) {
+			BigDecimal multiplicador = multiplicadorPorRegiao.getOrDefault(regiao, BigDecimal.ONE);
+			this.multiplicadorPorRegiao.put(regiao, exigirNaoNegativo(multiplicador, "multiplicador da região " + regiao));
+		}
+
+		this.descontoDeFretePorCliente = new EnumMap<>(TipoCliente.class);
+		for (TipoCliente tipo : TipoCliente.values()) {
+			BigDecimal desconto = descontoDeFretePorCliente.getOrDefault(tipo, BigDecimal.ZERO);
+			this.descontoDeFretePorCliente.put(tipo, exigirPercentual(desconto, "desconto de frete do cliente " + tipo));
+		}
+
+		limitesQuantidade = new long[TIPOS_DE_PRODUTO][0];
+		percentuaisQuantidade = new BigDecimal[TIPOS_DE_PRODUTO][0];
+		for (Map.Entry<TipoProduto, List<Faixa>> entrada : descontoPorQuantidade.entrySet()) {
+			String regra = "desconto por quantidade de " + entrada.getKey();
+			List<Faixa> faixas = ordenar(entrada.getValue(), regra);
+			long[] quantidades = new long[faixas.size()];
+			for (int i = 0; i < quantidades.length; i++) {
+				try {
+					quantidades[i] = faixas.get(i).limite().longValueExact();
+				} catch (ArithmeticException e) {
+					throw new IllegalArgumentException("Quantidade inválida na regra de " + regra + ".");
+				}
+			}
+			BigDecimal[] percentuais = valores(faixas, 0);
+			for (BigDecimal percentual : percentuais) {
+				exigirPercentual(percentual, regra);
+			}
+			limitesQuantidade[entrada.getKey().ordinal()] = quantidades;
+			percentuaisQuantidade[entrada.getKey().ordinal()] = percentuais;
+		}
+		boolean algumTipo = false;
+		for (long[] limites : limitesQuantidade) {
+			algumTipo |= limites.length > 0;
+		}
+		temDescontoPorQuantidade = algumTipo;
+
+		long[][] fixos = emPontoFixo(limitesDesconto, percentuaisDesconto, limitesFrete, fretePorKg);
+		limitesDescontoEmCentavos = fixos[0];
+		percentuaisDescontoFixos = fixos[1];
+		limitesFreteFixos = fixos[2];
+		fretePorKgEmCentavos = fixos[3];
+		percentuaisQuantidadeFixos = emPontoFixo(percentuaisQuantidade);
+	}
+
+	/**
+	 * Compila uma tabela de regras. Nas faixas de desconto (por valor ou por
+	 * quantidade) o limite é o mínimo a partir do qual o percentual vale; nas de
+	 * frete é o peso máximo da faixa, e acima da última vale
+	 * {@code freteAcimaDasFaixas}. Regiões e tipos de cliente ausentes ficam com
+	 * multiplicador 1 e desconto zero.
+	 *
+	 * @throws IllegalArgumentException se houver limites repetidos, valores
+	 *                                  negativos ou percentuais acima de 100%
+	 */
+	public static RegrasDePrecificacao compilar(List<Faixa> descontoPorValor, List<Faixa> faixasDeFrete,
+			BigDecimal freteAcimaDasFaixas, Map<Regiao, BigDecimal> multiplicadorPorRegiao,
+			Map<TipoCliente, BigDecimal> descontoDeFretePorCliente,
+			Map<TipoProduto, List<Faixa>> descontoPorQuantidade) {
+		return new RegrasDePrecificacao(descontoPorValor, faixasDeFrete, freteAcimaDasFaixas, multiplicadorPorRegiao,
+				descontoDeFretePorCliente, descontoPorQuantidade);
+	}
+
+	/**
+	 * Regras fixas de {@link MetodosAuxilar}: as mesmas faixas de desconto por
+	 * quantidade para todos os tipos de produto, sem multiplicadores nem
+	 * descontos de frete.
+	 */
+	public static RegrasDePrecificacao padrao() {
+		return PADRAO;
+	}
+
+	public BigDecimal calcularPercentualDesconto(BigDecimal subtotal) {
+		int faixa = buscarAPartirDe(limitesDesconto, subtotal);
+		return faixa < 0 ? BigDecimal.ZERO : percentuaisDesconto[faixa];
+	}
+
+	/** Mesmo resultado (valor e escala) de {@link MetodosAuxilar#calcularDescontoPorValor} nas regras padrão. */
+	public BigDecimal calcularDescontoPorValor(BigDecimal subtotal) {
+		int faixa = buscarAPartirDe(limitesDesconto, subtotal);
+		return faixa < 0 ? BigDecimal.ZERO : subtotal.multiply(percentuaisDesconto[faixa]);
+	}
+
+	/** Índice da faixa de frete do peso: 0 é a primeira; {@link #quantidadeDeFaixasDeFrete()} - 1 é a acima das faixas. */
+	public int calcularFaixaDeFrete(BigDecimal pesoTotal) {
+		int posicao = Arrays.binarySearch(limitesFrete, pesoTotal);
+		return posicao >= 0 ? posicao : -posicao - 1;
+	}
+
+	public int quantidadeDeFaixasDeFrete() {
+		return fretePorKg.length;
+	}
+
+	public BigDecimal fretePorKg(int faixaDeFrete) {
+		return fretePorKg[faixaDeFrete];
+	}
+
+	/** Mesmo resultado (valor e escala) de {@link MetodosAuxilar#calcularFrete} nas regras padrão. */
+	public BigDecimal calcularFrete(BigDecimal pesoTotal) {
+		BigDecimal valorPorKg = fretePorKg[calcularFaixaDeFrete(pesoTotal)];
+		return valorPorKg.signum() == 0 ? BigDecimal.ZERO : pesoTotal.multiply(valorPorKg);
+	}
+
+	public BigDecimal multiplicadorDaRegiao(Regiao regiao) {
+		return multiplicadorPorRegiao.get(regiao);
+	}
+
+	public BigDecimal descontoDeFreteDoCliente(TipoCliente tipoCliente) {
+		return descontoDeFretePorCliente.get(tipoCliente);
+	}
+
+	/** Verdadeiro se região e tipo de cliente não alteram o frete (multiplicador 1, desconto zero). */
+	public boolean freteSemAjuste(Regiao regiao, TipoCliente tipoCliente) {
+		return multiplicadorPorRegiao.get(regiao).compareTo(BigDecimal.ONE) == 0
+				&& descontoDeFretePorCliente.get(tipoCliente).signum() == 0;
+	}
+
+	/**
+	 * Aplica ao frete o multiplicador da região e, depois, o desconto do tipo de
+	 * cliente. Sem ajuste devolve o próprio valor.
+	 */
+	public BigDecimal ajustarFrete(BigDecimal valorFrete, Regiao regiao, TipoCliente tipoCliente) {
+		BigDecimal multiplicador = multiplicadorPorRegiao.get(regiao);
+		if (multiplicador.compareTo(BigDecimal.ONE) != 0) {
+			valorFrete = valorFrete.multiply(multiplicador);
+		}
+		BigDecimal desconto = descontoDeFretePorCliente.get(tipoCliente);
+		if (desconto.signum() != 0) {
+			valorFrete = valorFrete.multiply(BigDecimal.ONE.subtract(desconto));
+		}
+		return valorFrete;
+	}
+
+	/** Percentual de desconto para {@code quantidade} unidades do tipo (zero sem regra para o tipo). */
+	public BigDecimal calcularPercentualDescontoPorQuantidade(TipoProduto tipo, long quantidade) {
+		int faixa = faixaDeQuantidade(tipo.ordinal(), quantidade);
+		return faixa < 0 ? BigDecimal.ZERO : percentuaisQuantidade[tipo.ordinal()][faixa];
+	}
+
+	/**
+	 * Soma dos descontos por quantidade de cada tipo de produto: o subtotal do
+	 * tipo vezes o percentual da faixa atingida pela quantidade do tipo. Os
+	 * vetores são indexados por {@link TipoProduto#ordinal()}; tipos sem faixa
+	 * atingida não entram na soma.
+	 */
+	public BigDecimal calcularDescontoPorQuantidade(long[] quantidadePorTipo, BigDecimal[] subtotalPorTipo) {
+		BigDecimal desconto = BigDecimal.ZERO;
+		for (int tipo = 0; tipo < TIPOS_DE_PRODUTO; tipo++) {
+			int faixa = faixaDeQuantidade(tipo, quantidadePorTipo[tipo]);
+			if (faixa >= 0 && percentuaisQuantidade[tipo][faixa].signum() != 0) {
+				desconto = desconto.add(subtotalPorTipo[tipo].multiply(percentuaisQuantidade[tipo][faixa]));
+			}
+		}
+		return desconto;
+	}
+
+	/** Mesmo percentual de {@link #calcularPercentualDescontoPorQuantidade} em centésimos, pelo ordinal do tipo. */
+	long calcularPercentualDescontoPorQuantidadeFixo(int tipo, long quantidade) {
+		int faixa = faixaDeQuantidade(tipo, quantidade);
+		return faixa < 0 ? 0 : percentuaisQuantidadeFixos[tipo][faixa];
+	}
+
+	public boolean temDescontoPorQuantidade() {
+		return temDescontoPorQuantidade;
+	}
+
+	/** Faixas de desconto por valor, em ordem crescente de subtotal mínimo. */
+	public List<Faixa> descontoPorValor() {
+		return faixas(limitesDesconto, percentuaisDesconto);
+	}
+
+	/** Faixas de frete, em ordem crescente de peso máximo (sem a faixa acima das faixas). */
+	public List<Faixa> faixasDeFrete() {
+		return faixas(limitesFrete, fretePorKg);
+	}
+
+	public BigDecimal freteAcimaDasFaixas() {
+		return fretePorKg[limitesFrete.length];
+	}
+
+	public Map<Regiao, BigDecimal> multiplicadorPorRegiao() {
+		return Collections.unmodifiableMap(multiplicadorPorRegiao);
+	}
+
+	public Map<TipoCliente, BigDecimal> descontoDeFretePorCliente() {
+		return Collections.unmodifiableMap(descontoDeFretePorCliente);
+	}
+
+	public Map<TipoProduto, List<Faixa>> descontoPorQuantidade() {
+		Map<TipoProduto, List<Faixa>> descontos = new EnumMap<>(TipoProduto.class);
+		for (TipoProduto tipo : TIPOS) {
+			long[] quantidades = limitesQuantidade[tipo.ordinal()];
+			if (quantidades.length == 0) {
+				continue;
+			}
+			BigDecimal[] limites = new BigDecimal[quantidades.length];
+			for (int i = 0; i < quantidades.length; i++) {
+				limites[i] = BigDecimal.valueOf(quantidades[i]);
+			}
+			descontos.put(tipo, faixas(limites, percentuaisQuantidade[tipo.ordinal()]));
+		}
+		return Collections.unmodifiableMap(descontos);
+	}
+
+	/** Verdadeiro se as faixas de desconto e de frete também estão compiladas em ponto fixo. */
+	boolean emPontoFixo() {
+		return limitesDescontoEmCentavos != null && percentuaisQuantidadeFixos != null;
+	}
+
+	/** Índice da faixa de quantidade atingida pelo tipo (pelo ordinal); -1 se nenhuma. */
+	private int faixaDeQuantidade(int tipo, long quantidade) {
+		int posicao = Arrays.binarySearch(limitesQuantidade[tipo], quantidade);
+		return posicao >= 0 ? posicao : -posicao - 2;
+	}
+
+	private static Map<TipoProduto, List<Faixa>> descontoPorQuantidadePadrao() {
+		List<Faixa> faixas = List.of(
+				new Faixa(BigDecimal.valueOf(MetodosAuxilar.LIMITE_QUANTIDADE_DESCONTO_5),
+						MetodosAuxilar.DESCONTO_QUANTIDADE_5),
+				new Faixa(BigDecimal.valueOf(MetodosAuxilar.LIMITE_QUANTIDADE_DESCONTO_10),
+						MetodosAuxilar.DESCONTO_QUANTIDADE_10),
+				new Faixa(BigDecimal.valueOf(MetodosAuxilar.LIMITE_QUANTIDADE_DESCONTO_15),
+						MetodosAuxilar.DESCONTO_QUANTIDADE_15));
+		Map<TipoProduto, List<Faixa>> descontos = new EnumMap<>(TipoProduto.class);
+		for (TipoProduto tipo : TIPOS) {
+			descontos.put(tipo, faixas);
+		}
+		return descontos;
+	}
+
+	/** Índice da maior faixa cujo limite é menor ou igual ao valor; -1 se nenhuma. */
+	private static int buscarAPartirDe(BigDecimal[] limites, BigDecimal valor) {
+		int posicao = Arrays.binarySearch(limites, valor);
+		return posicao >= 0 ? posicao : -posicao - 2;
+	}
+
+	private static List<Faixa> ordenar(List<Faixa> faixas, String regra) {
+		List<Faixa> ordenadas = new ArrayList<>(faixas != null ? faixas : Collections.emptyList());
+		for (Faixa faixa : ordenadas) {
+			if (faixa == null || faixa.limite() == null || faixa.valor() == null) {
+				throw new IllegalArgumentException("Faixa incompleta na regra de " + regra + ".");
+			}
+			exigirNaoNegativo(faixa.limite(), regra);
+			exigirNaoNegativo(faixa.valor(), regra);
+		}
+		ordenadas.sort(Comparator.comparing(Faixa::limite));
+		for (int i = 1; i < ordenadas.size(); i++) {
+			if (ordenadas.get(i).limite().compareTo(ordenadas.get(i - 1).limite()) == 0) {
+				throw new IllegalArgumentException("Limite repetido na regra de " + regra + ".");
+			}
+		}
+		return ordenadas;
+	}
+
+	private static List<Faixa> faixas(BigDecimal[] limites, BigDecimal[] valores) {
+		List<Faixa> faixas = new ArrayList<>(limites.length);
+		for (int i = 0; i < limites.length; i++) {
+			faixas.add(new Faixa(limites[i], valores[i]));
+		}
+		return Collections.unmodifiableList(faixas);
+	}
+
+	private static BigDecimal[] limites(List<Faixa> faixas) {
+		BigDecimal[] limites = new BigDecimal[faixas.size()];
+		for (int i = 0; i < limites.length; i++) {
+			limites[i] = faixas.get(i).limite();
+		}
+		return limites;
+	}
+
+	private static BigDecimal[] valores(List<Faixa> faixas, int posicoesExtras) {
+		BigDecimal[] valores = new BigDecimal[faixas.size() + posicoesExtras];
+		for (int i = 0; i < faixas.size(); i++) {
+			valores[i] = faixas.get(i).valor();
+		}
+		return valores;
+	}
+
+	private static BigDecimal exigirNaoNegativo(BigDecimal valor, String regra) {
+		if (valor == null || valor.signum() < 0) {
+			throw new IllegalArgumentException("Valor inválido na regra de " + regra + ".");
+		}
+		return valor;
+	}
+
+	private static BigDecimal exigirPercentual(BigDecimal percentual, String regra) {
+		if (exigirNaoNegativo(percentual, regra).compareTo(BigDecimal.ONE) > 0) {
+			throw new IllegalArgumentException("Percentual acima de 100% na regra de " + regra + ".");
+		}
+		return percentual;
+	}
+
+	private static long[][] emPontoFixo(BigDecimal[] limitesDesconto, BigDecimal[] percentuaisDesconto,
+			BigDecimal[] limitesFrete, BigDecimal[] fretePorKg) {
+		try {
+			return new long[][] { escalar(limitesDesconto, ESCALA_DINHEIRO),
+					escalar(percentuaisDesconto, ESCALA_PERCENTUAL), escalar(limitesFrete, ESCALA_PESO),
+					escalar(fretePorKg, ESCALA_DINHEIRO) };
+		} catch (ArithmeticException e) {
+			return new long[4][];
+		}
+	}
+
+	private static long[][] emPontoFixo(BigDecimal[][] percentuaisPorTipo) {
+		long[][] fixos = new long[percentuaisPorTipo.length][];
+		try {
+			for (int tipo = 0; tipo < fixos.length; tipo++) {
+				fixos[tipo] = escalar(percentuaisPorTipo[tipo], ESCALA_PERCENTUAL);
+			}
+			return fixos;
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+
+	private static long[] escalar(BigDecimal[] valores, int escala) {
+		long[] escalados = new long[valores.length];
+		for (int i = 0; i < valores.length; i++) {
+			escalados[i] = valores[i].movePointRight(escala).longValueExact();
+		}
+		return escalados;
+	}
+}
@@ -0,0 +1,46 @@
+package ecommerce.service.precificacao;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Regras de precificação em vigor. A troca é uma escrita atômica de referência:
+ * cotações em andamento terminam com a tabela que leram no início, as
+ * seguintes já usam a nova, e nenhuma espera pela outra.
+ *
+ * A versão aumenta a cada troca, para quem guarda resultados calculados com
+ * uma tabela antiga.
+ */
+public class RegrasVigentes implements Supplier<RegrasDePrecificacao> {
+
+	private record Versao(long numero, RegrasDePrecificacao regras) {
+	}
+
+	private final AtomicReference<Versao> atual;
+
+	public RegrasVigentes(RegrasDePrecificacao regras) {
+		atual = new AtomicReference<>(new Versao(1, exigirRegras(regras)));
+	}
+
+	@Override
+	public RegrasDePrecificacao get() {
+		return atual.get().regras();
+	}
+
+	public long versao() {
+		return atual.get().numero();
+	}
+
+	/** Coloca {@code novas} em vigor e devolve as regras que estavam valendo. */
+	public RegrasDePrecificacao trocar(RegrasDePrecificacao novas) {
+		exigirRegras(novas);
+		return atual.getAndUpdate(anterior -> new Versao(anterior.numero() + 1, novas)).regras();
+	}
+
+	private static RegrasDePrecificacao exigirRegras(RegrasDePrecificacao regras) {
+		if (regras == null) {
+			throw new IllegalArgumentException("Regras de precificação não podem ser nulas");
+		}
+		return regras;
+	}
+}
@@ -0,0 +1,162 @@
+package ecommerce.service.precificacao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import ecommerce.entity.ProdutoPrecificavel;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.util.MetodosAuxilar;
+
+/**
+ * Totais de um carrinho mantidos à medida que ele é editado: subtotal, peso
+ * tributável, unidades de produtos frágeis e, por ordinal de
+ * {@link ecommerce.entity.TipoProduto}, quantidade e subtotal de cada tipo.
+ * Incluir, remover ou mudar a quantidade de uma linha aplica só a diferença,
+ * em tempo constante; faixa de desconto, faixa de frete e custo total saem dos
+ * acumulados, sem percorrer as linhas.
+ *
+ * Cada linha guarda o produto com que entrou, para que a sua saída desfaça
+ * exatamente a sua entrada mesmo que o produto tenha mudado depois. O custo
+ * total é o mesmo (valor e escala) de {@link PrecificacaoFundida} sobre as
+ * mesmas linhas. As linhas devem chegar já validadas
+ * ({@link MetodosAuxilar#validarItem}).
+ *
+ * Não é thread-safe.
+ */
+public final class TotaisDoCarrinho {
+
+	private record Linha(ProdutoPrecificavel produto, long quantidade) {
+	}
+
+	private final Map<Long, Linha> linhas = new HashMap<>();
+
+	private BigDecimal subtotal = BigDecimal.ZERO;
+	private BigDecimal pesoTributavel = BigDecimal.ZERO;
+	private long unidadesFrageis;
+	private long unidades;
+	private long resumo;
+	private final long[] quantidadePorTipo = new long[RegrasDePrecificacao.TIPOS_DE_PRODUTO];
+	private final BigDecimal[] subtotalPorTipo = new BigDecimal[RegrasDePrecificacao.TIPOS_DE_PRODUTO];
+
+	public TotaisDoCarrinho() {
+		Arrays.fill(subtotalPorTipo, BigDecimal.ZERO);
+	}
+
+	/** Inclui a linha {@code linhaId}; se já existir, ela é substituída. */
+	public void adicionar(Long linhaId, ProdutoPrecificavel produto, long quantidade) {
+		remover(linhaId);
+		linhas.put(linhaId, new Linha(produto, quantidade));
+		resumo += AssinaturaDoCarrinho.linha(linhaId, quantidade);
+		aplicar(produto, quantidade);
+	}
+
+	/** Retira a linha {@code linhaId}; sem efeito se ela não existir. */
+	public void remover(Long linhaId) {
+		Linha linha = linhas.remove(linhaId);
+		if (linha != null) {
+			resumo -= AssinaturaDoCarrinho.linha(linhaId, linha.quantidade());
+			aplicar(linha.produto(), -linha.quantidade());
+		}
+	}
+
+	/** @throws IllegalArgumentException se a linha não existir */
+	public void alterarQuantidade(Long linhaId, long quantidade) {
+		Linha linha = linhas.get(linhaId);
+		if (linha == null) {
+			throw new IllegalArgumentException("Item não encontrado no carrinho.");
+		}
+		linhas.put(linhaId, new Linha(linha.produto(), quantidade));
+		resumo += AssinaturaDoCarrinho.linha(linhaId, quantidade)
+				- AssinaturaDoCarrinho.linha(linhaId, linha.quantidade());
+		aplicar(linha.produto(), quantidade - linha.quantidade());
+	}
+
+	/** Verdadeiro se alguma linha usa o produto. */
+	public boolean referencia(Long produtoId) {
+		for (Linha linha : linhas.values()) {
+			if (produtoId.equals(linha.produto().getId())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Quantidade da linha, ou nulo se ela não existir. */
+	public Long quantidade(Long linhaId) {
+		Linha linha = linhas.get(linhaId);
+		return linha != null ? linha.quantidade() : null;
+	}
+
+	/** Assinatura das linhas, comparável com a dos itens gravados. */
+	public AssinaturaDoCarrinho assinatura() {
+		return new AssinaturaDoCarrinho(linhas.size(), unidades, resumo);
+	}
+
+	public int quantidadeDeLinhas() {
+		return linhas.size();
+	}
+
+	public BigDecimal subtotal() {
+		return subtotal;
+	}
+
+	public BigDecimal pesoTributavel() {
+		return pesoTributavel;
+	}
+
+	public long unidadesFrageis() {
+		return unidadesFrageis;
+	}
+
+	public BigDecimal calcularDescontoPorTipo(RegrasDePrecificacao regras) {
+		return regras.temDescontoPorQuantidade()
+				? regras.calcularDescontoPorQuantidade(quantidadePorTipo, subtotalPorTipo)
+				: BigDecimal.ZERO;
+	}
+
+	/** Percentual da faixa de desconto por valor, sobre o subtotal já sem o desconto por tipo. */
+	public BigDecimal calcularPercentualDesconto(RegrasDePrecificacao regras) {
+		return regras.calcularPercentualDesconto(subtotal.subtract(calcularDescontoPorTipo(regras)));
+	}
+
+	public int calcularFaixaDeFrete(RegrasDePrecificacao regras) {
+		return regras.calcularFaixaDeFrete(pesoTributavel);
+	}
+
+	/** @throws IllegalArgumentException se o carrinho estiver vazio ou faltar região ou tipo de cliente */
+	public BigDecimal calcularCustoTotal(RegrasDePrecificacao regras, Regiao regiao, TipoCliente tipoCliente) {
+		if (linhas.isEmpty()) {
+			throw new IllegalArgumentException("Carrinho não pode estar vazio");
+		}
+		MetodosAuxilar.validarRegiaoETipoCliente(regiao, tipoCliente);
+
+		BigDecimal subtotalComDescontoPorTipo = subtotal.subtract(calcularDescontoPorTipo(regras));
+		BigDecimal subtotalFinal = subtotalComDescontoPorTipo
+				.subtract(regras.calcularDescontoPorValor(subtotalComDescontoPorTipo));
+		BigDecimal taxaFragilidade = unidadesFrageis == 0 ? BigDecimal.ZERO
+				: MetodosAuxilar.TAXA_PRODUTO_FRAGIL.multiply(BigDecimal.valueOf(unidadesFrageis));
+		BigDecimal valorFrete = regras.ajustarFrete(regras.calcularFrete(pesoTributavel).add(taxaFragilidade),
+				regiao, tipoCliente);
+
+		return subtotalFinal.add(valorFrete).setScale(2, RoundingMode.HALF_UP);
+	}
+
+	private void aplicar(ProdutoPrecificavel produto, long quantidade) {
+		BigDecimal diferenca = BigDecimal.valueOf(quantidade);
+		BigDecimal subtotalDaDiferenca = produto.getPreco().multiply(diferenca);
+		int tipo = produto.getTipo().ordinal();
+
+		unidades += quantidade;
+		subtotal = subtotal.add(subtotalDaDiferenca);
+		pesoTributavel = pesoTributavel.add(produto.getPesoTributavelUnitario().multiply(diferenca));
+		if (Boolean.TRUE.equals(produto.isFragil())) {
+			unidadesFrageis += quantidade;
+		}
+		quantidadePorTipo[tipo] += quantidade;
+		subtotalPorTipo[tipo] = subtotalPorTipo[tipo].add(subtotalDaDiferenca);
+	}
+}
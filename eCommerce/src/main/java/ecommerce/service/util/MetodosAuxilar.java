@@ -2,18 +2,147 @@ package ecommerce.service.util;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import ecommerce.entity.CarrinhoDeCompras;
-import ecommerce.entity.ItemCompra;
-import ecommerce.entity.Produto;
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.ProdutoPrecificavel;
 import ecommerce.entity.Regiao;
 import ecommerce.entity.TipoCliente;
-import ecommerce.entity.TipoProduto;
 
-public  class MetodosAuxilar {
-   
+/**
+ * Regras de cálculo compartilhadas entre o cálculo em passos de
+ * {@code CompraService} e os motores de precificação. As faixas de desconto e
+ * de frete daqui são as regras padrão dos motores
+ * ({@code RegrasDePrecificacao.padrao()}).
+ */
+public class MetodosAuxilar {
 
+	public static final BigDecimal LIMITE_DESCONTO_20 = new BigDecimal("1000.00");
+	public static final BigDecimal LIMITE_DESCONTO_10 = new BigDecimal("500.00");
+	public static final BigDecimal DESCONTO_20 = new BigDecimal("0.20");
+	public static final BigDecimal DESCONTO_10 = new BigDecimal("0.10");
+
+	/** Unidades mínimas do mesmo tipo de produto para cada faixa de desconto por quantidade. */
+	public static final long LIMITE_QUANTIDADE_DESCONTO_5 = 3;
+	public static final long LIMITE_QUANTIDADE_DESCONTO_10 = 5;
+	public static final long LIMITE_QUANTIDADE_DESCONTO_15 = 8;
+	public static final BigDecimal DESCONTO_QUANTIDADE_5 = new BigDecimal("0.05");
+	public static final BigDecimal DESCONTO_QUANTIDADE_10 = new BigDecimal("0.10");
+	public static final BigDecimal DESCONTO_QUANTIDADE_15 = new BigDecimal("0.15");
+
+	public static final BigDecimal LIMITE_FRETE_ISENTO = new BigDecimal("5.00");
+	public static final BigDecimal LIMITE_FRETE_FAIXA_B = new BigDecimal("10.00");
+	public static final BigDecimal LIMITE_FRETE_FAIXA_C = new BigDecimal("50.00");
+	public static final BigDecimal FRETE_POR_KG_FAIXA_B = new BigDecimal("2.00");
+	public static final BigDecimal FRETE_POR_KG_FAIXA_C = new BigDecimal("4.00");
+	public static final BigDecimal FRETE_POR_KG_FAIXA_D = new BigDecimal("7.00");
+
+	public static final BigDecimal TAXA_PRODUTO_FRAGIL = new BigDecimal("5.00");
+
+	/** Divisor do peso cúbico: (C × L × A) / 6000. */
+	public static final BigDecimal FATOR_PESO_CUBICO = new BigDecimal("6000");
+	public static final int ESCALA_PESO_CUBICO = 10;
+
+	private MetodosAuxilar() {
+	}
+
+	public static void validarEntradas(CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
+		if (carrinho == null) {
+			throw new IllegalArgumentException("Carrinho não pode ser nulo");
+		}
+		validarEntradas(carrinho.getItens(), regiao, tipoCliente);
+	}
+
+	public static void validarEntradas(List<? extends ItemPrecificavel> itens, Regiao regiao, TipoCliente tipoCliente) {
+		if (itens == null || itens.isEmpty()) {
+			throw new IllegalArgumentException("Carrinho não pode estar vazio");
+		}
+		validarRegiaoETipoCliente(regiao, tipoCliente);
+	}
+
+	public static void validarRegiaoETipoCliente(Regiao regiao, TipoCliente tipoCliente) {
+		if (regiao == null) {
+			throw new IllegalArgumentException("Região não pode ser nula");
+		}
+		if (tipoCliente == null) {
+			throw new IllegalArgumentException("Tipo de cliente não pode ser nulo");
+		}
+	}
+
+	public static void validarItem(ItemPrecificavel item) {
+		if (item == null || item.getProduto() == null) {
+			throw new IllegalArgumentException("Item de compra ou produto não pode ser nulo");
+		}
+
+		ProdutoPrecificavel p = item.getProduto();
+
+		if (item.getQuantidade() == null || item.getQuantidade() <= 0) {
+			throw new IllegalArgumentException("Quantidade inválida no produto: " + p.getNome());
+		}
+
+		if (p.getPreco() == null || p.getPreco().compareTo(BigDecimal.ZERO) < 0) {
+			throw new IllegalArgumentException("Preço inválido no produto: " + p.getNome());
+		}
+
+		if (p.getTipo() == null) {
+			throw new IllegalArgumentException("Tipo do produto não pode ser nulo: " + p.getNome());
+		}
+
+		if (p.getComprimento() == null || p.getLargura() == null || p.getAltura() == null ||
+				p.getComprimento().compareTo(BigDecimal.ZERO) <= 0 ||
+				p.getLargura().compareTo(BigDecimal.ZERO) <= 0 ||
+				p.getAltura().compareTo(BigDecimal.ZERO) <= 0) {
+			throw new IllegalArgumentException("Dimensões inválidas (devem ser > 0) no produto: " + p.getNome());
+		}
+
+		if (p.getPesoFisico() == null || p.getPesoFisico().compareTo(BigDecimal.ZERO) <= 0) {
+			throw new IllegalArgumentException("Peso físico inválido (deve ser > 0) no produto: " + p.getNome());
+		}
+	}
+
+	public static BigDecimal calcularDescontoPorValor(BigDecimal subtotal) {
+		if (subtotal.compareTo(LIMITE_DESCONTO_20) >= 0) {
+			return subtotal.multiply(DESCONTO_20);
+		} else if (subtotal.compareTo(LIMITE_DESCONTO_10) >= 0) {
+			return subtotal.multiply(DESCONTO_10);
+		}
+		return BigDecimal.ZERO;
+	}
+
+	/** Percentual de desconto para {@code quantidade} unidades de um mesmo tipo de produto. */
+	public static BigDecimal calcularPercentualDescontoPorQuantidade(long quantidade) {
+		if (quantidade >= LIMITE_QUANTIDADE_DESCONTO_15) {
+			return DESCONTO_QUANTIDADE_15;
+		} else if (quantidade >= LIMITE_QUANTIDADE_DESCONTO_10) {
+			return DESCONTO_QUANTIDADE_10;
+		} else if (quantidade >= LIMITE_QUANTIDADE_DESCONTO_5) {
+			return DESCONTO_QUANTIDADE_5;
+		}
+		return BigDecimal.ZERO;
+	}
+
+	/** Peso tributável unitário: max(peso físico, peso cúbico). */
+	public static BigDecimal calcularPesoTributavel(ProdutoPrecificavel produto) {
+		return produto.getPesoFisico().max(calcularPesoCubico(produto));
+	}
+
+	/** Peso cúbico unitário: (C × L × A) / 6000. */
+	public static BigDecimal calcularPesoCubico(ProdutoPrecificavel produto) {
+		return produto.getComprimento().multiply(produto.getLargura()).multiply(produto.getAltura())
+				.divide(FATOR_PESO_CUBICO, ESCALA_PESO_CUBICO, RoundingMode.HALF_UP);
+	}
+
+	public static BigDecimal calcularFrete(BigDecimal pesoTotal) {
+		if (pesoTotal.compareTo(LIMITE_FRETE_ISENTO) <= 0)
+			return BigDecimal.ZERO;
+
+		if (pesoTotal.compareTo(LIMITE_FRETE_FAIXA_B) <= 0)
+			return pesoTotal.multiply(FRETE_POR_KG_FAIXA_B);
+
+		if (pesoTotal.compareTo(LIMITE_FRETE_FAIXA_C) <= 0)
+			return pesoTotal.multiply(FRETE_POR_KG_FAIXA_C);
+
+		return pesoTotal.multiply(FRETE_POR_KG_FAIXA_D);
+	}
 }
@@ -0,0 +1,265 @@
+package ecommerce.carga;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ecommerce.CompraApplication;
+import ecommerce.config.ThreadsVirtuais;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.PedidoEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+import ecommerce.util.TestUtils;
+
+/**
+ * Teste de carga de {@code POST /finalizar} com estoque e pagamento lentos,
+ * comparando o pool de threads do Tomcat (padrão) com threads virtuais: com a
+ * concorrência padrão, acima das 200 threads do Tomcat, as threads virtuais
+ * devem dar mais vazão e um p99 menor. A resiliência fica ligada, com o
+ * bulkhead do tamanho da concorrência, e no modo virtual nenhuma chamada ao
+ * estoque ou ao pagamento pode rodar em thread de plataforma.
+ *
+ * Fica desligado no build normal. Para rodar (Java 21 para o modo virtual):
+ *
+ * <pre>
+ * mvn test -Dtest=CheckoutCargaTest -Decommerce.carga=true
+ * </pre>
+ *
+ * Parâmetros opcionais: {@code ecommerce.carga.requisicoes},
+ * {@code ecommerce.carga.concorrencia} e {@code ecommerce.carga.latencia-ms}.
+ */
+@EnabledIfSystemProperty(named = "ecommerce.carga", matches = "true")
+public class CheckoutCargaTest {
+
+    private static final int REQUISICOES = Integer.getInteger("ecommerce.carga.requisicoes", 20_000);
+    private static final int CONCORRENCIA = Integer.getInteger("ecommerce.carga.concorrencia", 1_000);
+    private static final long LATENCIA_MS = Long.getLong("ecommerce.carga.latencia-ms", 50);
+
+    record Resultado(String modo, double requisicoesPorSegundo, double p50Ms, double p99Ms, int falhas,
+            int externosEmPlataforma) {
+    }
+
+    @Test
+    void comparaThreadsDePlataformaComThreadsVirtuais() throws Exception {
+        assumeTrue(ThreadsVirtuais.suportadas(), "threads virtuais exigem Java 21");
+
+        Resultado plataforma = executar("plataforma", false);
+        Resultado virtuais = executar("virtuais", true);
+
+        System.out.printf("%nCheckout com externos de %d ms, %d requisições, %d em paralelo%n",
+                LATENCIA_MS, REQUISICOES, CONCORRENCIA);
+        System.out.printf("%-12s %12s %10s %10s %8s%n", "modo", "req/s", "p50 (ms)", "p99 (ms)", "falhas");
+        for (Resultado resultado : List.of(plataforma, virtuais)) {
+            System.out.printf("%-12s %12.1f %10.1f %10.1f %8d%n", resultado.modo(),
+                    resultado.requisicoesPorSegundo(), resultado.p50Ms(), resultado.p99Ms(), resultado.falhas());
+        }
+
+        assertThat(plataforma.falhas()).isZero();
+        assertThat(virtuais.falhas()).isZero();
+        assertThat(virtuais.externosEmPlataforma()).isZero();
+        // com mais requisições em voo do que threads no Tomcat, o pool de plataforma
+        // enfileira e as threads virtuais não
+        assertThat(virtuais.requisicoesPorSegundo()).isGreaterThan(plataforma.requisicoesPorSegundo());
+        assertThat(virtuais.p99Ms()).isLessThan(plataforma.p99Ms());
+    }
+
+    private Resultado executar(String modo, boolean threadsVirtuais) throws Exception {
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(CompraApplication.class,
+                ExternosLentos.class)
+                .properties("server.port=0", "ecommerce.threads.virtuais=" + threadsVirtuais,
+                        "ecommerce.checkout.orquestracao=paralela",
+                        // os externos lentos substituem os simulados
+                        "spring.main.allow-bean-definition-overriding=true",
+                        // bulkhead do tamanho da carga: compara os modelos de thread, não o limite
+                        "ecommerce.resiliencia.estoque.concorrencia=" + CONCORRENCIA,
+                        "ecommerce.resiliencia.pagamento.concorrencia=" + CONCORRENCIA,
+                        // o checkout segura uma conexão durante as chamadas externas
+                        "spring.datasource.hikari.maximum-pool-size=" + CONCORRENCIA,
+                        "spring.datasource.url=jdbc:h2:mem:carga-" + modo)
+                .run()) {
+
+            ExternosLentos.EM_PLATAFORMA.set(0);
+            int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            URI uri = criarCarrinho(contexto, porta);
+            HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10)).build();
+
+            disparar(cliente, uri, REQUISICOES / 10);
+            long inicio = System.nanoTime();
+            long[] latencias = new long[REQUISICOES];
+            int falhas = disparar(cliente, uri, latencias);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            Arrays.sort(latencias);
+            return new Resultado(modo, REQUISICOES / segundos, percentil(latencias, 0.50), percentil(latencias, 0.99),
+                    falhas, ExternosLentos.EM_PLATAFORMA.get());
+        }
+    }
+
+    private static URI criarCarrinho(ConfigurableApplicationContext contexto, int porta) {
+        Cliente cliente = contexto.getBean(ClienteRepository.class)
+                .save(new Cliente(null, "Cliente", Regiao.SUDESTE, TipoCliente.OURO));
+        Produto produto = contexto.getBean(ProdutoRepository.class).save(
+                TestUtils.produto("Produto", "100.00", "1.0", "10", "10", "10", false, TipoProduto.ELETRONICO));
+        CarrinhoDeCompras carrinho = contexto.getBean(CarrinhoDeComprasRepository.class).save(
+                new CarrinhoDeCompras(null, cliente, List.of(new ItemCompra(null, produto, 1L)), null));
+
+        return URI.create("http://localhost:" + porta + "/finalizar?carrinhoId=" + carrinho.getId() + "&clienteId="
+                + cliente.getId());
+    }
+
+    private static int disparar(HttpClient cliente, URI uri, int quantidade) throws InterruptedException {
+        return disparar(cliente, uri, new long[quantidade]);
+    }
+
+    /** Mantém até {@link #CONCORRENCIA} requisições em voo até completar todas. */
+    private static int disparar(HttpClient cliente, URI uri, long[] latencias) throws InterruptedException {
+        HttpRequest requisicao = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build();
+        Semaphore emVoo = new Semaphore(CONCORRENCIA);
+        AtomicInteger falhas = new AtomicInteger();
+        CompletableFuture<?>[] respostas = new CompletableFuture<?>[latencias.length];
+
+        for (int i = 0; i < latencias.length; i++) {
+            emVoo.acquire();
+            int indice = i;
+            long inicio = System.nanoTime();
+            respostas[i] = cliente.sendAsync(requisicao, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((resposta, erro) -> {
+                        latencias[indice] = System.nanoTime() - inicio;
+                        if (erro != null || resposta.statusCode() != 200) {
+                            falhas.incrementAndGet();
+                        }
+                        emVoo.release();
+                    });
+        }
+        CompletableFuture.allOf(respostas).handle((r, e) -> null).join();
+        return falhas.get();
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1e6;
+    }
+
+    /** Estoque e pagamento que sempre aprovam, com latência fixa, no lugar dos simulados. */
+    @Configuration
+    static class ExternosLentos {
+
+        /** Chamadas aos externos que rodaram em uma thread de plataforma. */
+        static final AtomicInteger EM_PLATAFORMA = new AtomicInteger();
+
+        @Bean
+        IEstoqueExternal estoqueSimulado() {
+            AtomicInteger reservas = new AtomicInteger();
+            return new IEstoqueExternal() {
+
+                @Override
+                public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades) {
+                    esperar();
+                    return new EstoqueBaixaDTO(true);
+                }
+
+                @Override
+                public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds,
+                        List<Long> produtosQuantidades) {
+                    esperar();
+                    return new DisponibilidadeDTO(true, List.of());
+                }
+
+                @Override
+                public List<EstoqueBaixaDTO> darBaixaEmLote(List<PedidoEstoqueDTO> pedidos) {
+                    esperar();
+                    return Collections.nCopies(pedidos.size(), new EstoqueBaixaDTO(true));
+                }
+
+                @Override
+                public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades,
+                        Duration validade) {
+                    esperar();
+                    return new ReservaEstoqueDTO(true, (long) reservas.incrementAndGet(), List.of());
+                }
+
+                @Override
+                public EstoqueBaixaDTO confirmarReserva(Long reservaId) {
+                    esperar();
+                    return new EstoqueBaixaDTO(true);
+                }
+
+                @Override
+                public void liberarReserva(Long reservaId) {
+                    esperar();
+                }
+            };
+        }
+
+        @Bean
+        IPagamentoExternal pagamentoSimulado() {
+            AtomicInteger transacoes = new AtomicInteger();
+            return new IPagamentoExternal() {
+
+                @Override
+                public PagamentoDTO autorizarPagamento(Long clienteId, Double custoTotal) {
+                    esperar();
+                    return new PagamentoDTO(true, (long) transacoes.incrementAndGet());
+                }
+
+                @Override
+                public void cancelarPagamento(Long clienteId, Long pagamentoTransacaoId) {
+                    esperar();
+                }
+            };
+        }
+
+        private static void esperar() {
+            if (!emThreadVirtual()) {
+                EM_PLATAFORMA.incrementAndGet();
+            }
+            try {
+                Thread.sleep(LATENCIA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static boolean emThreadVirtual() {
+            try {
+                return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+            } catch (ReflectiveOperationException e) {
+                return false;
+            }
+        }
+    }
+}
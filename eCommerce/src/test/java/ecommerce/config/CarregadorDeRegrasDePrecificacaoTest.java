@@ -0,0 +1,91 @@
+package ecommerce.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.precificacao.RegrasDePrecificacao;
+
+public class CarregadorDeRegrasDePrecificacaoTest {
+
+    private static final String PREFIXO = CarregadorDeRegrasDePrecificacao.PREFIXO;
+
+    @Test
+    void carregar_semPropriedades_deveUsarAsRegrasPadrao() {
+        RegrasDePrecificacao regras = new CarregadorDeRegrasDePrecificacao(new MockEnvironment()).carregar();
+
+        assertThat(regras.descontoPorValor()).isEqualTo(RegrasDePrecificacao.padrao().descontoPorValor());
+        assertThat(regras.faixasDeFrete()).isEqualTo(RegrasDePrecificacao.padrao().faixasDeFrete());
+        assertThat(regras.freteAcimaDasFaixas()).isEqualTo(RegrasDePrecificacao.padrao().freteAcimaDasFaixas());
+        assertThat(regras.freteSemAjuste(Regiao.NORTE, TipoCliente.OURO)).isTrue();
+        assertThat(regras.descontoPorQuantidade()).isEqualTo(RegrasDePrecificacao.padrao().descontoPorQuantidade())
+                .hasSize(TipoProduto.values().length);
+    }
+
+    @Test
+    void carregar_deveLerTodasAsRegras() {
+        MockEnvironment ambiente = new MockEnvironment()
+                .withProperty(PREFIXO + "desconto-por-valor", "1000.00:0.20, 500.00:0.10")
+                .withProperty(PREFIXO + "frete.faixas", "5:0,10:2")
+                .withProperty(PREFIXO + "frete.acima-das-faixas", "8.00")
+                .withProperty(PREFIXO + "multiplicador-regiao", "sul:1.05,NORTE:1.30")
+                .withProperty(PREFIXO + "desconto-frete-cliente", "OURO:1.00,PRATA:0.50")
+                .withProperty(PREFIXO + "desconto-por-quantidade.eletronico", "2:0.05,6:0.10")
+                .withProperty(PREFIXO + "desconto-por-quantidade.livro", "");
+
+        RegrasDePrecificacao regras = new CarregadorDeRegrasDePrecificacao(ambiente).carregar();
+
+        assertThat(regras.calcularPercentualDesconto(new BigDecimal("999.99"))).isEqualByComparingTo("0.10");
+        assertThat(regras.calcularFrete(new BigDecimal("11"))).isEqualByComparingTo("88.00");
+        assertThat(regras.multiplicadorDaRegiao(Regiao.SUL)).isEqualByComparingTo("1.05");
+        assertThat(regras.multiplicadorDaRegiao(Regiao.SUDESTE)).isEqualByComparingTo("1");
+        assertThat(regras.descontoDeFreteDoCliente(TipoCliente.PRATA)).isEqualByComparingTo("0.50");
+        assertThat(regras.calcularPercentualDescontoPorQuantidade(TipoProduto.ELETRONICO, 5))
+                .isEqualByComparingTo("0.05");
+        assertThat(regras.calcularPercentualDescontoPorQuantidade(TipoProduto.LIVRO, 6)).isZero();
+        assertThat(regras.calcularPercentualDescontoPorQuantidade(TipoProduto.MOVEL, 6)).isEqualByComparingTo("0.10");
+    }
+
+    @Test
+    void carregar_arquivoDeveValerSobreAsPropriedadesESerRelido(@TempDir Path pasta) throws IOException {
+        Path arquivo = pasta.resolve("regras.properties");
+        Files.writeString(arquivo, PREFIXO + "desconto-por-valor=100:0.50\n");
+        MockEnvironment ambiente = new MockEnvironment()
+                .withProperty(PREFIXO + "arquivo", arquivo.toString())
+                .withProperty(PREFIXO + "desconto-por-valor", "500.00:0.10");
+        CarregadorDeRegrasDePrecificacao carregador = new CarregadorDeRegrasDePrecificacao(ambiente);
+
+        assertThat(carregador.carregar().calcularPercentualDesconto(new BigDecimal("100")))
+                .isEqualByComparingTo("0.50");
+
+        Files.writeString(arquivo, PREFIXO + "desconto-por-valor=\n");
+
+        assertThat(carregador.carregar().calcularPercentualDesconto(new BigDecimal("5000"))).isZero();
+    }
+
+    @Test
+    void carregar_regraMalEscrita_deveLancarExcecaoComAChave() {
+        MockEnvironment ambiente = new MockEnvironment()
+                .withProperty(PREFIXO + "multiplicador-regiao", "LESTE:1.10");
+
+        assertThatThrownBy(() -> new CarregadorDeRegrasDePrecificacao(ambiente).carregar())
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("multiplicador-regiao");
+
+        ambiente.setProperty(PREFIXO + "multiplicador-regiao", "");
+        ambiente.setProperty(PREFIXO + "frete.faixas", "5;0");
+
+        assertThatThrownBy(() -> new CarregadorDeRegrasDePrecificacao(ambiente).carregar())
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("frete.faixas");
+    }
+}
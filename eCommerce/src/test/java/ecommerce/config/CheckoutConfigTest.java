@@ -0,0 +1,38 @@
+package ecommerce.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+public class CheckoutConfigTest {
+
+    private final ApplicationContextRunner contexto = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+            .withUserConfiguration(CheckoutConfig.class, ThreadsVirtuaisConfig.class)
+            .withPropertyValues("ecommerce.checkout.orquestracao=paralela");
+
+    @Test
+    void executoresDoCheckout_naoDevemTirarOExecutorDoSpringBoot() {
+        contexto.run(aplicacao -> {
+            assertThat(aplicacao).hasSingleBean(ChamadasExternas.class);
+            assertThat(aplicacao.getBeansOfType(Executor.class)).containsOnlyKeys("applicationTaskExecutor");
+        });
+    }
+
+    @Test
+    void threadsVirtuais_naoDevemTirarOExecutorDoSpringBoot() {
+        assumeTrue(ThreadsVirtuais.suportadas(), "threads virtuais exigem Java 21");
+
+        contexto.withPropertyValues("ecommerce.threads.virtuais=true").run(aplicacao -> {
+            assertThat(aplicacao).hasSingleBean(ChamadasExternas.class)
+                    .hasSingleBean(ThreadsVirtuaisConfig.ThreadsVirtuaisNoTomcat.class);
+            assertThat(aplicacao.getBeansOfType(Executor.class)).containsOnlyKeys("applicationTaskExecutor");
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package ecommerce.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.service.precificacao.RastroDePrecificacao;
+import ecommerce.util.TestUtils;
+
+public class ExplicacaoCustoJsonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private JsonNode comoJackson(ExplicacaoCustoDTO explicacao) throws Exception {
+        return mapper.readTree(mapper.writeValueAsString(explicacao));
+    }
+
+    @Test
+    void escrever_deveProduzirOMesmoJsonQueOJackson() throws Exception {
+        Produto pesado = TestUtils.produto("Monitor 27\" \\ \"Pro\"\n\tç", "300.00", "1.0", "10", "10", "10", false,
+                TipoProduto.ELETRONICO);
+        pesado.setId(1L);
+        Produto volumoso = TestUtils.produto("Estante", "50.00", "0.5", "40", "30", "20", true, TipoProduto.MOVEL);
+        volumoso.setId(2L);
+        RastroDePrecificacao rastro = new RastroDePrecificacao();
+        new PrecificacaoFundida().calcularCustoTotal(List.of(TestUtils.item(pesado, 3), TestUtils.item(volumoso, 1)),
+                Regiao.NORTE, TipoCliente.OURO, rastro);
+        ExplicacaoCustoDTO explicacao = rastro.explicar();
+
+        String json = new String(ExplicacaoCustoJson.escrever(explicacao), StandardCharsets.UTF_8);
+
+        assertThat(mapper.readTree(json)).isEqualTo(comoJackson(explicacao));
+        assertThat(json).startsWith("{\"itens\":[{\"produtoId\":1,\"nome\":");
+        assertThat(mapper.readTree(json).get("itens").get(0).get("nome").asText()).isEqualTo(pesado.getNome());
+    }
+
+    @Test
+    void escrever_camposNulosENumerosGrandes() throws Exception {
+        ExplicacaoCustoDTO.Item item = new ExplicacaoCustoDTO.Item(null, null, 1L, new BigDecimal("1E+3"), null,
+                null, null, null, null, BigDecimal.ZERO);
+        ExplicacaoCustoDTO explicacao = new ExplicacaoCustoDTO(List.of(item), new BigDecimal("1000"), null, null,
+                null, null, null, null, null, null, null, null, null, new BigDecimal("0.000001"));
+
+        String json = new String(ExplicacaoCustoJson.escrever(explicacao), StandardCharsets.UTF_8);
+
+        assertThat(json).contains("\"precoUnitario\":1000,").contains("\"custoTotal\":0.000001}");
+        assertThat(mapper.readTree(json).get("itens").get(0).get("nome").isNull()).isTrue();
+        // mesmos campos, na mesma ordem
+        assertThat(json.replaceAll(":[^,\\[{}]*", ":"))
+                .isEqualTo(mapper.writeValueAsString(explicacao).replaceAll(":[^,\\[{}]*", ":"));
+    }
+}
@@ -0,0 +1,216 @@
+package ecommerce.external;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ChamadaProtegidaTest {
+
+    private final SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+    private ChamadaProtegida protecao;
+
+    @AfterEach
+    void encerrar() {
+        protecao.close();
+    }
+
+    private static ChamadaProtegida.Configuracao configuracao(int concorrencia, int fila, Duration tempoMaximo) {
+        return new ChamadaProtegida.Configuracao(concorrencia, fila, tempoMaximo, 50f, 4, 4, Duration.ofMinutes(1),
+                3, Duration.ofMillis(1));
+    }
+
+    private double rejeicoes(String motivo) {
+        return metricas.get("ecommerce.externo.rejeicoes").tag("servico", "estoque").tag("motivo", motivo).counter()
+                .count();
+    }
+
+    @Test
+    void executar_deveDevolverOResultadoDaChamada() {
+        protecao = new ChamadaProtegida("estoque", configuracao(2, 2, Duration.ofSeconds(1)), metricas);
+
+        assertEquals("ok", protecao.executar(() -> "ok"));
+    }
+
+    @Test
+    void falhasSeguidas_devemAbrirOCircuitoEFalharNaHora() {
+        protecao = new ChamadaProtegida("estoque", configuracao(2, 2, Duration.ofSeconds(1)), metricas);
+
+        for (int i = 0; i < 4; i++) {
+            IllegalStateException falha = assertThrows(IllegalStateException.class, () -> protecao.executar(() -> {
+                throw new IllegalStateException("Estoque fora do ar");
+            }));
+            assertEquals("Estoque fora do ar", falha.getMessage());
+        }
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> protecao.executar(() -> "não chamado"));
+
+        assertEquals("Serviço de estoque indisponível.", exception.getMessage());
+        assertThat(protecao.estadoDoCircuito()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(rejeicoes("circuito-aberto")).isEqualTo(1);
+        assertThat(metricas.get("resilience4j.circuitbreaker.state").tag("name", "estoque").tag("state", "open")
+                .gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void dadosInvalidos_naoDevemAbrirOCircuito() {
+        protecao = new ChamadaProtegida("estoque", configuracao(2, 2, Duration.ofSeconds(1)), metricas);
+
+        for (int i = 0; i < 8; i++) {
+            assertThrows(IllegalArgumentException.class, () -> protecao.executar(() -> {
+                throw new IllegalArgumentException("Quantidade inválida");
+            }));
+        }
+
+        assertThat(protecao.estadoDoCircuito()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void chamadaLenta_deveFalharQuandoOTempoEsgota() {
+        protecao = new ChamadaProtegida("estoque", configuracao(2, 2, Duration.ofMillis(50)), metricas);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> protecao.executar(() -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "tarde demais";
+        }));
+
+        assertEquals("Tempo esgotado no serviço de estoque.", exception.getMessage());
+        assertThat(rejeicoes("tempo-esgotado")).isEqualTo(1);
+    }
+
+    @Test
+    void escritaSemTempoMaximo_deveEsperarAResposta() {
+        protecao = new ChamadaProtegida("estoque", configuracao(2, 2, Duration.ofMillis(20)), metricas);
+
+        String resposta = protecao.executarSemTempoMaximo(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "baixa aplicada";
+        });
+        IllegalArgumentException invalida = assertThrows(IllegalArgumentException.class,
+                () -> protecao.executarSemTempoMaximo(() -> {
+                    throw new IllegalArgumentException("Quantidade inválida");
+                }));
+
+        assertEquals("baixa aplicada", resposta);
+        assertEquals("Quantidade inválida", invalida.getMessage());
+        assertThat(rejeicoes("tempo-esgotado")).isZero();
+    }
+
+    @Test
+    void bulkheadCheio_deveRecusarNovasChamadas() throws Exception {
+        protecao = new ChamadaProtegida("estoque", configuracao(1, 1, Duration.ofSeconds(5)), metricas);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch emAndamento = new CountDownLatch(1);
+        ExecutorService clientes = Executors.newFixedThreadPool(2);
+
+        clientes.submit(() -> protecao.executar(() -> {
+            emAndamento.countDown();
+            return aguardar(liberar);
+        }));
+        assertThat(emAndamento.await(5, TimeUnit.SECONDS)).isTrue();
+        clientes.submit(() -> protecao.executar(() -> aguardar(liberar)));
+        Thread.sleep(50);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> protecao.executar(() -> "sem vaga"));
+
+        assertEquals("Serviço de estoque sobrecarregado.", exception.getMessage());
+        assertThat(rejeicoes("sobrecarga")).isEqualTo(1);
+        assertThat(protecao.estadoDoCircuito()).isEqualTo(CircuitBreaker.State.CLOSED);
+        liberar.countDown();
+        clientes.shutdown();
+    }
+
+    @Test
+    void comThreadsVirtuais_semaforoCheioDeveRecusarDepoisDoTempoMaximo() throws Exception {
+        // um executor por tarefa com threads de plataforma faz o papel das threads virtuais no Java 17
+        ExecutorService porTarefa = Executors.newCachedThreadPool(tarefa -> new Thread(tarefa, "estoque-por-tarefa"));
+        protecao = new ChamadaProtegida("estoque", configuracao(1, 1, Duration.ofMillis(50)), metricas, porTarefa);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch emAndamento = new CountDownLatch(1);
+        ExecutorService clientes = Executors.newSingleThreadExecutor();
+
+        clientes.submit(() -> protecao.executarSemTempoMaximo(() -> {
+            emAndamento.countDown();
+            return aguardar(liberar);
+        }));
+        assertThat(emAndamento.await(5, TimeUnit.SECONDS)).isTrue();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> protecao.executarSemTempoMaximo(() -> "sem permissão"));
+
+        assertEquals("Serviço de estoque sobrecarregado.", exception.getMessage());
+        assertThat(rejeicoes("sobrecarga")).isEqualTo(1);
+        liberar.countDown();
+        assertThat(protecao.executar(() -> Thread.currentThread().getName())).isEqualTo("estoque-por-tarefa");
+        clientes.shutdown();
+    }
+
+    @Test
+    void compensacao_deveIgnorarOCircuitoAbertoERepetirFalhas() {
+        protecao = new ChamadaProtegida("estoque", configuracao(2, 2, Duration.ofSeconds(1)), metricas);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> protecao.executar(() -> {
+                throw new IllegalStateException("Estoque fora do ar");
+            }));
+        }
+        assertThat(protecao.estadoDoCircuito()).isEqualTo(CircuitBreaker.State.OPEN);
+        AtomicInteger tentativas = new AtomicInteger();
+
+        protecao.compensar(() -> {
+            if (tentativas.incrementAndGet() < 3) {
+                throw new IllegalStateException("Estoque fora do ar");
+            }
+        });
+
+        assertThat(tentativas).hasValue(3);
+        assertThat(metricas.get("ecommerce.externo.compensacoes.falhas").counter().count()).isZero();
+    }
+
+    @Test
+    void compensacaoQueSempreFalha_deveLancarAUltimaFalhaEContar() {
+        protecao = new ChamadaProtegida("estoque", configuracao(2, 2, Duration.ofSeconds(1)), metricas);
+        AtomicInteger tentativas = new AtomicInteger();
+
+        IllegalStateException falha = assertThrows(IllegalStateException.class, () -> protecao.compensar(() -> {
+            throw new IllegalStateException("Falha " + tentativas.incrementAndGet());
+        }));
+        assertThrows(IllegalArgumentException.class, () -> protecao.compensar(() -> {
+            throw new IllegalArgumentException("Reserva não pode ser nula");
+        }));
+
+        assertEquals("Falha 3", falha.getMessage());
+        assertThat(metricas.get("ecommerce.externo.compensacoes.falhas").tag("servico", "estoque").counter()
+                .count()).isEqualTo(2);
+    }
+
+    private static boolean aguardar(CountDownLatch liberar) {
+        try {
+            return liberar.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ecommerce.external;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PedidoEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.external.fake.EstoqueSimulado;
+import ecommerce.external.fake.LatenciaSimulada;
+
+public class EstoqueEmMicroLoteTest {
+
+    /** Estoque simulado que registra o tamanho de cada lote recebido. */
+    static class EstoqueContado extends EstoqueSimulado {
+
+        final List<Integer> lotes = new CopyOnWriteArrayList<>();
+
+        EstoqueContado(long saldoInicial, Duration latencia) {
+            super(saldoInicial, LatenciaSimulada.fixa(latencia));
+        }
+
+        @Override
+        public List<DisponibilidadeDTO> verificarDisponibilidadeEmLote(List<PedidoEstoqueDTO> pedidos) {
+            lotes.add(pedidos.size());
+            return super.verificarDisponibilidadeEmLote(pedidos);
+        }
+
+        @Override
+        public List<EstoqueBaixaDTO> darBaixaEmLote(List<PedidoEstoqueDTO> pedidos) {
+            lotes.add(pedidos.size());
+            return super.darBaixaEmLote(pedidos);
+        }
+    }
+
+    private EstoqueEmMicroLote estoque;
+    private ExecutorService clientes;
+
+    @AfterEach
+    void encerrar() {
+        if (clientes != null) {
+            clientes.shutdownNow();
+        }
+        estoque.close();
+    }
+
+    @Test
+    void chamadasConcorrentes_devemSerJuntadasEmPoucosLotes() throws Exception {
+        EstoqueContado real = new EstoqueContado(1_000, Duration.ofMillis(20));
+        estoque = new EstoqueEmMicroLote(real, 50, Duration.ofMillis(10), Executors.newCachedThreadPool());
+        clientes = Executors.newFixedThreadPool(200);
+
+        List<Callable<Boolean>> checkouts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long produtoId = i % 4;
+            checkouts.add(() -> estoque.darBaixa(List.of(produtoId), List.of(1L)).sucesso());
+        }
+        for (Future<Boolean> sucesso : clientes.invokeAll(checkouts)) {
+            assertThat(sucesso.get()).isTrue();
+        }
+
+        assertThat(real.lotes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(200);
+        assertThat(real.lotes.size()).isLessThan(200 / 4);
+        for (long produtoId = 0; produtoId < 4; produtoId++) {
+            assertEquals(1_000 - 50, real.consultarSaldo(produtoId));
+        }
+    }
+
+    @Test
+    void pedidoSozinho_deveSerEnviadoQuandoAJanelaExpira() {
+        EstoqueContado real = new EstoqueContado(5, Duration.ZERO);
+        estoque = new EstoqueEmMicroLote(real, 50, Duration.ofMillis(5), Executors.newCachedThreadPool());
+
+        DisponibilidadeDTO disponibilidade = estoque.verificarDisponibilidade(List.of(1L), List.of(6L));
+
+        assertThat(disponibilidade.disponivel()).isFalse();
+        assertThat(disponibilidade.idsProdutosIndisponiveis()).containsExactly(1L);
+        assertThat(real.lotes).containsExactly(1);
+    }
+
+    @Test
+    void loteCompleto_deveSerEnviadoSemEsperarAJanela() throws Exception {
+        EstoqueContado real = new EstoqueContado(5, Duration.ZERO);
+        estoque = new EstoqueEmMicroLote(real, 2, Duration.ofMinutes(1), Executors.newCachedThreadPool());
+        clientes = Executors.newFixedThreadPool(2);
+
+        Future<DisponibilidadeDTO> primeiro = clientes
+                .submit(() -> estoque.verificarDisponibilidade(List.of(1L), List.of(1L)));
+        Future<DisponibilidadeDTO> segundo = clientes
+                .submit(() -> estoque.verificarDisponibilidade(List.of(2L), List.of(9L)));
+
+        assertThat(primeiro.get().disponivel()).isTrue();
+        assertThat(segundo.get().disponivel()).isFalse();
+        assertThat(real.lotes).containsExactly(2);
+    }
+
+    @Test
+    void pedidoInvalido_soDeveFalharParaQuemOEnviou() throws Exception {
+        EstoqueContado real = new EstoqueContado(5, Duration.ZERO);
+        estoque = new EstoqueEmMicroLote(real, 2, Duration.ofMillis(20), Executors.newCachedThreadPool());
+        clientes = Executors.newFixedThreadPool(2);
+
+        Future<EstoqueBaixaDTO> valido = clientes.submit(() -> estoque.darBaixa(List.of(1L), List.of(2L)));
+        Future<EstoqueBaixaDTO> invalido = clientes.submit(() -> estoque.darBaixa(List.of(1L), List.of()));
+
+        assertThat(valido.get().sucesso()).isTrue();
+        Exception exception = assertThrows(Exception.class, invalido::get);
+        assertThat(exception).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertEquals(3, real.consultarSaldo(1L));
+        // o inválido nem entra no lote
+        assertThat(real.lotes).containsExactly(1);
+    }
+
+    @Test
+    void baixaEmLoteRecusada_naoDeveSerReenviadaPedidoAPedido() throws Exception {
+        EstoqueContado recusa = new EstoqueContado(5, Duration.ZERO) {
+
+            @Override
+            public List<EstoqueBaixaDTO> darBaixaEmLote(List<PedidoEstoqueDTO> pedidos) {
+                lotes.add(pedidos.size());
+                throw new IllegalArgumentException("Produto desconhecido");
+            }
+        };
+        estoque = new EstoqueEmMicroLote(recusa, 2, Duration.ofMinutes(1), Executors.newCachedThreadPool());
+        clientes = Executors.newFixedThreadPool(2);
+
+        Future<EstoqueBaixaDTO> primeiro = clientes.submit(() -> estoque.darBaixa(List.of(1L), List.of(1L)));
+        Future<EstoqueBaixaDTO> segundo = clientes.submit(() -> estoque.darBaixa(List.of(2L), List.of(1L)));
+
+        assertThat(assertThrows(Exception.class, primeiro::get)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(assertThrows(Exception.class, segundo::get)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(recusa.lotes).containsExactly(2);
+    }
+
+    @Test
+    void falhaDoEstoque_deveValerParaTodoOLote() throws Exception {
+        IEstoqueExternal foraDoAr = new IEstoqueExternal() {
+
+            @Override
+            public EstoqueBaixaDTO darBaixa(List<Long> produtosIds, List<Long> produtosQuantidades) {
+                throw new IllegalStateException("Estoque indisponível");
+            }
+
+            @Override
+            public DisponibilidadeDTO verificarDisponibilidade(List<Long> produtosIds, List<Long> produtosQuantidades) {
+                throw new IllegalStateException("Estoque indisponível");
+            }
+
+            @Override
+            public List<EstoqueBaixaDTO> darBaixaEmLote(List<PedidoEstoqueDTO> pedidos) {
+                throw new IllegalStateException("Estoque indisponível");
+            }
+
+            @Override
+            public ReservaEstoqueDTO reservar(List<Long> produtosIds, List<Long> produtosQuantidades,
+                    Duration validade) {
+                throw new IllegalStateException("Estoque indisponível");
+            }
+
+            @Override
+            public EstoqueBaixaDTO confirmarReserva(Long reservaId) {
+                throw new IllegalStateException("Estoque indisponível");
+            }
+
+            @Override
+            public void liberarReserva(Long reservaId) {
+                throw new IllegalStateException("Estoque indisponível");
+            }
+        };
+        estoque = new EstoqueEmMicroLote(foraDoAr, 50, Duration.ofMillis(1), Executors.newCachedThreadPool());
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> estoque.darBaixa(List.of(1L), List.of(1L)));
+
+        assertEquals("Estoque indisponível", exception.getMessage());
+    }
+}
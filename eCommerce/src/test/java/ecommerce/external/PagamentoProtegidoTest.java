@@ -0,0 +1,48 @@
+package ecommerce.external;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.external.fake.LatenciaSimulada;
+import ecommerce.external.fake.PagamentoSimulado;
+import ecommerce.external.fake.TransacaoSimulada;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PagamentoProtegidoTest {
+
+    private final ChamadaProtegida protecao = new ChamadaProtegida("pagamento",
+            new ChamadaProtegida.Configuracao(2, 2, Duration.ofMillis(20), 50f, 4, 4, Duration.ofMinutes(1), 3,
+                    Duration.ofMillis(1)),
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void encerrar() {
+        protecao.close();
+    }
+
+    @Test
+    void autorizacaoQueChegaDepoisDoTempoMaximo_deveSerCancelada() throws Exception {
+        LatenciaSimulada latencia = new LatenciaSimulada(LatenciaSimulada.Distribuicao.FIXA, Duration.ofMillis(150),
+                Duration.ofMillis(150), 1.5);
+        PagamentoSimulado gateway = new PagamentoSimulado(latencia, 0, 0, 100);
+        PagamentoProtegido pagamento = new PagamentoProtegido(gateway, protecao);
+
+        IllegalStateException falha = assertThrows(IllegalStateException.class,
+                () -> pagamento.autorizarPagamento(7L, 100.0));
+
+        assertEquals("Tempo esgotado no serviço de pagamento.", falha.getMessage());
+        // autorização (150ms) e cancelamento (150ms) ainda em andamento no gateway
+        long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (gateway.contarTransacoes(TransacaoSimulada.Status.CANCELADA) == 0 && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(gateway.contarTransacoes(TransacaoSimulada.Status.CANCELADA)).isEqualTo(1);
+        assertThat(gateway.contarTransacoes(TransacaoSimulada.Status.AUTORIZADA)).isZero();
+    }
+}
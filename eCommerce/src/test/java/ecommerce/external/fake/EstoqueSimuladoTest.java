@@ -0,0 +1,213 @@
+package ecommerce.external.fake;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PedidoEstoqueDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+
+public class EstoqueSimuladoTest {
+
+    private EstoqueSimulado estoque;
+
+    @BeforeEach
+    void setup() {
+        estoque = new EstoqueSimulado(10, LatenciaSimulada.nenhuma());
+    }
+
+    @Test
+    void produtoNovo_deveComecarComSaldoInicial() {
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(10);
+    }
+
+    @Test
+    void verificarDisponibilidade_deveSomarIdsRepetidosEListarIndisponiveis() {
+        estoque.definirSaldo(2L, 3);
+
+        DisponibilidadeDTO disponibilidade = estoque.verificarDisponibilidade(List.of(1L, 2L, 2L), List.of(5L, 2L, 2L));
+
+        assertThat(disponibilidade.disponivel()).isFalse();
+        assertThat(disponibilidade.idsProdutosIndisponiveis()).containsExactly(2L);
+        assertThat(estoque.verificarDisponibilidade(List.of(1L, 2L), List.of(10L, 3L)).disponivel()).isTrue();
+    }
+
+    @Test
+    void darBaixa_deveDecrementarTodosOsProdutos() {
+        assertThat(estoque.darBaixa(List.of(1L, 2L, 1L), List.of(3L, 4L, 2L)).sucesso()).isTrue();
+
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(5);
+        assertThat(estoque.consultarSaldo(2L)).isEqualTo(6);
+    }
+
+    @Test
+    void darBaixa_semSaldoEmUmProduto_naoDeveBaixarNenhum() {
+        estoque.definirSaldo(3L, 1);
+
+        assertThat(estoque.darBaixa(List.of(1L, 2L, 3L), List.of(4L, 4L, 2L)).sucesso()).isFalse();
+
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(10);
+        assertThat(estoque.consultarSaldo(2L)).isEqualTo(10);
+        assertThat(estoque.consultarSaldo(3L)).isEqualTo(1);
+    }
+
+    @Test
+    void entradasInvalidas_devemLancarExcecao() {
+        assertThrows(IllegalArgumentException.class, () -> estoque.darBaixa(List.of(1L), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> estoque.darBaixa(List.of(1L), List.of(0L)));
+        assertThrows(IllegalArgumentException.class, () -> estoque.verificarDisponibilidade(null, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> estoque.definirSaldo(1L, -1));
+    }
+
+    @Test
+    void darBaixaEmLote_cadaPedidoDeveSerTudoOuNadaEIndependente() {
+        estoque.definirSaldo(2L, 3);
+
+        List<EstoqueBaixaDTO> resultados = estoque.darBaixaEmLote(List.of(
+                new PedidoEstoqueDTO(List.of(1L, 2L), List.of(4L, 2L)),
+                new PedidoEstoqueDTO(List.of(1L, 2L), List.of(4L, 2L)),
+                new PedidoEstoqueDTO(List.of(1L), List.of(6L))));
+
+        assertThat(resultados).extracting(EstoqueBaixaDTO::sucesso).containsExactly(true, false, true);
+        assertThat(estoque.consultarSaldo(1L)).isZero();
+        assertThat(estoque.consultarSaldo(2L)).isEqualTo(1);
+    }
+
+    @Test
+    void verificarDisponibilidadeEmLote_deveResponderNaOrdemDosPedidos() {
+        estoque.definirSaldo(2L, 3);
+
+        List<DisponibilidadeDTO> resultados = estoque.verificarDisponibilidadeEmLote(List.of(
+                new PedidoEstoqueDTO(List.of(2L), List.of(4L)),
+                new PedidoEstoqueDTO(List.of(1L, 2L), List.of(10L, 3L))));
+
+        assertThat(resultados.get(0).disponivel()).isFalse();
+        assertThat(resultados.get(0).idsProdutosIndisponiveis()).containsExactly(2L);
+        assertThat(resultados.get(1).disponivel()).isTrue();
+    }
+
+    @Test
+    void darBaixaEmLote_comPedidoInvalido_naoDeveBaixarNenhum() {
+        assertThrows(IllegalArgumentException.class, () -> estoque.darBaixaEmLote(List.of(
+                new PedidoEstoqueDTO(List.of(1L), List.of(4L)),
+                new PedidoEstoqueDTO(List.of(2L), List.of()))));
+
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(10);
+    }
+
+    @Test
+    void reservar_deveSepararSaldoAteConfirmar() {
+        ReservaEstoqueDTO reserva = estoque.reservar(List.of(1L, 2L), List.of(4L, 10L), Duration.ofMinutes(1));
+
+        assertThat(reserva.reservado()).isTrue();
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(6);
+        assertThat(estoque.verificarDisponibilidade(List.of(2L), List.of(1L)).disponivel()).isFalse();
+
+        assertThat(estoque.confirmarReserva(reserva.reservaId()).sucesso()).isTrue();
+        assertThat(estoque.confirmarReserva(reserva.reservaId()).sucesso()).isFalse();
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(6);
+        assertThat(estoque.contarReservas()).isZero();
+    }
+
+    @Test
+    void reservar_semSaldo_naoDeveSepararNada() {
+        estoque.definirSaldo(2L, 1);
+
+        ReservaEstoqueDTO reserva = estoque.reservar(List.of(1L, 2L), List.of(4L, 2L), Duration.ofMinutes(1));
+
+        assertThat(reserva.reservado()).isFalse();
+        assertThat(reserva.reservaId()).isNull();
+        assertThat(reserva.idsProdutosIndisponiveis()).containsExactly(2L);
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(10);
+    }
+
+    @Test
+    void liberarReserva_deveDevolverSaldoUmaUnicaVez() {
+        ReservaEstoqueDTO reserva = estoque.reservar(List.of(1L), List.of(4L), Duration.ofMinutes(1));
+
+        estoque.liberarReserva(reserva.reservaId());
+        estoque.liberarReserva(reserva.reservaId());
+
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(10);
+        assertThat(estoque.confirmarReserva(reserva.reservaId()).sucesso()).isFalse();
+    }
+
+    @Test
+    void reservaVencida_deveVoltarAoEstoqueENaoPodeSerConfirmada() throws InterruptedException {
+        ReservaEstoqueDTO vencida = estoque.reservar(List.of(1L), List.of(4L), Duration.ofMillis(1));
+        ReservaEstoqueDTO valida = estoque.reservar(List.of(1L), List.of(2L), Duration.ofMinutes(1));
+        Thread.sleep(20);
+
+        assertThat(estoque.contarReservas()).isEqualTo(1);
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(8);
+        assertThat(estoque.confirmarReserva(vencida.reservaId()).sucesso()).isFalse();
+        assertThat(estoque.confirmarReserva(valida.reservaId()).sucesso()).isTrue();
+        assertThat(estoque.consultarSaldo(1L)).isEqualTo(8);
+    }
+
+    @Test
+    void reservar_validadeInvalida_deveLancarExcecao() {
+        assertThrows(IllegalArgumentException.class, () -> estoque.reservar(List.of(1L), List.of(1L), Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> estoque.confirmarReserva(null));
+    }
+
+    @Test
+    void darBaixa_concorrente_naoDeveVenderAlemDoEstoque() throws Exception {
+        long[] saldosIniciais = { 500, 300, 700 };
+        for (int i = 0; i < saldosIniciais.length; i++) {
+            estoque.definirSaldo((long) i, saldosIniciais[i]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<long[]>> tarefas = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tarefas.add(() -> {
+                long[] vendidos = new long[saldosIniciais.length];
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                for (int pedido = 0; pedido < 2_000; pedido++) {
+                    List<Long> ids = new ArrayList<>();
+                    List<Long> quantidades = new ArrayList<>();
+                    for (int p = 0; p < saldosIniciais.length; p++) {
+                        if (aleatorio.nextBoolean()) {
+                            ids.add((long) p);
+                            quantidades.add((long) aleatorio.nextInt(1, 4));
+                        }
+                    }
+                    if (!ids.isEmpty() && estoque.darBaixa(ids, quantidades).sucesso()) {
+                        for (int i = 0; i < ids.size(); i++) {
+                            vendidos[ids.get(i).intValue()] += quantidades.get(i);
+                        }
+                    }
+                }
+                return vendidos;
+            });
+        }
+
+        long[] totalVendido = new long[saldosIniciais.length];
+        for (Future<long[]> resultado : executor.invokeAll(tarefas)) {
+            long[] vendidos = resultado.get();
+            for (int p = 0; p < vendidos.length; p++) {
+                totalVendido[p] += vendidos[p];
+            }
+        }
+        executor.shutdown();
+
+        for (int p = 0; p < saldosIniciais.length; p++) {
+            assertThat(estoque.consultarSaldo((long) p)).isGreaterThanOrEqualTo(0);
+            assertThat(totalVendido[p] + estoque.consultarSaldo((long) p)).isEqualTo(saldosIniciais[p]);
+        }
+    }
+}
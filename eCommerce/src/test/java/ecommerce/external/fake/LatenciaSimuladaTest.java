@@ -0,0 +1,75 @@
+package ecommerce.external.fake;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.external.fake.LatenciaSimulada.Distribuicao;
+
+public class LatenciaSimuladaTest {
+
+    private static final long MS = 1_000_000;
+
+    private static long[] amostrar(LatenciaSimulada latencia, int quantidade) {
+        long[] amostras = new long[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            amostras[i] = latencia.sortearNanos();
+        }
+        Arrays.sort(amostras);
+        return amostras;
+    }
+
+    @Test
+    void fixa_deveSempreRetornarAMinima() {
+        LatenciaSimulada latencia = LatenciaSimulada.fixa(Duration.ofMillis(20));
+
+        assertThat(amostrar(latencia, 100)).containsOnly(20 * MS);
+    }
+
+    @Test
+    void uniforme_deveFicarEntreMinimaEMaxima() {
+        LatenciaSimulada latencia = new LatenciaSimulada(Distribuicao.UNIFORME, Duration.ofMillis(10),
+                Duration.ofMillis(30), 1.0);
+
+        long[] amostras = amostrar(latencia, 10_000);
+
+        assertThat(amostras[0]).isGreaterThanOrEqualTo(10 * MS);
+        assertThat(amostras[amostras.length - 1]).isLessThanOrEqualTo(30 * MS);
+        assertThat(amostras[amostras.length / 2]).isBetween(18 * MS, 22 * MS);
+    }
+
+    @Test
+    void caudaLonga_deveConcentrarPertoDaMinimaComCaudaAteAMaxima() {
+        LatenciaSimulada latencia = new LatenciaSimulada(Distribuicao.CAUDA_LONGA, Duration.ofMillis(10),
+                Duration.ofMillis(1000), 1.5);
+
+        long[] amostras = amostrar(latencia, 10_000);
+        long mediana = amostras[amostras.length / 2];
+        long p99 = amostras[(int) (amostras.length * 0.99)];
+
+        assertThat(amostras[0]).isGreaterThanOrEqualTo(10 * MS);
+        assertThat(amostras[amostras.length - 1]).isLessThanOrEqualTo(1000 * MS);
+        assertThat(mediana).isLessThan(20 * MS);
+        assertThat(p99).isGreaterThan(4 * mediana);
+    }
+
+    @Test
+    void distribuicao_deveAceitarNomesDaConfiguracao() {
+        assertThat(Distribuicao.de("cauda-longa")).isEqualTo(Distribuicao.CAUDA_LONGA);
+        assertThat(Distribuicao.de(" Uniforme ")).isEqualTo(Distribuicao.UNIFORME);
+    }
+
+    @Test
+    void parametrosInvalidos_devemLancarExcecao() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LatenciaSimulada(Distribuicao.UNIFORME, Duration.ofMillis(30), Duration.ofMillis(10), 1.0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LatenciaSimulada(Distribuicao.FIXA, Duration.ofMillis(-1), Duration.ZERO, 1.0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LatenciaSimulada(Distribuicao.CAUDA_LONGA, Duration.ZERO, Duration.ZERO, 0));
+    }
+}
@@ -0,0 +1,140 @@
+package ecommerce.external.fake;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.PagamentoDTO;
+
+public class PagamentoSimuladoTest {
+
+    private static PagamentoSimulado pagamento(double taxaRecusa, double taxaErro) {
+        return new PagamentoSimulado(LatenciaSimulada.nenhuma(), taxaRecusa, taxaErro, 100_000);
+    }
+
+    @Test
+    void autorizarPagamento_deveRegistrarTransacaoAutorizada() {
+        PagamentoSimulado pagamento = pagamento(0, 0);
+
+        PagamentoDTO resultado = pagamento.autorizarPagamento(7L, 150.0);
+
+        assertThat(resultado.autorizado()).isTrue();
+        TransacaoSimulada transacao = pagamento.consultarTransacao(resultado.transacaoId()).orElseThrow();
+        assertThat(transacao.clienteId()).isEqualTo(7L);
+        assertThat(transacao.valor()).isEqualTo(150.0);
+        assertThat(transacao.status()).isEqualTo(TransacaoSimulada.Status.AUTORIZADA);
+    }
+
+    @Test
+    void cancelarPagamento_deveMarcarTransacaoComoCancelada() {
+        PagamentoSimulado pagamento = pagamento(0, 0);
+        Long transacaoId = pagamento.autorizarPagamento(7L, 150.0).transacaoId();
+
+        pagamento.cancelarPagamento(7L, transacaoId);
+        pagamento.cancelarPagamento(7L, transacaoId);
+
+        assertThat(pagamento.consultarTransacao(transacaoId).orElseThrow().status())
+                .isEqualTo(TransacaoSimulada.Status.CANCELADA);
+        assertThat(pagamento.contarTransacoes(TransacaoSimulada.Status.CANCELADA)).isEqualTo(1);
+    }
+
+    @Test
+    void cancelarPagamento_deTransacaoInexistenteOuDeOutroCliente_deveLancarExcecao() {
+        PagamentoSimulado pagamento = pagamento(0, 0);
+        Long transacaoId = pagamento.autorizarPagamento(7L, 150.0).transacaoId();
+
+        assertThrows(IllegalArgumentException.class, () -> pagamento.cancelarPagamento(7L, 999L));
+        assertThrows(IllegalArgumentException.class, () -> pagamento.cancelarPagamento(8L, transacaoId));
+        assertThat(pagamento.consultarTransacao(transacaoId).orElseThrow().status())
+                .isEqualTo(TransacaoSimulada.Status.AUTORIZADA);
+    }
+
+    @Test
+    void taxaDeRecusaTotal_deveRecusarSemRegistrarTransacao() {
+        PagamentoSimulado pagamento = pagamento(1, 0);
+
+        PagamentoDTO resultado = pagamento.autorizarPagamento(7L, 150.0);
+
+        assertThat(resultado.autorizado()).isFalse();
+        assertThat(resultado.transacaoId()).isNull();
+        assertThat(pagamento.contarTransacoes(TransacaoSimulada.Status.AUTORIZADA)).isZero();
+    }
+
+    @Test
+    void taxaDeErroTotal_deveLancarExcecao() {
+        PagamentoSimulado pagamento = pagamento(0, 1);
+
+        assertThrows(IllegalStateException.class, () -> pagamento.autorizarPagamento(7L, 150.0));
+    }
+
+    @Test
+    void taxas_devemSerRespeitadasAproximadamente() {
+        PagamentoSimulado pagamento = pagamento(0.2, 0.1);
+        int recusas = 0;
+        int erros = 0;
+        for (int i = 0; i < 20_000; i++) {
+            try {
+                if (!pagamento.autorizarPagamento(1L, 10.0).autorizado()) {
+                    recusas++;
+                }
+            } catch (IllegalStateException e) {
+                erros++;
+            }
+        }
+
+        assertThat(recusas / 20_000.0).isBetween(0.17, 0.23);
+        assertThat(erros / 20_000.0).isBetween(0.08, 0.12);
+    }
+
+    @Test
+    void taxasInvalidas_devemLancarExcecao() {
+        assertThrows(IllegalArgumentException.class, () -> pagamento(-0.1, 0));
+        assertThrows(IllegalArgumentException.class, () -> pagamento(0, 1.5));
+    }
+
+    @Test
+    void autorizacoesConcorrentes_devemGerarIdsUnicos() throws Exception {
+        PagamentoSimulado pagamento = pagamento(0, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<List<Long>>> tarefas = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tarefas.add(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 5_000; i++) {
+                    ids.add(pagamento.autorizarPagamento(1L, 10.0).transacaoId());
+                }
+                return ids;
+            });
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (Future<List<Long>> resultado : executor.invokeAll(tarefas)) {
+            ids.addAll(resultado.get());
+        }
+        executor.shutdown();
+
+        assertThat(ids).hasSize(40_000);
+        assertThat(pagamento.contarTransacoes(TransacaoSimulada.Status.AUTORIZADA)).isEqualTo(40_000);
+    }
+
+    @Test
+    void transacoesAlemDoMaximo_devemSerDescartadas() {
+        PagamentoSimulado pagamento = new PagamentoSimulado(LatenciaSimulada.nenhuma(), 0, 0, 100);
+
+        for (int i = 0; i < 1_000; i++) {
+            pagamento.autorizarPagamento(1L, 10.0);
+        }
+
+        assertThat(pagamento.contarTransacoes(TransacaoSimulada.Status.AUTORIZADA)).isEqualTo(100);
+    }
+}
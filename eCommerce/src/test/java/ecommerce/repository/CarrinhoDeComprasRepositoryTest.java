@@ -0,0 +1,111 @@
+package ecommerce.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.util.TestUtils;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class CarrinhoDeComprasRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CarrinhoDeComprasRepository repository;
+
+    private Statistics estatisticas;
+
+    @BeforeEach
+    void setup() {
+        estatisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private CarrinhoDeCompras persistirCarrinho(Cliente cliente, int tamanho) {
+        List<ItemCompra> itens = new ArrayList<>();
+        for (int i = 0; i < tamanho; i++) {
+            Produto produto = TestUtils.produto("Produto " + i, "10.00", "1.0", "10", "10", "10",
+                    i % 2 == 0, TipoProduto.values()[i % TipoProduto.values().length]);
+            entityManager.persist(produto);
+            itens.add(TestUtils.item(produto, i + 1));
+        }
+        CarrinhoDeCompras carrinho = new CarrinhoDeCompras(null, cliente, itens, null);
+        entityManager.persist(carrinho);
+        entityManager.flush();
+        entityManager.clear();
+        return carrinho;
+    }
+
+    /** Percorre o carrinho como o checkout faz, forçando a carga de itens e produtos. */
+    private static void percorrer(CarrinhoDeCompras carrinho) {
+        for (ItemCompra item : carrinho.getItens()) {
+            item.getProduto().getPreco();
+        }
+    }
+
+    @Test
+    void findByIdAndCliente_carregaItensEProdutosSobDemanda() {
+        int tamanho = 10;
+        Cliente cliente = entityManager.persist(new Cliente(null, "Cliente", Regiao.SUDESTE, TipoCliente.OURO));
+        CarrinhoDeCompras salvo = persistirCarrinho(cliente, tamanho);
+        estatisticas.clear();
+
+        CarrinhoDeCompras carrinho = repository.findByIdAndCliente(salvo.getId(), cliente).orElseThrow();
+        percorrer(carrinho);
+
+        // consulta original: carrinho + itens + um select por produto
+        assertThat(estatisticas.getPrepareStatementCount()).isGreaterThan(1 + 1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 10, 100 })
+    void findComClienteEItensByIdAndClienteId_deveCarregarClienteEItensEmUmaConsulta(int tamanho) {
+        Cliente cliente = entityManager.persist(new Cliente(null, "Cliente", Regiao.NORDESTE, TipoCliente.OURO));
+        CarrinhoDeCompras salvo = persistirCarrinho(cliente, tamanho);
+        estatisticas.clear();
+
+        CarrinhoDeCompras carrinho = repository.findComClienteEItensByIdAndClienteId(salvo.getId(), cliente.getId())
+                .orElseThrow();
+
+        assertThat(carrinho.getCliente().getRegiao()).isEqualTo(Regiao.NORDESTE);
+        assertThat(carrinho.getCliente().getTipo()).isEqualTo(TipoCliente.OURO);
+        assertThat(carrinho.getItens()).hasSize(tamanho);
+        // os produtos não são carregados: o checkout só precisa dos ids
+        assertThat(carrinho.getItens()).allSatisfy(item -> {
+            assertThat(item.getProduto().getId()).isNotNull();
+            assertThat(Hibernate.isInitialized(item.getProduto())).isFalse();
+        });
+        assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findComClienteEItensByIdAndClienteId_naoDeveRetornarCarrinhoDeOutroCliente() {
+        Cliente dono = entityManager.persist(new Cliente(null, "Dono", Regiao.SUL, TipoCliente.PRATA));
+        Cliente outro = entityManager.persist(new Cliente(null, "Outro", Regiao.SUL, TipoCliente.PRATA));
+        CarrinhoDeCompras salvo = persistirCarrinho(dono, 3);
+
+        assertThat(repository.findComClienteEItensByIdAndClienteId(salvo.getId(), outro.getId())).isEmpty();
+        assertThat(repository.findComClienteEItensByIdAndClienteId(salvo.getId(), -1L)).isEmpty();
+    }
+}
@@ -0,0 +1,102 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ecommerce.dto.CheckoutAssincronoDTO;
+import ecommerce.dto.CheckoutAssincronoDTO.Status;
+import ecommerce.dto.CompraDTO;
+
+@ExtendWith(MockitoExtension.class)
+public class CheckoutAssincronoServiceTest {
+
+    @Mock
+    private CompraService compraService;
+
+    private CheckoutAssincronoService service;
+
+    @AfterEach
+    void encerrar() throws InterruptedException {
+        service.encerrar();
+    }
+
+    private CheckoutAssincronoDTO esperarConclusao(String checkoutId) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CheckoutAssincronoDTO checkout = service.consultar(checkoutId);
+        while (checkout.status() != Status.CONCLUIDO && System.nanoTime() < limite) {
+            Thread.sleep(5);
+            checkout = service.consultar(checkoutId);
+        }
+        return checkout;
+    }
+
+    @Test
+    void iniciar_deveResponderNaHoraEGuardarOResultado() throws InterruptedException {
+        service = new CheckoutAssincronoService(compraService, 2, 10, Duration.ofMinutes(1), 100);
+        CompraDTO compra = new CompraDTO(true, 10L, "Compra finalizada com sucesso.");
+        when(compraService.finalizarCompra(1L, 2L)).thenReturn(compra);
+
+        CheckoutAssincronoDTO aceito = service.iniciar(1L, 2L);
+
+        assertThat(aceito.status()).isEqualTo(Status.PENDENTE);
+        assertThat(aceito.resultado()).isNull();
+        CheckoutAssincronoDTO concluido = esperarConclusao(aceito.checkoutId());
+        assertThat(concluido.status()).isEqualTo(Status.CONCLUIDO);
+        assertThat(concluido.resultado()).isEqualTo(compra);
+    }
+
+    @Test
+    void falhaNaCompra_deveVirarResultadoSemSucesso() throws InterruptedException {
+        service = new CheckoutAssincronoService(compraService, 2, 10, Duration.ofMinutes(1), 100);
+        when(compraService.finalizarCompra(1L, 2L)).thenThrow(new IllegalStateException("Itens fora de estoque."));
+        when(compraService.finalizarCompra(3L, 2L)).thenThrow(new RuntimeException("falha inesperada"));
+
+        CheckoutAssincronoDTO semEstoque = esperarConclusao(service.iniciar(1L, 2L).checkoutId());
+        CheckoutAssincronoDTO comErro = esperarConclusao(service.iniciar(3L, 2L).checkoutId());
+
+        assertThat(semEstoque.resultado()).isEqualTo(new CompraDTO(false, null, "Itens fora de estoque."));
+        assertThat(comErro.resultado()).isEqualTo(new CompraDTO(false, null, "Erro ao processar compra."));
+    }
+
+    @Test
+    void filaCheia_deveRecusarNovosCheckouts() throws InterruptedException {
+        service = new CheckoutAssincronoService(compraService, 1, 1, Duration.ofMinutes(1), 100);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch emAndamento = new CountDownLatch(1);
+        when(compraService.finalizarCompra(1L, 2L)).thenAnswer(invocacao -> {
+            emAndamento.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return new CompraDTO(true, 10L, "Compra finalizada com sucesso.");
+        });
+
+        CheckoutAssincronoDTO processando = service.iniciar(1L, 2L);
+        assertThat(emAndamento.await(5, TimeUnit.SECONDS)).isTrue();
+        CheckoutAssincronoDTO naFila = service.iniciar(1L, 2L);
+
+        assertThat(service.consultar(processando.checkoutId()).status()).isEqualTo(Status.PROCESSANDO);
+        assertThat(service.emFila()).isEqualTo(1);
+        assertThrows(RejectedExecutionException.class, () -> service.iniciar(1L, 2L));
+
+        liberar.countDown();
+        assertThat(esperarConclusao(naFila.checkoutId()).resultado().sucesso()).isTrue();
+    }
+
+    @Test
+    void consultar_idDesconhecido_deveRetornarNulo() {
+        service = new CheckoutAssincronoService(compraService, 1, 1, Duration.ofMinutes(1), 100);
+
+        assertThat(service.consultar("inexistente")).isNull();
+    }
+}
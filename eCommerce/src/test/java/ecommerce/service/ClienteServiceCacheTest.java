@@ -0,0 +1,117 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Import;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import ecommerce.config.CacheConfig;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.repository.ClienteRepository;
+
+@DataJpaTest
+@Import({ CacheConfig.class, ClienteService.class })
+public class ClienteServiceCacheTest {
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private CaffeineCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = (CaffeineCache) cacheManager.getCache(CacheConfig.CACHE_CLIENTES);
+        cache.clear();
+    }
+
+    private CacheStats estatisticas() {
+        return cache.getNativeCache().stats();
+    }
+
+    @Test
+    void buscarPorId_segundaBuscaDeveVirDoCache() {
+        Cliente salvo = clienteRepository.save(new Cliente(null, "Ana", Regiao.SUL, TipoCliente.PRATA));
+        long acertos = estatisticas().hitCount();
+        long faltas = estatisticas().missCount();
+
+        ClienteSnapshot primeiro = clienteService.buscarPorId(salvo.getId());
+        ClienteSnapshot segundo = clienteService.buscarPorId(salvo.getId());
+
+        assertThat(segundo).isSameAs(primeiro);
+        assertThat(estatisticas().missCount() - faltas).isEqualTo(1);
+        assertThat(estatisticas().hitCount() - acertos).isEqualTo(1);
+    }
+
+    @Test
+    void save_deveInvalidarClienteEmCache() {
+        Cliente salvo = clienteRepository.save(new Cliente(null, "Bruno", Regiao.NORTE, TipoCliente.BRONZE));
+        clienteService.buscarPorId(salvo.getId());
+        assertThat(cache.get(salvo.getId())).isNotNull();
+
+        Cliente promovido = new Cliente(salvo.getId(), "Bruno", Regiao.NORTE, TipoCliente.OURO);
+        clienteRepository.save(promovido);
+
+        assertThat(cache.get(salvo.getId())).isNull();
+        assertThat(clienteService.buscarPorId(salvo.getId()).tipo()).isEqualTo(TipoCliente.OURO);
+    }
+
+    @Test
+    void delete_deveInvalidarClienteEmCache() {
+        Cliente salvo = clienteRepository.save(new Cliente(null, "Carla", Regiao.SUDESTE, TipoCliente.OURO));
+        clienteService.buscarPorId(salvo.getId());
+
+        clienteRepository.deleteById(salvo.getId());
+
+        assertThat(cache.get(salvo.getId())).isNull();
+        assertThrows(IllegalArgumentException.class, () -> clienteService.buscarPorId(salvo.getId()));
+    }
+
+    @Test
+    void gravacoesComFlushERemocoesEmLote_devemInvalidarClientesEmCache() {
+        Cliente salvo = clienteRepository.save(new Cliente(null, "Davi", Regiao.SUL, TipoCliente.BRONZE));
+        clienteService.buscarPorId(salvo.getId());
+
+        clienteRepository.saveAndFlush(new Cliente(salvo.getId(), "Davi", Regiao.SUL, TipoCliente.PRATA));
+
+        assertThat(cache.get(salvo.getId())).isNull();
+        assertThat(clienteService.buscarPorId(salvo.getId()).tipo()).isEqualTo(TipoCliente.PRATA);
+
+        clienteRepository.deleteAllInBatch();
+
+        assertThat(cache.get(salvo.getId())).isNull();
+    }
+
+    @Test
+    void buscarPorId_deveGuardarCopiaEDesligadaDaEntidade() {
+        Cliente salvo = clienteRepository.save(new Cliente(null, "Elisa", Regiao.NORTE, TipoCliente.OURO));
+
+        ClienteSnapshot copia = clienteService.buscarPorId(salvo.getId());
+        salvo.setTipo(TipoCliente.BRONZE);
+
+        assertThat(cache.get(salvo.getId()).get()).isSameAs(copia);
+        assertThat(copia.tipo()).isEqualTo(TipoCliente.OURO);
+    }
+
+    @Test
+    void buscarPorId_clienteInexistenteNaoDeveSerCacheado() {
+        assertThrows(IllegalArgumentException.class, () -> clienteService.buscarPorId(-1L));
+
+        assertThat(cache.get(-1L)).isNull();
+    }
+}
@@ -0,0 +1,141 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ecommerce.dto.CompraDTO;
+
+@ExtendWith(MockitoExtension.class)
+public class CompraIdempotenteServiceTest {
+
+    private static final CompraDTO COMPRA = new CompraDTO(true, 10L, "Compra finalizada com sucesso.");
+
+    @Mock
+    private CompraService compraService;
+
+    private CompraIdempotenteService service;
+
+    @BeforeEach
+    void setup() {
+        service = new CompraIdempotenteService(compraService, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    void repeticao_deveDevolverOResultadoSemFinalizarDeNovo() {
+        when(compraService.finalizarCompra(1L, 2L)).thenReturn(COMPRA);
+
+        assertThat(service.finalizarCompra("chave", 1L, 2L)).isEqualTo(COMPRA);
+        assertThat(service.finalizarCompra("chave", 1L, 2L)).isEqualTo(COMPRA);
+
+        verify(compraService, times(1)).finalizarCompra(1L, 2L);
+    }
+
+    @Test
+    void repeticoesConcorrentes_devemEsperarAPrimeiraExecucao() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(compraService.finalizarCompra(1L, 2L)).thenAnswer(invocacao -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return COMPRA;
+        });
+        ExecutorService clientes = Executors.newFixedThreadPool(8);
+
+        List<Future<CompraDTO>> respostas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            respostas.add(clientes.submit(() -> service.finalizarCompra("chave", 1L, 2L)));
+        }
+        Thread.sleep(50);
+        liberar.countDown();
+
+        for (Future<CompraDTO> resposta : respostas) {
+            assertThat(resposta.get(5, TimeUnit.SECONDS)).isEqualTo(COMPRA);
+        }
+        clientes.shutdown();
+        verify(compraService, times(1)).finalizarCompra(1L, 2L);
+    }
+
+    @Test
+    void recusa_deveSerRelancadaNasRepeticoes() {
+        when(compraService.finalizarCompra(1L, 2L)).thenThrow(new CompraRecusadaException(CompraRecusadaException.Motivo.PAGAMENTO_NAO_AUTORIZADO));
+
+        IllegalStateException primeira = assertThrows(IllegalStateException.class,
+                () -> service.finalizarCompra("chave", 1L, 2L));
+        IllegalStateException repeticao = assertThrows(IllegalStateException.class,
+                () -> service.finalizarCompra("chave", 1L, 2L));
+
+        assertEquals("Pagamento não autorizado.", primeira.getMessage());
+        assertThat(repeticao).isSameAs(primeira);
+        verify(compraService, times(1)).finalizarCompra(1L, 2L);
+    }
+
+    @Test
+    void falhaInesperada_deveLiberarAChaveParaNovaTentativa() {
+        when(compraService.finalizarCompra(1L, 2L)).thenThrow(new RuntimeException("banco fora do ar"))
+                .thenReturn(COMPRA);
+
+        assertThrows(RuntimeException.class, () -> service.finalizarCompra("chave", 1L, 2L));
+
+        assertThat(service.finalizarCompra("chave", 1L, 2L)).isEqualTo(COMPRA);
+        verify(compraService, times(2)).finalizarCompra(1L, 2L);
+    }
+
+    @Test
+    void tempoEsgotado_deveLiberarAChaveParaNovaTentativa() {
+        when(compraService.finalizarCompra(1L, 2L))
+                .thenThrow(new IllegalStateException("Tempo esgotado no serviço de pagamento."))
+                .thenReturn(COMPRA);
+
+        IllegalStateException primeira = assertThrows(IllegalStateException.class,
+                () -> service.finalizarCompra("chave", 1L, 2L));
+
+        assertEquals("Tempo esgotado no serviço de pagamento.", primeira.getMessage());
+        assertThat(service.finalizarCompra("chave", 1L, 2L)).isEqualTo(COMPRA);
+        assertThat(service.finalizarCompra("chave", 1L, 2L)).isEqualTo(COMPRA);
+        verify(compraService, times(2)).finalizarCompra(1L, 2L);
+    }
+
+    @Test
+    void falhaComCancelamentoQueFalhou_naoDeveLiberarAChave() {
+        IllegalStateException falha = new IllegalStateException("Erro ao dar baixa no estoque.");
+        falha.addSuppressed(new IllegalStateException("Serviço de pagamento indisponível."));
+        when(compraService.finalizarCompra(1L, 2L)).thenThrow(falha).thenReturn(COMPRA);
+
+        IllegalStateException primeira = assertThrows(IllegalStateException.class,
+                () -> service.finalizarCompra("chave", 1L, 2L));
+        IllegalStateException repeticao = assertThrows(IllegalStateException.class,
+                () -> service.finalizarCompra("chave", 1L, 2L));
+
+        assertThat(primeira).isSameAs(falha);
+        assertThat(repeticao).isSameAs(falha);
+        verify(compraService, times(1)).finalizarCompra(1L, 2L);
+    }
+
+    @Test
+    void chaveReusadaEmOutraCompra_deveSerRecusada() {
+        when(compraService.finalizarCompra(1L, 2L)).thenReturn(COMPRA);
+        service.finalizarCompra("chave", 1L, 2L);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> service.finalizarCompra("chave", 3L, 2L));
+
+        assertEquals("Chave de idempotência já usada em outra compra.", exception.getMessage());
+    }
+}
@@ -0,0 +1,134 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.dto.CotacaoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.service.catalogo.CatalogoDePrecificacao;
+import ecommerce.service.catalogo.ItemDeCatalogo;
+import ecommerce.service.catalogo.ProdutoSnapshot;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.service.precificacao.PrecificacaoMemorizada;
+import ecommerce.service.precificacao.RastroDePrecificacao;
+import ecommerce.service.precificacao.RegrasDePrecificacao;
+import ecommerce.service.precificacao.RegrasVigentes;
+import ecommerce.util.TestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class CompraServiceCotacaoTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 2L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private CatalogoDePrecificacao catalogo;
+
+    private PrecificacaoFundida fundida;
+    private CompraService compraService;
+
+    @BeforeEach
+    void setup() {
+        RegrasVigentes regras = new RegrasVigentes(RegrasDePrecificacao.padrao());
+        fundida = spy(new PrecificacaoFundida(regras));
+        PrecificacaoMemorizada motor = new PrecificacaoMemorizada(fundida, regras,
+                Caffeine.newBuilder().maximumSize(10).build());
+        compraService = new CompraService(carrinhoService, clienteService, null, null, motor, catalogo, Optional.empty(),
+                "verificacao", null, MetricasDoCheckout.desligadas());
+    }
+
+    private void carrinhoComItens() {
+        Produto produto = TestUtils.produtoPadrao();
+        produto.setId(5L);
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(produto, 2));
+        carrinho.setCliente(new Cliente(CLIENTE_ID, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        List<ItemPrecificavel> resolvidos = List.of(new ItemDeCatalogo(ProdutoSnapshot.de(produto), 2L));
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(CARRINHO_ID, CLIENTE_ID))
+                .thenReturn(Optional.of(carrinho));
+        when(catalogo.resolverItens(anyList())).thenReturn(resolvidos);
+    }
+
+    @Test
+    void cotarCarrinho_versaoConhecidaNaoDeveCalcularOCusto() {
+        carrinhoComItens();
+
+        CotacaoDTO primeira = compraService.cotarCarrinho(CARRINHO_ID, CLIENTE_ID, versao -> false);
+        CotacaoDTO repetida = compraService.cotarCarrinho(CARRINHO_ID, CLIENTE_ID, primeira.versao()::equals);
+
+        assertThat(primeira.versao()).isNotNull();
+        assertThat(primeira.explicacao().custoTotal())
+                .isEqualTo(compraService.explicarCustoTotal(CARRINHO_ID, CLIENTE_ID).custoTotal());
+        assertThat(repetida).isEqualTo(new CotacaoDTO(primeira.versao(), null));
+        // a explicação reaproveita a cotação memorizada
+        verify(fundida, times(1)).calcularCustoTotal(anyList(), any(), any(), any(RastroDePrecificacao.class));
+    }
+
+    @Test
+    void cotarCarrinho_repetida_naoDevePassarPeloMotor() {
+        carrinhoComItens();
+
+        CotacaoDTO primeira = compraService.cotarCarrinho(CARRINHO_ID, CLIENTE_ID, versao -> false);
+        CotacaoDTO repetida = compraService.cotarCarrinho(CARRINHO_ID, CLIENTE_ID, versao -> false);
+        // cotação em lote: as entidades do carrinho são trocadas pelas cópias do catálogo
+        CarrinhoDeCompras doLote = TestUtils.carrinho(TestUtils.item(TestUtils.produtoPadrao(), 2));
+        BigDecimal custoTotal = compraService.cotarCustoTotal(doLote, Regiao.SUDESTE, TipoCliente.BRONZE);
+
+        assertThat(repetida).isEqualTo(primeira);
+        assertThat(custoTotal).isEqualTo(primeira.explicacao().custoTotal());
+        verify(fundida, times(1)).calcularCustoTotal(anyList(), any(), any(), any(RastroDePrecificacao.class));
+        verify(fundida, never()).calcularCustoTotal(anyList(), any(), any());
+    }
+
+    @Test
+    void cotarCarrinho_semVersaoDeveSempreCalcular() {
+        compraService = new CompraService(carrinhoService, clienteService, null, null, fundida, null, Optional.empty(),
+                "verificacao", null, MetricasDoCheckout.desligadas());
+        Produto produto = TestUtils.produtoPadrao();
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(produto, 1));
+        carrinho.setCliente(new Cliente(CLIENTE_ID, "Cliente", Regiao.SUL, TipoCliente.OURO));
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(CARRINHO_ID, CLIENTE_ID))
+                .thenReturn(Optional.of(carrinho));
+
+        CotacaoDTO cotacao = compraService.cotarCarrinho(CARRINHO_ID, CLIENTE_ID, versao -> true);
+
+        assertThat(cotacao.versao()).isNull();
+        assertThat(cotacao.explicacao().itens()).hasSize(1);
+    }
+
+    @Test
+    void cotarCarrinho_carrinhoDeOutroCliente_deveLancarExcecao() {
+        assertThatThrownBy(() -> compraService.cotarCarrinho(CARRINHO_ID, 99L, versao -> false))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(fundida, never()).calcularCustoTotal(anyList(), any(), any(), any(RastroDePrecificacao.class));
+    }
+}
@@ -0,0 +1,183 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.util.TestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class CompraServiceMetricasTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 2L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private IEstoqueExternal estoqueExternal;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    private SimpleMeterRegistry registro;
+    private CompraService compraService;
+
+    @BeforeEach
+    void setup() {
+        registro = new SimpleMeterRegistry();
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                new PrecificacaoFundida(), null, Optional.empty(), "verificacao", null, new MetricasDoCheckout(registro));
+    }
+
+    private void carrinhoComItens() {
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(TestUtils.produtoPadrao(), 2),
+                TestUtils.item(TestUtils.produtoPadrao(), 3));
+        carrinho.setCliente(new Cliente(CLIENTE_ID, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(CARRINHO_ID, CLIENTE_ID))
+                .thenReturn(Optional.of(carrinho));
+    }
+
+    private long chamadasNaFase(String fase) {
+        return registro.get("ecommerce.checkout.fase").tag("fase", fase).timer().count();
+    }
+
+    private double resultados(String resultado) {
+        return registro.get("ecommerce.checkout.resultados").tag("resultado", resultado).counter().count();
+    }
+
+    @Test
+    void compraFinalizada_deveMedirCadaFaseEOTamanhoDoCarrinho() {
+        carrinhoComItens();
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(true, null));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+
+        compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertThat(chamadasNaFase("carrinho")).isEqualTo(1);
+        assertThat(chamadasNaFase("disponibilidade")).isEqualTo(1);
+        assertThat(chamadasNaFase("precificacao")).isEqualTo(1);
+        assertThat(chamadasNaFase("autorizacao")).isEqualTo(1);
+        assertThat(chamadasNaFase("baixa")).isEqualTo(1);
+        assertThat(chamadasNaFase("cliente")).isZero();
+        assertThat(chamadasNaFase("compensacao")).isZero();
+        assertThat(registro.get("ecommerce.checkout.carrinho.itens").summary().totalAmount()).isEqualTo(2);
+        assertThat(registro.get("ecommerce.checkout.carrinho.unidades").summary().totalAmount()).isEqualTo(5);
+        assertThat(registro.get("ecommerce.checkout.duracao").tag("sucesso", "true").timer().count()).isEqualTo(1);
+        assertThat(resultados("sucesso")).isEqualTo(1);
+    }
+
+    @Test
+    void baixaRecusada_deveContarACompensacaoEAFalhaExterna() {
+        carrinhoComItens();
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(true, null));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(false));
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(chamadasNaFase("compensacao")).isEqualTo(1);
+        assertThat(resultados("falha-externa")).isEqualTo(1);
+        assertThat(registro.get("ecommerce.checkout.duracao").tag("sucesso", "false").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void baixaRecusadaECancelamentoQueFalha_deveManterOErroDaBaixaEContarAPendencia() {
+        carrinhoComItens();
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(true, null));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(false));
+        doThrow(new IllegalStateException("Serviço de pagamento indisponível.")).when(pagamentoExternal)
+                .cancelarPagamento(CLIENTE_ID, 10L);
+
+        IllegalStateException falha = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(falha.getMessage()).isEqualTo("Erro ao dar baixa no estoque.");
+        assertThat(falha.getSuppressed()).hasSize(1);
+        assertThat(registro.get("ecommerce.checkout.compensacoes.pendentes").tag("tipo", "pagamento").counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void recusas_devemSerContadasPeloMotivo() {
+        carrinhoComItens();
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+                .thenReturn(new DisponibilidadeDTO(false, null), new DisponibilidadeDTO(true, null));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(false, null));
+
+        assertThrows(CompraRecusadaException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+        assertThrows(CompraRecusadaException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(resultados("sem-estoque")).isEqualTo(1);
+        assertThat(resultados("pagamento-recusado")).isEqualTo(1);
+        assertThat(registro.get("ecommerce.checkout.resultados").counters()).hasSize(6);
+    }
+
+    @Test
+    void cancelamentoQueFalha_deveSerContadoComoCompensacaoPendente() {
+        carrinhoComItens();
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList())).thenReturn(new DisponibilidadeDTO(true, null));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.darBaixa(anyList(), anyList()))
+                .thenThrow(new IllegalStateException("Tempo esgotado no serviço de estoque."));
+        doThrow(new IllegalStateException("Serviço de pagamento indisponível.")).when(pagamentoExternal)
+                .cancelarPagamento(CLIENTE_ID, 10L);
+
+        IllegalStateException falha = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(falha.getSuppressed()).hasSize(1);
+        assertThat(registro.get("ecommerce.checkout.compensacoes.pendentes").tag("tipo", "pagamento").counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void carrinhoInexistente_deveMedirABuscaDoCliente() {
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(CARRINHO_ID, CLIENTE_ID))
+                .thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(chamadasNaFase("cliente")).isEqualTo(1);
+        assertThat(resultados("invalido")).isEqualTo(1);
+    }
+
+    @Test
+    void erroInesperado_naoDeveUsarAMensagemComoTag() {
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(CARRINHO_ID, CLIENTE_ID))
+                .thenThrow(new RuntimeException("conexão recusada: 10.0.0.7"));
+
+        assertThrows(RuntimeException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(resultados("erro-inesperado")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,201 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ecommerce.config.ChamadasExternas;
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.DisponibilidadeDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.util.TestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class CompraServiceOrquestracaoParalelaTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 2L;
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private IEstoqueExternal estoqueExternal;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    private ExecutorService executor;
+    private CompraService compraService;
+
+    @BeforeEach
+    void setup() {
+        executor = Executors.newFixedThreadPool(2);
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                new PrecificacaoFundida(), null, Optional.of(new ChamadasExternas(executor)), "verificacao", null,
+                MetricasDoCheckout.desligadas());
+
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(TestUtils.produtoPadrao(), 2));
+        carrinho.setCliente(new Cliente(CLIENTE_ID, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(CARRINHO_ID, CLIENTE_ID))
+                .thenReturn(Optional.of(carrinho));
+    }
+
+    @AfterEach
+    void encerrar() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void finalizarCompra_deveChamarEstoqueEPagamentoAoMesmoTempo() {
+        CountDownLatch pagamentoIniciado = new CountDownLatch(1);
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenAnswer(invocacao -> {
+            pagamentoIniciado.countDown();
+            return new PagamentoDTO(true, 10L);
+        });
+        // só responde depois que a autorização começou: em sequência, nunca responderia disponível
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList())).thenAnswer(invocacao ->
+                new DisponibilidadeDTO(pagamentoIniciado.await(5, TimeUnit.SECONDS), List.of()));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(true));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertThat(resultado.sucesso()).isTrue();
+        assertEquals(10L, resultado.transacaoPagamentoId());
+        verify(pagamentoExternal).autorizarPagamento(CLIENTE_ID, 200.0);
+        verify(pagamentoExternal, never()).cancelarPagamento(anyLong(), anyLong());
+    }
+
+    @Test
+    void finalizarCompra_quandoSemEstoque_entaoCancelaAutorizacao() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+                .thenReturn(new DisponibilidadeDTO(false, List.of(1L)));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Itens fora de estoque.", exception.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 10L);
+        verify(estoqueExternal, never()).darBaixa(anyList(), anyList());
+    }
+
+    @Test
+    void finalizarCompra_quandoSemEstoqueECancelamentoFalha_entaoRecusaPorEstoque() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+                .thenReturn(new DisponibilidadeDTO(false, List.of(1L)));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        doThrow(new IllegalArgumentException("Transação não encontrada para o cliente: 10")).when(pagamentoExternal)
+                .cancelarPagamento(CLIENTE_ID, 10L);
+
+        CompraRecusadaException exception = assertThrows(CompraRecusadaException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertThat(exception.getMotivo()).isEqualTo(CompraRecusadaException.Motivo.SEM_ESTOQUE);
+        assertThat(exception.getSuppressed()).hasSize(1);
+        assertEquals("Transação não encontrada para o cliente: 10", exception.getSuppressed()[0].getMessage());
+    }
+
+    @Test
+    void finalizarCompra_quandoSemEstoqueEPagamentoRecusado_entaoNaoCancela() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+                .thenReturn(new DisponibilidadeDTO(false, List.of(1L)));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenReturn(new PagamentoDTO(false, null));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Itens fora de estoque.", exception.getMessage());
+        verify(pagamentoExternal, never()).cancelarPagamento(anyLong(), anyLong());
+    }
+
+    @Test
+    void finalizarCompra_quandoEstoqueFalha_entaoCancelaAutorizacaoERelancaErro() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+                .thenThrow(new IllegalStateException("Estoque indisponível"));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Estoque indisponível", exception.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 10L);
+    }
+
+    @Test
+    void finalizarCompra_quandoPagamentoRecusado_entaoNaoDaBaixa() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+                .thenReturn(new DisponibilidadeDTO(true, List.of()));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenReturn(new PagamentoDTO(false, null));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Pagamento não autorizado.", exception.getMessage());
+        verify(estoqueExternal, never()).darBaixa(anyList(), anyList());
+    }
+
+    @Test
+    void finalizarCompra_quandoBaixaFalha_entaoCancelaPagamento() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+                .thenReturn(new DisponibilidadeDTO(true, List.of()));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.darBaixa(anyList(), anyList())).thenReturn(new EstoqueBaixaDTO(false));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Erro ao dar baixa no estoque.", exception.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 10L);
+    }
+
+    @Test
+    void finalizarCompra_quandoBaixaLancaErro_entaoCancelaPagamentoERelancaErro() {
+        when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
+                .thenReturn(new DisponibilidadeDTO(true, List.of()));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.darBaixa(anyList(), anyList()))
+                .thenThrow(new IllegalStateException("Tempo esgotado no serviço de estoque."));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Tempo esgotado no serviço de estoque.", exception.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 10L);
+    }
+}
@@ -0,0 +1,220 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.util.TestUtils;
+
+/**
+ * Teste diferencial: o motor fundido usado por {@code calcularCustoTotal} deve
+ * produzir exatamente o mesmo {@link BigDecimal} (valor e escala) e as mesmas
+ * exceções que o cálculo em passos, nos cenários de
+ * {@link CompraServiceParticoesTest} e {@link CompraServiceLimitesTest} e em
+ * carrinhos mistos gerados aleatoriamente.
+ */
+public class CompraServicePrecificacaoFundidaTest {
+
+    private static final String RECURSOS = "/ecommerce/service/";
+
+    private CompraService compraService;
+
+    @BeforeEach
+    void setup() {
+        compraService = new CompraService(null, null, null, null);
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("cenariosDasParticoesELimites")
+    @DisplayName("Diferencial: cenários das partições e limites")
+    void quandoCenarioDasParticoesOuLimites_entaoMotorFundidoIgualAoEmPassos(String cenario,
+            CarrinhoDeCompras carrinho, Regiao regiao, TipoCliente tipoCliente) {
+
+        BigDecimal emPassos = compraService.calcularCustoTotalEmPassos(carrinho, regiao, tipoCliente);
+        BigDecimal fundido = compraService.calcularCustoTotal(carrinho, regiao, tipoCliente);
+
+        assertThat(fundido).as(cenario).isEqualTo(emPassos);
+    }
+
+    @ParameterizedTest(name = "[{index}] semente {0}")
+    @MethodSource("sementes")
+    @DisplayName("Diferencial: carrinhos mistos aleatórios")
+    void quandoCarrinhoMistoAleatorio_entaoMotorFundidoIgualAoEmPassos(long semente) {
+        Random random = new Random(semente);
+        CarrinhoDeCompras carrinho = carrinhoAleatorio(random);
+        Regiao regiao = Regiao.values()[random.nextInt(Regiao.values().length)];
+        TipoCliente tipoCliente = TipoCliente.values()[random.nextInt(TipoCliente.values().length)];
+
+        BigDecimal emPassos = compraService.calcularCustoTotalEmPassos(carrinho, regiao, tipoCliente);
+        BigDecimal fundido = compraService.calcularCustoTotal(carrinho, regiao, tipoCliente);
+
+        assertThat(fundido).as("semente %d", semente).isEqualTo(emPassos);
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("carrinhosInvalidos")
+    @DisplayName("Diferencial: entradas inválidas lançam a mesma exceção")
+    void quandoEntradaInvalida_entaoMotorFundidoLancaMesmaExcecao(String cenario, CarrinhoDeCompras carrinho) {
+
+        Throwable emPassos = catchThrowable(
+                () -> compraService.calcularCustoTotalEmPassos(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE));
+        Throwable fundido = catchThrowable(
+                () -> compraService.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE));
+
+        assertThat(emPassos).as(cenario).isInstanceOf(IllegalArgumentException.class);
+        assertThat(fundido).as(cenario).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(emPassos.getMessage());
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("alteracoesDeProduto")
+    @DisplayName("Diferencial: atributos derivados do produto acompanham alterações")
+    void quandoProdutoAlteradoAposCotacao_entaoMotorFundidoIgualAoEmPassos(String cenario,
+            Consumer<Produto> alteracao) {
+        Produto p = TestUtils.produto("Produto", "120.00", "2.0", "10", "10", "10", true, TipoProduto.MOVEL);
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(p, 3));
+        compraService.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE);
+
+        alteracao.accept(p);
+
+        assertThat(compraService.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE)).as(cenario)
+                .isEqualTo(compraService.calcularCustoTotalEmPassos(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE));
+    }
+
+    static Stream<Arguments> alteracoesDeProduto() {
+        return Stream.of(
+                Arguments.of("Preço", (Consumer<Produto>) p -> p.setPreco(new BigDecimal("400.00"))),
+                Arguments.of("Peso físico", (Consumer<Produto>) p -> p.setPesoFisico(new BigDecimal("9"))),
+                Arguments.of("Comprimento", (Consumer<Produto>) p -> p.setComprimento(new BigDecimal("90"))),
+                Arguments.of("Largura", (Consumer<Produto>) p -> p.setLargura(new BigDecimal("90"))),
+                Arguments.of("Altura", (Consumer<Produto>) p -> p.setAltura(new BigDecimal("90"))));
+    }
+
+    static Stream<Arguments> cenariosDasParticoesELimites() throws IOException {
+        List<Arguments> cenarios = new ArrayList<>();
+
+        Function<String[], CarrinhoDeCompras> pesoTributavel = c -> umItem("50.00", c[0], c[1], c[2], c[3], false, 1);
+        adicionar(cenarios, "particoes_peso_tributavel.csv", pesoTributavel, Regiao.SUDESTE, TipoCliente.BRONZE);
+        adicionar(cenarios, "limites_peso_tributavel.csv", pesoTributavel, Regiao.SUDESTE, TipoCliente.BRONZE);
+
+        Function<String[], CarrinhoDeCompras> descontoItens = c -> umItem(c[1], "0.5", "1", "1", "1", false,
+                Integer.parseInt(c[0]));
+        adicionar(cenarios, "particoes_desconto_itens.csv", descontoItens, Regiao.SUDESTE, TipoCliente.BRONZE);
+        adicionar(cenarios, "limites_desconto_itens.csv", descontoItens, Regiao.SUDESTE, TipoCliente.BRONZE);
+
+        Function<String[], CarrinhoDeCompras> descontoValor = c -> umItem(c[0], "1", "1", "1", "1", false, 1);
+        adicionar(cenarios, "particoes_desconto_valor.csv", descontoValor, Regiao.SUDESTE, TipoCliente.BRONZE);
+        adicionar(cenarios, "limites_desconto_valor.csv", descontoValor, Regiao.SUDESTE, TipoCliente.BRONZE);
+
+        Function<String[], CarrinhoDeCompras> fretePeso = c -> umItem(c[1], c[0], "1", "1", "1", false, 1);
+        adicionar(cenarios, "particoes_frete_peso.csv", fretePeso, Regiao.SUDESTE, TipoCliente.BRONZE);
+        adicionar(cenarios, "limites_frete_peso.csv", fretePeso, Regiao.SUDESTE, TipoCliente.BRONZE);
+        adicionar(cenarios, "particoes_frete_taxa_minima.csv", fretePeso, Regiao.SUDESTE, TipoCliente.BRONZE);
+
+        adicionar(cenarios, "particoes_frete_taxa_manuseio.csv",
+                c -> umItem(c[3], c[2], "1", "1", "1", Boolean.parseBoolean(c[0]), Integer.parseInt(c[1])),
+                Regiao.SUDESTE, TipoCliente.BRONZE);
+
+        for (Regiao regiao : Regiao.values()) {
+            cenarios.add(Arguments.of("Região " + regiao, umItem("50.00", "6.0", "1", "1", "1", false, 1), regiao,
+                    TipoCliente.BRONZE));
+        }
+        for (TipoCliente tipoCliente : TipoCliente.values()) {
+            cenarios.add(Arguments.of("Cliente " + tipoCliente, umItem("50.00", "6.0", "1", "1", "1", false, 1),
+                    Regiao.SUDESTE, tipoCliente));
+        }
+
+        return cenarios.stream();
+    }
+
+    static Stream<Arguments> carrinhosInvalidos() {
+        Produto precoNulo = TestUtils.produtoPadrao();
+        precoNulo.setPreco(null);
+        Produto tipoNulo = TestUtils.produtoPadrao();
+        tipoNulo.setTipo(null);
+        ItemCompra quantidadeNula = TestUtils.item(TestUtils.produtoPadrao(), 1);
+        quantidadeNula.setQuantidade(null);
+
+        return Stream.of(
+                Arguments.of("Carrinho vazio", TestUtils.carrinho()),
+                Arguments.of("Item nulo", TestUtils.carrinho((ItemCompra) null)),
+                Arguments.of("Produto nulo", TestUtils.carrinho(TestUtils.item(null, 1))),
+                Arguments.of("Quantidade nula", TestUtils.carrinho(quantidadeNula)),
+                Arguments.of("Quantidade zero", TestUtils.carrinho(TestUtils.item(TestUtils.produtoPadrao(), 0))),
+                Arguments.of("Preço nulo", TestUtils.carrinho(TestUtils.item(precoNulo, 1))),
+                Arguments.of("Preço negativo", umItem("-1.00", "1", "1", "1", "1", false, 1)),
+                Arguments.of("Tipo nulo", TestUtils.carrinho(TestUtils.item(tipoNulo, 1))),
+                Arguments.of("Dimensão zero", umItem("10.00", "1", "10", "10", "0", false, 1)),
+                Arguments.of("Peso zero", umItem("10.00", "0", "10", "10", "10", false, 1)),
+                Arguments.of("Segundo item inválido", TestUtils.carrinho(
+                        TestUtils.item(TestUtils.produtoPadrao(), 2),
+                        TestUtils.item(TestUtils.produtoPadrao(), -1))));
+    }
+
+    static Stream<Long> sementes() {
+        return Stream.iterate(1L, s -> s + 1).limit(200);
+    }
+
+    private static CarrinhoDeCompras carrinhoAleatorio(Random random) {
+        int quantidadeItens = 1 + random.nextInt(30);
+        ItemCompra[] itens = new ItemCompra[quantidadeItens];
+
+        for (int i = 0; i < quantidadeItens; i++) {
+            Produto p = TestUtils.produto("Produto " + i,
+                    random.nextInt(800) + "." + random.nextInt(10) + random.nextInt(10),
+                    random.nextInt(30) + "." + random.nextInt(100) + "1",
+                    String.valueOf(1 + random.nextInt(80)),
+                    (1 + random.nextInt(80)) + "." + random.nextInt(10),
+                    String.valueOf(1 + random.nextInt(80)),
+                    random.nextBoolean(),
+                    TipoProduto.values()[random.nextInt(TipoProduto.values().length)]);
+            itens[i] = TestUtils.item(p, 1 + random.nextInt(10));
+        }
+        return TestUtils.carrinho(itens);
+    }
+
+    private static CarrinhoDeCompras umItem(String preco, String peso, String c, String l, String a, boolean fragil,
+            int quantidade) {
+        Produto p = TestUtils.produto("Produto de teste", preco, peso, c, l, a, fragil, TipoProduto.ELETRONICO);
+        return TestUtils.carrinho(TestUtils.item(p, quantidade));
+    }
+
+    private static void adicionar(List<Arguments> cenarios, String arquivo, Function<String[], CarrinhoDeCompras> carrinho,
+            Regiao regiao, TipoCliente tipoCliente) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                CompraServicePrecificacaoFundidaTest.class.getResourceAsStream(RECURSOS + arquivo),
+                StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                if (linha.isBlank()) {
+                    continue;
+                }
+                String[] colunas = linha.split(",");
+                cenarios.add(Arguments.of(arquivo + ": " + linha, carrinho.apply(colunas), regiao, tipoCliente));
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ecommerce.config.ChamadasExternas;
+import ecommerce.dto.CompraDTO;
+import ecommerce.dto.EstoqueBaixaDTO;
+import ecommerce.dto.PagamentoDTO;
+import ecommerce.dto.ReservaEstoqueDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.external.IEstoqueExternal;
+import ecommerce.external.IPagamentoExternal;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.util.TestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class CompraServiceReservaTest {
+
+    private static final Long CARRINHO_ID = 1L;
+    private static final Long CLIENTE_ID = 2L;
+    private static final Long RESERVA_ID = 30L;
+    private static final Duration VALIDADE = Duration.ofSeconds(30);
+
+    @Mock
+    private CarrinhoDeComprasService carrinhoService;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private IEstoqueExternal estoqueExternal;
+
+    @Mock
+    private IPagamentoExternal pagamentoExternal;
+
+    private CompraService compraService;
+
+    @BeforeEach
+    void setup() {
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                new PrecificacaoFundida(), null, Optional.empty(), "reserva", VALIDADE, MetricasDoCheckout.desligadas());
+
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(TestUtils.produtoPadrao(), 2));
+        carrinho.setCliente(new Cliente(CLIENTE_ID, "Cliente", Regiao.SUDESTE, TipoCliente.BRONZE));
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(CARRINHO_ID, CLIENTE_ID))
+                .thenReturn(Optional.of(carrinho));
+    }
+
+    private void reservaConcedida() {
+        when(estoqueExternal.reservar(anyList(), anyList(), eq(VALIDADE)))
+                .thenReturn(new ReservaEstoqueDTO(true, RESERVA_ID, List.of()));
+    }
+
+    @Test
+    void finalizarCompra_deveReservarAutorizarEConfirmar() {
+        reservaConcedida();
+        when(pagamentoExternal.autorizarPagamento(CLIENTE_ID, 200.0)).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.confirmarReserva(RESERVA_ID)).thenReturn(new EstoqueBaixaDTO(true));
+
+        CompraDTO resultado = compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID);
+
+        assertThat(resultado.sucesso()).isTrue();
+        assertEquals(10L, resultado.transacaoPagamentoId());
+        verify(estoqueExternal, never()).verificarDisponibilidade(anyList(), anyList());
+        verify(estoqueExternal, never()).darBaixa(anyList(), anyList());
+        verify(estoqueExternal, never()).liberarReserva(anyLong());
+    }
+
+    @Test
+    void finalizarCompra_semEstoque_naoDeveAutorizarPagamento() {
+        when(estoqueExternal.reservar(anyList(), anyList(), eq(VALIDADE)))
+                .thenReturn(new ReservaEstoqueDTO(false, null, List.of(1L)));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Itens fora de estoque.", exception.getMessage());
+        verify(pagamentoExternal, never()).autorizarPagamento(anyLong(), anyDouble());
+    }
+
+    @Test
+    void finalizarCompra_pagamentoRecusado_deveLiberarReserva() {
+        reservaConcedida();
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenReturn(new PagamentoDTO(false, null));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Pagamento não autorizado.", exception.getMessage());
+        verify(estoqueExternal).liberarReserva(RESERVA_ID);
+        verify(estoqueExternal, never()).confirmarReserva(any());
+    }
+
+    @Test
+    void finalizarCompra_falhaAoLiberar_naoDeveEsconderErroDoPagamento() {
+        reservaConcedida();
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenThrow(new IllegalStateException("Serviço de pagamento indisponível."));
+        doThrow(new IllegalStateException("Estoque indisponível")).when(estoqueExternal).liberarReserva(RESERVA_ID);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Serviço de pagamento indisponível.", exception.getMessage());
+        assertThat(exception.getSuppressed()).extracting(Throwable::getMessage).containsExactly("Estoque indisponível");
+    }
+
+    @Test
+    void finalizarCompra_reservaVencida_deveCancelarPagamento() {
+        reservaConcedida();
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.confirmarReserva(RESERVA_ID)).thenReturn(new EstoqueBaixaDTO(false));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Erro ao dar baixa no estoque.", exception.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 10L);
+    }
+
+    @Test
+    void finalizarCompra_reservaVencidaECancelamentoFalha_naoDeveEsconderErroDaBaixa() {
+        reservaConcedida();
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.confirmarReserva(RESERVA_ID)).thenReturn(new EstoqueBaixaDTO(false));
+        doThrow(new IllegalStateException("Serviço de pagamento indisponível.")).when(pagamentoExternal)
+                .cancelarPagamento(CLIENTE_ID, 10L);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Erro ao dar baixa no estoque.", exception.getMessage());
+        assertThat(exception.getSuppressed()).extracting(Throwable::getMessage)
+                .containsExactly("Serviço de pagamento indisponível.");
+    }
+
+    @Test
+    void finalizarCompra_confirmacaoLancaErro_deveCancelarPagamentoELiberarReserva() {
+        reservaConcedida();
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+        when(estoqueExternal.confirmarReserva(RESERVA_ID))
+                .thenThrow(new IllegalStateException("Serviço de estoque indisponível."));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Serviço de estoque indisponível.", exception.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 10L);
+        verify(estoqueExternal).liberarReserva(RESERVA_ID);
+    }
+
+    @Test
+    void finalizarCompra_emParalelo_semEstoque_deveCancelarAutorizacao() {
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                new PrecificacaoFundida(), null, Optional.of(new ChamadasExternas(Runnable::run)), "reserva", VALIDADE,
+                MetricasDoCheckout.desligadas());
+        when(estoqueExternal.reservar(anyList(), anyList(), eq(VALIDADE)))
+                .thenReturn(new ReservaEstoqueDTO(false, null, List.of(1L)));
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble())).thenReturn(new PagamentoDTO(true, 10L));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        assertEquals("Itens fora de estoque.", exception.getMessage());
+        verify(pagamentoExternal).cancelarPagamento(CLIENTE_ID, 10L);
+        verify(estoqueExternal, never()).liberarReserva(anyLong());
+    }
+
+    @Test
+    void finalizarCompra_emParalelo_pagamentoRecusado_deveLiberarReserva() {
+        compraService = new CompraService(carrinhoService, clienteService, estoqueExternal, pagamentoExternal,
+                new PrecificacaoFundida(), null, Optional.of(new ChamadasExternas(Runnable::run)), "reserva", VALIDADE,
+                MetricasDoCheckout.desligadas());
+        reservaConcedida();
+        when(pagamentoExternal.autorizarPagamento(eq(CLIENTE_ID), anyDouble()))
+                .thenReturn(new PagamentoDTO(false, null));
+
+        assertThrows(IllegalStateException.class, () -> compraService.finalizarCompra(CARRINHO_ID, CLIENTE_ID));
+
+        verify(estoqueExternal).liberarReserva(RESERVA_ID);
+        verify(pagamentoExternal, never()).cancelarPagamento(anyLong(), anyLong());
+    }
+}
@@ -8,11 +8,13 @@ import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import ecommerce.dto.CompraDTO;
 import ecommerce.dto.DisponibilidadeDTO;
@@ -83,13 +85,11 @@ public class CompraServiceTest {
         item.setQuantidade(2L);
 
         CarrinhoDeCompras carrinho = new CarrinhoDeCompras();
+        carrinho.setCliente(cliente);
         carrinho.setItens(List.of(item));
-        
-        when(clienteService.buscarPorId(clienteId))
-            .thenReturn(cliente);
 
-        when(carrinhoService.buscarPorCarrinhoIdEClienteId(carrinhoId, cliente))
-            .thenReturn(carrinho);
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(carrinhoId, clienteId))
+            .thenReturn(Optional.of(carrinho));
 
         when(estoqueExternal.verificarDisponibilidade(anyList(), anyList()))
                 .thenReturn(new DisponibilidadeDTO(true, List.of()));
@@ -107,6 +107,30 @@ public class CompraServiceTest {
         verify(estoqueExternal).verificarDisponibilidade(anyList(), anyList());
         verify(pagamentoExternal).autorizarPagamento(eq(clienteId), anyDouble());
         verify(estoqueExternal).darBaixa(anyList(), anyList());
+        verifyNoInteractions(clienteService);
+    }
+
+    @Test
+    void finalizarCompra_quandoClienteNaoExiste_entaoLancaClienteNaoEncontrado() {
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(1L, 2L)).thenReturn(Optional.empty());
+        when(clienteService.buscarPorId(2L)).thenThrow(new IllegalArgumentException("Cliente não encontrado"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> compraService.finalizarCompra(1L, 2L));
+
+        assertEquals("Cliente não encontrado", exception.getMessage());
+    }
+
+    @Test
+    void finalizarCompra_quandoCarrinhoNaoPertenceAoCliente_entaoLancaCarrinhoNaoEncontrado() {
+        when(carrinhoService.buscarComClientePorCarrinhoIdEClienteId(1L, 2L)).thenReturn(Optional.empty());
+        when(clienteService.buscarPorId(2L)).thenReturn(ClienteSnapshot.de(new Cliente()));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> compraService.finalizarCompra(1L, 2L));
+
+        assertEquals("Carrinho não encontrado.", exception.getMessage());
+        verifyNoInteractions(estoqueExternal, pagamentoExternal);
     }
 
     @Test
@@ -0,0 +1,139 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ecommerce.dto.CotacaoCarrinhoDTO;
+import ecommerce.dto.CotacaoLoteDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.util.TestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class CotacaoEmLoteServiceTest {
+
+    @Mock
+    private CarrinhoDeComprasRepository carrinhoRepository;
+
+    private CompraService compraService;
+    private CotacaoEmLoteService cotacaoService;
+
+    @BeforeEach
+    void setup() {
+        compraService = new CompraService(null, null, null, null);
+        cotacaoService = new CotacaoEmLoteService(carrinhoRepository, compraService, 4, 2500);
+    }
+
+    @AfterEach
+    void encerrar() {
+        cotacaoService.encerrar();
+    }
+
+    private static CarrinhoDeCompras carrinho(long id, long quantidade) {
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(TestUtils.produtoPadrao(), quantidade));
+        carrinho.setId(id);
+        carrinho.setCliente(new Cliente(id, "Cliente " + id, Regiao.SUDESTE, TipoCliente.BRONZE));
+        return carrinho;
+    }
+
+    @Test
+    void cotarCarrinhos_deveManterOrdemEIgualarCalculoIndividual() {
+        List<CarrinhoDeCompras> carrinhos = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            carrinhos.add(carrinho(id, 1 + id % 15));
+        }
+
+        CotacaoLoteDTO lote = cotacaoService.cotarCarrinhos(carrinhos);
+
+        assertThat(lote.resultados()).hasSize(2000);
+        for (int i = 0; i < carrinhos.size(); i++) {
+            CarrinhoDeCompras carrinho = carrinhos.get(i);
+            CotacaoCarrinhoDTO resultado = lote.resultados().get(i);
+            assertThat(resultado.carrinhoId()).isEqualTo(carrinho.getId());
+            assertThat(resultado.sucesso()).isTrue();
+            assertThat(resultado.custoTotal()).isEqualTo(
+                    compraService.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE));
+        }
+        assertThat(lote.metricas().totalCarrinhos()).isEqualTo(2000);
+        assertThat(lote.metricas().sucessos()).isEqualTo(2000);
+        assertThat(lote.metricas().falhas()).isZero();
+        assertThat(lote.metricas().paralelismo()).isEqualTo(4);
+        assertThat(lote.metricas().carrinhosPorSegundo()).isPositive();
+    }
+
+    @Test
+    void cotarCarrinhos_carrinhoInvalidoNaoDerrubaOLote() {
+        CarrinhoDeCompras semCliente = carrinho(2, 1);
+        semCliente.setCliente(null);
+        CarrinhoDeCompras quantidadeInvalida = carrinho(3, 1);
+        quantidadeInvalida.getItens().get(0).setQuantidade(0L);
+
+        CotacaoLoteDTO lote = cotacaoService.cotarCarrinhos(List.of(carrinho(1, 2), semCliente, quantidadeInvalida));
+
+        assertThat(lote.resultados()).extracting(CotacaoCarrinhoDTO::sucesso).containsExactly(true, false, false);
+        assertThat(lote.resultados().get(0).custoTotal()).isEqualByComparingTo(new BigDecimal("200.00"));
+        assertThat(lote.resultados().get(1).mensagem()).isEqualTo("Cliente não encontrado");
+        assertThat(lote.resultados().get(2).mensagem()).isEqualTo("Quantidade inválida no produto: Produto Padrão");
+        assertThat(lote.metricas().sucessos()).isEqualTo(1);
+        assertThat(lote.metricas().falhas()).isEqualTo(2);
+    }
+
+    @Test
+    void cotarPorIds_deveBuscarEmBlocosEMarcarCarrinhosInexistentes() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            ids.add(id);
+        }
+        when(carrinhoRepository.findAllComItensByIdIn(anyCollection())).thenAnswer(invocacao -> {
+            List<CarrinhoDeCompras> encontrados = new ArrayList<>();
+            for (Object id : invocacao.<Collection<?>>getArgument(0)) {
+                long valor = (Long) id;
+                if (valor % 100 != 0) {
+                    encontrados.add(carrinho(valor, 1));
+                }
+            }
+            return encontrados;
+        });
+
+        CotacaoLoteDTO lote = cotacaoService.cotarPorIds(ids);
+
+        verify(carrinhoRepository, times(3)).findAllComItensByIdIn(anyCollection());
+        assertThat(lote.resultados()).extracting(CotacaoCarrinhoDTO::carrinhoId).containsExactlyElementsOf(ids);
+        assertThat(lote.resultados().get(99).sucesso()).isFalse();
+        assertThat(lote.resultados().get(99).mensagem()).isEqualTo("Carrinho não encontrado.");
+        assertThat(lote.metricas().falhas()).isEqualTo(25);
+        assertThat(lote.metricas().sucessos()).isEqualTo(2475);
+    }
+
+    @Test
+    void cotar_deveRejeitarLoteVazioOuAcimaDoLimite() {
+        assertThrows(IllegalArgumentException.class, () -> cotacaoService.cotarPorIds(Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class, () -> cotacaoService.cotarPorIds(null));
+
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2501; id++) {
+            ids.add(id);
+        }
+        assertThrows(IllegalArgumentException.class, () -> cotacaoService.cotarPorIds(ids));
+    }
+}
@@ -0,0 +1,195 @@
+package ecommerce.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.dto.ItemDoCarrinhoDTO;
+import ecommerce.dto.TotaisCarrinhoDTO;
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+import ecommerce.service.catalogo.CatalogoDePrecificacao;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.service.precificacao.RegrasDePrecificacao;
+import ecommerce.service.precificacao.RegrasVigentes;
+import ecommerce.util.TestUtils;
+
+/**
+ * Sem transação por teste: cada edição é gravada pela transação do serviço e
+ * os totais são comparados com o recálculo completo do carrinho gravado.
+ */
+@DataJpaTest
+@Import({ EdicaoDeCarrinhoService.class, CatalogoDePrecificacao.class, EdicaoDeCarrinhoServiceTest.Regras.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EdicaoDeCarrinhoServiceTest {
+
+    @TestConfiguration
+    static class Regras {
+
+        @Bean
+        RegrasVigentes regrasVigentes() {
+            return new RegrasVigentes(RegrasDePrecificacao.padrao());
+        }
+    }
+
+    @Autowired
+    private EdicaoDeCarrinhoService service;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private CarrinhoDeComprasRepository carrinhoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Cliente cliente;
+    private CarrinhoDeCompras carrinho;
+    private Produto teclado;
+    private Produto cadeira;
+
+    @BeforeEach
+    void setup() {
+        cliente = clienteRepository.save(new Cliente(null, "Cliente", Regiao.SUL, TipoCliente.PRATA));
+        carrinho = carrinhoRepository.save(new CarrinhoDeCompras(null, cliente, new ArrayList<>(), null));
+        teclado = produtoRepository.save(
+                TestUtils.produto("Teclado", "150.00", "1.0", "10", "10", "10", false, TipoProduto.ELETRONICO));
+        cadeira = produtoRepository.save(
+                TestUtils.produto("Cadeira", "320.00", "6.0", "50", "50", "90", true, TipoProduto.MOVEL));
+    }
+
+    @AfterEach
+    void limpar() {
+        carrinhoRepository.deleteAll();
+        clienteRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    private BigDecimal recalcular() {
+        return transactionTemplate.execute(status -> {
+            CarrinhoDeCompras gravado = carrinhoRepository
+                    .findComClienteEItensByIdAndClienteId(carrinho.getId(), cliente.getId()).orElseThrow();
+            return new PrecificacaoFundida().calcularCustoTotal(gravado.getItens(), Regiao.SUL, TipoCliente.PRATA);
+        });
+    }
+
+    @Test
+    void edicoes_devemGravarOsItensEManterOsTotais() {
+        TotaisCarrinhoDTO vazio = service.consultarTotais(carrinho.getId(), cliente.getId());
+        assertThat(vazio.itens()).isZero();
+        assertThat(vazio.custoTotal()).isNull();
+
+        ItemDoCarrinhoDTO teclados = service.adicionarItem(carrinho.getId(), cliente.getId(), teclado.getId(), 2L);
+        assertThat(teclados.totais().custoTotal()).isEqualTo(recalcular());
+
+        ItemDoCarrinhoDTO cadeiras = service.adicionarItem(carrinho.getId(), cliente.getId(), cadeira.getId(), 1L);
+        assertThat(cadeiras.totais().itens()).isEqualTo(2);
+        assertThat(cadeiras.totais().unidadesFrageis()).isEqualTo(1L);
+        assertThat(cadeiras.totais().custoTotal()).isEqualTo(recalcular());
+
+        ItemDoCarrinhoDTO alterado = service.alterarQuantidade(carrinho.getId(), cliente.getId(),
+                teclados.itemId(), 3L);
+        // 3 eletrônicos: 5% de desconto por tipo
+        assertThat(alterado.totais().descontoPorTipo()).isEqualByComparingTo("22.50");
+        assertThat(alterado.totais().custoTotal()).isEqualTo(recalcular());
+
+        TotaisCarrinhoDTO removido = service.removerItem(carrinho.getId(), cliente.getId(), cadeiras.itemId());
+        assertThat(removido.itens()).isEqualTo(1);
+        assertThat(removido.unidadesFrageis()).isZero();
+        assertThat(removido.custoTotal()).isEqualTo(recalcular());
+        assertThat(service.consultarTotais(carrinho.getId(), cliente.getId())).isEqualTo(removido);
+    }
+
+    @Test
+    void carrinhoAlteradoPorFora_deveRemontarOsTotais() {
+        ItemDoCarrinhoDTO teclados = service.adicionarItem(carrinho.getId(), cliente.getId(), teclado.getId(), 1L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            CarrinhoDeCompras gravado = carrinhoRepository.findById(carrinho.getId()).orElseThrow();
+            gravado.getItens().add(TestUtils.item(cadeira, 2));
+        });
+
+        TotaisCarrinhoDTO totais = service.alterarQuantidade(carrinho.getId(), cliente.getId(), teclados.itemId(),
+                4L).totais();
+
+        assertThat(totais.itens()).isEqualTo(2);
+        assertThat(totais.custoTotal()).isEqualTo(recalcular());
+    }
+
+    @Test
+    void quantidadeAlteradaPorFora_deveSerPercebidaNaConsulta() {
+        service.adicionarItem(carrinho.getId(), cliente.getId(), teclado.getId(), 1L);
+        service.adicionarItem(carrinho.getId(), cliente.getId(), cadeira.getId(), 1L);
+
+        // mesmo número de linhas; só as quantidades mudam
+        transactionTemplate.executeWithoutResult(status -> {
+            CarrinhoDeCompras gravado = carrinhoRepository.findById(carrinho.getId()).orElseThrow();
+            gravado.getItens().forEach(item -> item.setQuantidade(item.getQuantidade() + 2));
+        });
+
+        TotaisCarrinhoDTO totais = service.consultarTotais(carrinho.getId(), cliente.getId());
+
+        assertThat(totais.subtotal()).isEqualByComparingTo("1410.00");
+        assertThat(totais.custoTotal()).isEqualTo(recalcular());
+    }
+
+    @Test
+    void produtoAlterado_deveDescartarOsTotais() {
+        service.adicionarItem(carrinho.getId(), cliente.getId(), teclado.getId(), 1L);
+        assertThat(service.tamanho()).isEqualTo(1);
+
+        teclado.setPreco(new BigDecimal("99.90"));
+        produtoRepository.save(teclado);
+
+        assertThat(service.tamanho()).isZero();
+        TotaisCarrinhoDTO totais = service.consultarTotais(carrinho.getId(), cliente.getId());
+        assertThat(totais.subtotal()).isEqualByComparingTo("99.90");
+        assertThat(totais.custoTotal()).isEqualTo(recalcular());
+    }
+
+    @Test
+    void edicaoInvalida_naoDeveAlterarCarrinhoNemTotais() {
+        ItemDoCarrinhoDTO teclados = service.adicionarItem(carrinho.getId(), cliente.getId(), teclado.getId(), 2L);
+        Long outroCliente = clienteRepository.save(new Cliente(null, "Outro", Regiao.SUL, TipoCliente.OURO)).getId();
+
+        assertThatThrownBy(() -> service.adicionarItem(carrinho.getId(), cliente.getId(), -1L, 1L))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Produto não encontrado.");
+        assertThatThrownBy(() -> service.alterarQuantidade(carrinho.getId(), cliente.getId(), teclados.itemId(), 0L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.removerItem(carrinho.getId(), cliente.getId(), -1L))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Item não encontrado no carrinho.");
+        assertThatThrownBy(() -> service.consultarTotais(carrinho.getId(), outroCliente))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Carrinho não encontrado.");
+
+        TotaisCarrinhoDTO totais = service.consultarTotais(carrinho.getId(), cliente.getId());
+        assertThat(totais).isEqualTo(teclados.totais());
+        assertThat(totais.subtotal()).isEqualByComparingTo("300.00");
+        assertThat(List.of(totais.custoTotal())).containsExactly(recalcular());
+    }
+}
@@ -0,0 +1,175 @@
+package ecommerce.service.catalogo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.Cliente;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.repository.CarrinhoDeComprasRepository;
+import ecommerce.repository.ClienteRepository;
+import ecommerce.repository.ProdutoRepository;
+import ecommerce.service.precificacao.PrecificacaoFundida;
+import ecommerce.util.TestUtils;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Sem transação por teste: a invalidação acontece depois do commit das
+ * gravações feitas pelo repositório.
+ */
+@DataJpaTest(properties = { "spring.jpa.properties.hibernate.generate_statistics=true",
+        "ecommerce.catalogo.aquecimento.tamanho-pagina=3" })
+@Import(CatalogoDePrecificacao.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogoDePrecificacaoTest {
+
+    @Autowired
+    private CatalogoDePrecificacao catalogo;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private CarrinhoDeComprasRepository carrinhoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics estatisticas;
+
+    @BeforeEach
+    void setup() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void limpar() {
+        carrinhoRepository.deleteAll();
+        clienteRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    private List<Produto> salvarProdutos(int quantidade) {
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            produtos.add(produtoRepository.save(TestUtils.produto("Produto " + i, (10 + i) + ".00", "1.5",
+                    "20", "30", "40", i % 2 == 0, TipoProduto.values()[i % TipoProduto.values().length])));
+        }
+        return produtos;
+    }
+
+    @Test
+    void aquecer_deveCarregarTodoOCatalogoEmPaginas() {
+        List<Produto> produtos = salvarProdutos(10);
+
+        catalogo.aquecer();
+        estatisticas.clear();
+
+        assertThat(catalogo.tamanho()).isEqualTo(10);
+        for (Produto produto : produtos) {
+            ProdutoSnapshot snapshot = catalogo.buscar(produto.getId());
+            assertThat(snapshot.getPreco()).isEqualByComparingTo(produto.getPreco());
+            assertThat(snapshot.getTipo()).isEqualTo(produto.getTipo());
+            assertThat(snapshot.isFragil()).isEqualTo(produto.isFragil());
+            assertThat(snapshot.getPesoTributavelUnitario()).isEqualByComparingTo(produto.getPesoTributavelUnitario());
+            assertThat(snapshot.getPrecoEmCentavos()).isEqualTo(produto.getPrecoEmCentavos());
+        }
+        assertThat(estatisticas.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void buscar_produtoForaDoCacheDeveSerLidoDoRepositorio() {
+        Produto produto = salvarProdutos(1).get(0);
+
+        assertThat(catalogo.buscar(produto.getId()).getNome()).isEqualTo("Produto 0");
+        assertThat(catalogo.buscar(-1L)).isNull();
+    }
+
+    @Test
+    void alteracaoDeProduto_deveInvalidarACopiaDepoisDoCommit() {
+        Produto produto = salvarProdutos(1).get(0);
+        catalogo.aquecer();
+        assertThat(catalogo.buscar(produto.getId()).getPreco()).isEqualByComparingTo("10.00");
+
+        produto.setPreco(new BigDecimal("99.90"));
+        produtoRepository.save(produto);
+
+        assertThat(catalogo.buscar(produto.getId()).getPreco()).isEqualByComparingTo("99.90");
+        assertThat(catalogo.buscar(produto.getId()).getPrecoEmCentavos()).isEqualTo(9990L);
+
+        produtoRepository.delete(produto);
+
+        assertThat(catalogo.buscar(produto.getId())).isNull();
+    }
+
+    @Test
+    void alteracaoDuranteALeitura_naoDeveDeixarCopiaAntigaNoCache() {
+        Produto produto = TestUtils.produtoPadrao();
+        produto.setId(1L);
+        ProdutoRepository repositorio = mock(ProdutoRepository.class);
+        CatalogoDePrecificacao lento = new CatalogoDePrecificacao(repositorio, 10, 100, Duration.ofHours(1));
+        when(repositorio.findById(1L)).thenAnswer(invocacao -> {
+            // o produto muda e a invalidação chega enquanto a cópia antiga é lida
+            lento.invalidar(new ProdutoAlteradoEvent(1L));
+            return Optional.of(produto);
+        });
+
+        assertThat(lento.buscar(1L)).isNotNull();
+        assertThat(lento.tamanho()).isZero();
+    }
+
+    @Test
+    void resolverItens_naoDeveCarregarProdutosPeloJpa() {
+        List<Produto> produtos = salvarProdutos(5);
+        Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente", Regiao.SUL, TipoCliente.PRATA));
+        List<ItemCompra> itens = new ArrayList<>();
+        for (Produto produto : produtos) {
+            itens.add(TestUtils.item(produto, 2));
+        }
+        CarrinhoDeCompras salvo = carrinhoRepository.save(new CarrinhoDeCompras(null, cliente, itens, null));
+        catalogo.aquecer();
+        estatisticas.clear();
+
+        BigDecimal custoTotal = transactionTemplate.execute(status -> {
+            CarrinhoDeCompras carrinho = carrinhoRepository
+                    .findComClienteEItensByIdAndClienteId(salvo.getId(), cliente.getId()).orElseThrow();
+            List<ItemPrecificavel> resolvidos = catalogo.resolverItens(carrinho.getItens());
+            assertThat(resolvidos).allSatisfy(item -> assertThat(item).isInstanceOf(ItemDeCatalogo.class));
+            return new PrecificacaoFundida().calcularCustoTotal(resolvidos, Regiao.SUL, TipoCliente.PRATA);
+        });
+
+        assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(custoTotal).isEqualTo(
+                new PrecificacaoFundida().calcularCustoTotal(itens, Regiao.SUL, TipoCliente.PRATA));
+    }
+}
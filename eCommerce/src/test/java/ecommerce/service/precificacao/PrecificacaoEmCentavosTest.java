@@ -0,0 +1,105 @@
+package ecommerce.service.precificacao;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.instancio.Select.field;
+
+import java.math.BigDecimal;
+
+import org.instancio.Instancio;
+import org.instancio.junit.InstancioExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import ecommerce.entity.CarrinhoDeCompras;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.util.TestUtils;
+
+/**
+ * Teste de propriedade: para qualquer carrinho válido, o motor em centavos
+ * devolve exatamente o mesmo {@link BigDecimal} que o motor fundido. Em caso de
+ * falha, o {@link InstancioExtension} informa a semente para reproduzir o caso.
+ */
+@ExtendWith(InstancioExtension.class)
+public class PrecificacaoEmCentavosTest {
+
+    private PrecificacaoFundida fundida;
+    private PrecificacaoEmCentavos centavos;
+
+    @BeforeEach
+    void setup() {
+        fundida = new PrecificacaoFundida();
+        centavos = new PrecificacaoEmCentavos(fundida);
+    }
+
+    @RepeatedTest(1000)
+    @DisplayName("Propriedade: centavos == BigDecimal para carrinhos válidos aleatórios")
+    void quandoCarrinhoValidoAleatorio_entaoCentavosIgualAoBigDecimal() {
+        CarrinhoDeCompras carrinho = Instancio.of(CarrinhoDeCompras.class)
+                .ignore(field(CarrinhoDeCompras::getCliente))
+                // atributos derivados (@Transient) são calculados pelo próprio Produto
+                .ignore(field(Produto::getPesoTributavelUnitario))
+                .ignore(field(Produto::getPesoTributavelUnitarioFixo))
+                .ignore(field(Produto::getPrecoEmCentavos))
+                .generate(field(CarrinhoDeCompras::getItens), gen -> gen.collection().minSize(1).maxSize(40))
+                .generate(field(ItemCompra::getQuantidade), gen -> gen.longs().range(1L, 50L))
+                .generate(field(Produto::getPreco),
+                        gen -> gen.math().bigDecimal().range(new BigDecimal("0.00"), new BigDecimal("1500.00")).scale(2))
+                .generate(field(Produto::getPesoFisico),
+                        gen -> gen.math().bigDecimal().range(new BigDecimal("0.001"), new BigDecimal("15.000")).scale(3))
+                .generate(field(Produto::getComprimento),
+                        gen -> gen.math().bigDecimal().range(new BigDecimal("0.1"), new BigDecimal("80.0")).scale(1))
+                .generate(field(Produto::getLargura),
+                        gen -> gen.math().bigDecimal().range(new BigDecimal("0.01"), new BigDecimal("80.00")).scale(2))
+                .generate(field(Produto::getAltura),
+                        gen -> gen.math().bigDecimal().range(new BigDecimal("1"), new BigDecimal("80")).scale(0))
+                .create();
+        Regiao regiao = Instancio.create(Regiao.class);
+        TipoCliente tipoCliente = Instancio.create(TipoCliente.class);
+
+        BigDecimal esperado = fundida.calcularCustoTotal(carrinho, regiao, tipoCliente);
+
+        assertThat(centavos.calcularCustoTotal(carrinho, regiao, tipoCliente))
+                .as("carrinho com %d itens", carrinho.getItens().size())
+                .isEqualTo(esperado);
+    }
+
+    @Test
+    @DisplayName("Valores com mais casas decimais que a escala fixa usam o motor BigDecimal")
+    void quandoValorForaDaEscalaFixa_entaoResultadoIgualAoBigDecimal() {
+        Produto p = TestUtils.produto("Fracionado", "19.995", "0.00000000001", "10.125", "3", "7", true,
+                TipoProduto.LIVRO);
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(p, 3));
+
+        assertThat(centavos.calcularCustoTotal(carrinho, Regiao.NORTE, TipoCliente.PRATA))
+                .isEqualTo(fundida.calcularCustoTotal(carrinho, Regiao.NORTE, TipoCliente.PRATA));
+    }
+
+    @Test
+    @DisplayName("Estouro de long usa o motor BigDecimal")
+    void quandoEstouroDeLong_entaoResultadoIgualAoBigDecimal() {
+        Produto p = TestUtils.produto("Caro", "9999999.99", "900", "500", "500", "500", false, TipoProduto.MOVEL);
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(p, Long.MAX_VALUE / 1000));
+
+        assertThat(centavos.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE))
+                .isEqualTo(fundida.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE));
+    }
+
+    @Test
+    @DisplayName("Entradas inválidas lançam a mesma exceção do motor BigDecimal")
+    void quandoItemInvalido_entaoLancaMesmaExcecao() {
+        Produto p = TestUtils.produto("Sem peso", "10.00", "0", "1", "1", "1", false, TipoProduto.ROUPA);
+        CarrinhoDeCompras carrinho = TestUtils.carrinho(TestUtils.item(TestUtils.produtoPadrao(), 1),
+                TestUtils.item(p, 1));
+
+        assertThatThrownBy(() -> centavos.calcularCustoTotal(carrinho, Regiao.SUDESTE, TipoCliente.BRONZE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Peso físico inválido (deve ser > 0) no produto: Sem peso");
+    }
+}
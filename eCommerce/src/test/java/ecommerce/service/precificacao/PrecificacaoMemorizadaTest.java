@@ -0,0 +1,162 @@
+package ecommerce.service.precificacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.catalogo.ItemDeCatalogo;
+import ecommerce.service.catalogo.ProdutoAlteradoEvent;
+import ecommerce.service.catalogo.ProdutoSnapshot;
+import ecommerce.util.TestUtils;
+
+public class PrecificacaoMemorizadaTest {
+
+    private RegrasVigentes vigentes;
+    private AtomicInteger calculos;
+    private PrecificacaoMemorizada memorizada;
+
+    private Produto teclado;
+    private Produto mouse;
+
+    @BeforeEach
+    void setup() {
+        vigentes = new RegrasVigentes(RegrasDePrecificacao.padrao());
+        calculos = new AtomicInteger();
+        PrecificacaoFundida fundida = new PrecificacaoFundida(vigentes);
+        MotorDePrecificacao contador = new MotorDePrecificacao() {
+
+            @Override
+            public BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itens, Regiao regiao,
+                    TipoCliente tipoCliente) {
+                calculos.incrementAndGet();
+                return fundida.calcularCustoTotal(itens, regiao, tipoCliente);
+            }
+
+            @Override
+            public BigDecimal calcularCustoTotal(List<? extends ItemPrecificavel> itens, Regiao regiao,
+                    TipoCliente tipoCliente, RastroDePrecificacao rastro) {
+                calculos.incrementAndGet();
+                return fundida.calcularCustoTotal(itens, regiao, tipoCliente, rastro);
+            }
+        };
+        memorizada = new PrecificacaoMemorizada(contador, vigentes, Caffeine.newBuilder().maximumSize(100).build());
+
+        teclado = TestUtils.produto("Teclado", "150.00", "1.0", "10", "10", "10", false, TipoProduto.ELETRONICO);
+        teclado.setId(1L);
+        mouse = TestUtils.produto("Mouse", "80.00", "0.3", "10", "10", "10", true, TipoProduto.ELETRONICO);
+        mouse.setId(2L);
+    }
+
+    private static List<ItemPrecificavel> carrinho(ProdutoSnapshot teclado, ProdutoSnapshot mouse) {
+        return List.of(new ItemDeCatalogo(teclado, 2L), new ItemDeCatalogo(mouse, 1L));
+    }
+
+    @Test
+    void mesmoCarrinho_deveSerCalculadoUmaVez() {
+        List<ItemPrecificavel> itens = carrinho(ProdutoSnapshot.de(teclado), ProdutoSnapshot.de(mouse));
+
+        BigDecimal primeiro = memorizada.calcularCustoTotal(itens, Regiao.SUL, TipoCliente.BRONZE);
+        BigDecimal segundo = memorizada.calcularCustoTotal(List.copyOf(itens), Regiao.SUL, TipoCliente.BRONZE);
+
+        // 3 eletrônicos: 380,00 - 5% + taxa do mouse frágil
+        assertThat(primeiro).isEqualByComparingTo("366.00");
+        assertThat(segundo).isSameAs(primeiro);
+        assertThat(calculos).hasValue(1);
+
+        memorizada.calcularCustoTotal(itens, Regiao.NORTE, TipoCliente.BRONZE);
+        memorizada.calcularCustoTotal(itens, Regiao.SUL, TipoCliente.OURO);
+        memorizada.calcularCustoTotal(List.of(itens.get(0)), Regiao.SUL, TipoCliente.BRONZE);
+
+        assertThat(calculos).hasValue(4);
+        assertThat(memorizada.tamanho()).isEqualTo(4);
+    }
+
+    @Test
+    void produtoAlterado_deveSerRecalculadoEInvalidado() {
+        ProdutoSnapshot mouseAntigo = ProdutoSnapshot.de(mouse);
+        BigDecimal antes = memorizada.calcularCustoTotal(carrinho(ProdutoSnapshot.de(teclado), mouseAntigo),
+                Regiao.SUL, TipoCliente.BRONZE);
+        memorizada.calcularCustoTotal(List.of(new ItemDeCatalogo(ProdutoSnapshot.de(teclado), 1L)), Regiao.SUL,
+                TipoCliente.BRONZE);
+
+        mouse.setPreco(new BigDecimal("100.00"));
+        BigDecimal depois = memorizada.calcularCustoTotal(carrinho(ProdutoSnapshot.de(teclado),
+                ProdutoSnapshot.de(mouse)), Regiao.SUL, TipoCliente.BRONZE);
+
+        assertThat(antes).isEqualByComparingTo("366.00");
+        assertThat(depois).isEqualByComparingTo("385.00");
+        assertThat(calculos).hasValue(3);
+
+        memorizada.invalidar(new ProdutoAlteradoEvent(2L));
+
+        // só a cotação sem o mouse continua memorizada
+        assertThat(memorizada.tamanho()).isEqualTo(1);
+    }
+
+    @Test
+    void regrasTrocadas_deveLimparAsCotacoes() {
+        List<ItemPrecificavel> itens = carrinho(ProdutoSnapshot.de(teclado), ProdutoSnapshot.de(mouse));
+        memorizada.calcularCustoTotal(itens, Regiao.SUL, TipoCliente.BRONZE);
+
+        vigentes.trocar(RegrasDePrecificacao.compilar(List.of(), List.of(), BigDecimal.ZERO, Map.of(), Map.of(),
+                Map.of()));
+
+        assertThat(memorizada.calcularCustoTotal(itens, Regiao.SUL, TipoCliente.BRONZE))
+                .isEqualByComparingTo("385.00");
+        assertThat(calculos).hasValue(2);
+        assertThat(memorizada.tamanho()).isEqualTo(1);
+    }
+
+    @Test
+    void semVersaoOuComErro_naoDeveMemorizar() {
+        List<ItemPrecificavel> entidades = List.of(TestUtils.item(teclado, 2), TestUtils.item(mouse, 1));
+        memorizada.calcularCustoTotal(entidades, Regiao.SUL, TipoCliente.BRONZE);
+        memorizada.calcularCustoTotal(entidades, Regiao.SUL, TipoCliente.BRONZE);
+
+        List<ItemPrecificavel> invalido = List.of(new ItemDeCatalogo(ProdutoSnapshot.de(teclado), 0L));
+        assertThatThrownBy(() -> memorizada.calcularCustoTotal(invalido, Regiao.SUL, TipoCliente.BRONZE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memorizada.calcularCustoTotal(invalido, Regiao.SUL, TipoCliente.BRONZE))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(calculos).hasValue(4);
+        assertThat(memorizada.tamanho()).isZero();
+    }
+
+    @Test
+    void impressaoDigital_deveMudarComOConteudoQueDefineOCusto() {
+        ProdutoSnapshot tecladoAtual = ProdutoSnapshot.de(teclado);
+        ProdutoSnapshot mouseAtual = ProdutoSnapshot.de(mouse);
+        String impressao = memorizada.impressaoDigital(carrinho(tecladoAtual, mouseAtual), Regiao.SUL,
+                TipoCliente.BRONZE);
+
+        assertThat(memorizada.impressaoDigital(carrinho(tecladoAtual, mouseAtual), Regiao.SUL, TipoCliente.BRONZE))
+                .isEqualTo(impressao).hasSize(22);
+        assertThat(memorizada.impressaoDigital(carrinho(tecladoAtual, ProdutoSnapshot.de(mouse)), Regiao.SUL,
+                TipoCliente.BRONZE)).isNotEqualTo(impressao);
+        assertThat(memorizada.impressaoDigital(carrinho(tecladoAtual, mouseAtual), Regiao.SUL, TipoCliente.OURO))
+                .isNotEqualTo(impressao);
+        assertThat(memorizada.impressaoDigital(List.of(TestUtils.item(teclado, 2)), Regiao.SUL, TipoCliente.BRONZE))
+                .isNull();
+
+        vigentes.trocar(RegrasDePrecificacao.padrao());
+
+        assertThat(memorizada.impressaoDigital(carrinho(tecladoAtual, mouseAtual), Regiao.SUL, TipoCliente.BRONZE))
+                .isNotEqualTo(impressao);
+        assertThat(calculos).hasValue(0);
+    }
+}
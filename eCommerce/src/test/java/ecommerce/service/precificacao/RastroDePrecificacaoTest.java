@@ -0,0 +1,123 @@
+package ecommerce.service.precificacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ecommerce.dto.ExplicacaoCustoDTO;
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.util.TestUtils;
+
+public class RastroDePrecificacaoTest {
+
+    private PrecificacaoFundida fundida;
+
+    @BeforeEach
+    void setup() {
+        fundida = new PrecificacaoFundida();
+    }
+
+    private static List<ItemCompra> carrinhoMisto() {
+        // peso físico maior que o cúbico (0,1667 kg)
+        Produto pesado = TestUtils.produto("Pesado", "300.00", "1.0", "10", "10", "10", false, TipoProduto.ELETRONICO);
+        pesado.setId(1L);
+        // peso cúbico (4 kg) maior que o físico
+        Produto volumoso = TestUtils.produto("Volumoso", "50.00", "0.5", "40", "30", "20", true, TipoProduto.MOVEL);
+        volumoso.setId(2L);
+        return List.of(TestUtils.item(pesado, 2), TestUtils.item(volumoso, 1));
+    }
+
+    @Test
+    void explicar_deveDetalharItensEFaixasDoCarrinho() {
+        RastroDePrecificacao rastro = new RastroDePrecificacao();
+
+        BigDecimal custoTotal = fundida.calcularCustoTotal(carrinhoMisto(), Regiao.SUDESTE, TipoCliente.BRONZE, rastro);
+        ExplicacaoCustoDTO explicacao = rastro.explicar();
+
+        assertThat(custoTotal).isEqualByComparingTo("602.00");
+        assertThat(explicacao.custoTotal()).isEqualTo(custoTotal);
+        assertThat(explicacao.subtotal()).isEqualByComparingTo("650.00");
+        assertThat(explicacao.percentualDesconto()).isEqualByComparingTo("0.10");
+        assertThat(explicacao.desconto()).isEqualByComparingTo("65.00");
+        assertThat(explicacao.pesoTotal()).isEqualByComparingTo("6.0");
+        assertThat(explicacao.faixaFrete()).isEqualTo(1);
+        assertThat(explicacao.fretePorKg()).isEqualByComparingTo("2.00");
+        assertThat(explicacao.frete()).isEqualByComparingTo("12.00");
+        assertThat(explicacao.taxaFragilidade()).isEqualByComparingTo("5.00");
+        assertThat(explicacao.multiplicadorRegiao()).isEqualByComparingTo("1");
+        assertThat(explicacao.descontoFreteCliente()).isZero();
+        assertThat(explicacao.freteTotal()).isEqualByComparingTo("17.00");
+
+        ExplicacaoCustoDTO.Item pesado = explicacao.itens().get(0);
+        assertThat(pesado.produtoId()).isEqualTo(1L);
+        assertThat(pesado.subtotal()).isEqualByComparingTo("600.00");
+        assertThat(pesado.pesoCubicoAplicado()).isFalse();
+        assertThat(pesado.pesoTributavel()).isEqualByComparingTo("2.0");
+        assertThat(pesado.taxaFragilidade()).isZero();
+
+        ExplicacaoCustoDTO.Item volumoso = explicacao.itens().get(1);
+        assertThat(volumoso.pesoCubico()).isEqualByComparingTo("4");
+        assertThat(volumoso.pesoCubicoAplicado()).isTrue();
+        assertThat(volumoso.pesoTributavel()).isEqualByComparingTo("4");
+        assertThat(volumoso.taxaFragilidade()).isEqualByComparingTo("5.00");
+    }
+
+    @Test
+    void rastroReaproveitado_deveCrescerEDarOMesmoValorQueSemRastro() {
+        RastroDePrecificacao rastro = new RastroDePrecificacao(1);
+        Random aleatorio = new Random(42);
+        TipoProduto[] tipos = TipoProduto.values();
+
+        for (int tamanho : new int[] { 3, 150, 1, 40 }) {
+            List<ItemCompra> itens = new ArrayList<>();
+            for (int i = 0; i < tamanho; i++) {
+                Produto produto = TestUtils.produto("Produto " + i, aleatorio.nextInt(50_000) / 100 + ".00",
+                        "0." + (1 + aleatorio.nextInt(9)), String.valueOf(1 + aleatorio.nextInt(60)),
+                        String.valueOf(1 + aleatorio.nextInt(60)), String.valueOf(1 + aleatorio.nextInt(60)),
+                        aleatorio.nextBoolean(), tipos[i % tipos.length]);
+                itens.add(TestUtils.item(produto, 1 + aleatorio.nextInt(5)));
+            }
+
+            BigDecimal comRastro = fundida.calcularCustoTotal(itens, Regiao.SUL, TipoCliente.OURO, rastro);
+            BigDecimal semRastro = fundida.calcularCustoTotal(itens, Regiao.SUL, TipoCliente.OURO);
+
+            assertThat(comRastro).isEqualTo(semRastro);
+            assertThat(rastro.tamanho()).isEqualTo(tamanho);
+            assertThat(rastro.explicar().itens()).hasSize(tamanho);
+        }
+    }
+
+    @Test
+    void motorEmCentavos_deveExplicarPeloMotorAlternativo() {
+        RastroDePrecificacao rastro = new RastroDePrecificacao();
+
+        BigDecimal custoTotal = new PrecificacaoEmCentavos(fundida).calcularCustoTotal(carrinhoMisto(), Regiao.SUL,
+                TipoCliente.PRATA, rastro);
+
+        assertThat(custoTotal).isEqualByComparingTo("602.00");
+        assertThat(rastro.explicar().itens()).hasSize(2);
+    }
+
+    @Test
+    void explicar_semCalculoConcluido_deveLancarExcecao() {
+        RastroDePrecificacao rastro = new RastroDePrecificacao();
+        List<ItemCompra> itens = List.of(TestUtils.item(TestUtils.produtoPadrao(), 1),
+                TestUtils.item(TestUtils.produtoPadrao(), 0));
+
+        assertThatThrownBy(rastro::explicar).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> fundida.calcularCustoTotal(itens, Regiao.SUL, TipoCliente.PRATA, rastro))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(rastro::explicar).isInstanceOf(IllegalStateException.class);
+    }
+}
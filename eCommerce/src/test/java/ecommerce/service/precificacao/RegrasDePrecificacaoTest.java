@@ -0,0 +1,215 @@
+package ecommerce.service.precificacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.entity.ItemCompra;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.precificacao.RegrasDePrecificacao.Faixa;
+import ecommerce.service.util.MetodosAuxilar;
+import ecommerce.util.TestUtils;
+
+public class RegrasDePrecificacaoTest {
+
+    private static Faixa faixa(String limite, String valor) {
+        return new Faixa(new BigDecimal(limite), new BigDecimal(valor));
+    }
+
+    private static RegrasDePrecificacao regras(Map<Regiao, BigDecimal> multiplicadores,
+            Map<TipoCliente, BigDecimal> descontosDeFrete) {
+        RegrasDePrecificacao padrao = RegrasDePrecificacao.padrao();
+        return RegrasDePrecificacao.compilar(padrao.descontoPorValor(), padrao.faixasDeFrete(),
+                padrao.freteAcimaDasFaixas(), multiplicadores, descontosDeFrete, Map.of());
+    }
+
+    /** 5 unidades de R$ 100,00 e 10 kg: 10% de desconto e frete de R$ 20,00 nas regras padrão. */
+    private static List<ItemCompra> carrinho() {
+        return List.of(TestUtils.item(TestUtils.produto("Produto", "100.00", "2.0", "1", "1", "1", false,
+                TipoProduto.LIVRO), 5));
+    }
+
+    @Test
+    void padrao_deveSerIgualAsRegrasFixasNosLimitesDasFaixas() {
+        RegrasDePrecificacao padrao = RegrasDePrecificacao.padrao();
+
+        for (String valor : new String[] { "0.00", "499.99", "500.00", "500.01", "999.99", "1000.00", "1500.50" }) {
+            BigDecimal subtotal = new BigDecimal(valor);
+            assertThat(padrao.calcularDescontoPorValor(subtotal)).as(valor)
+                    .isEqualTo(MetodosAuxilar.calcularDescontoPorValor(subtotal));
+        }
+        for (String valor : new String[] { "0.1", "5.00", "5.01", "10.00", "10.0001", "50.00", "50.01", "120" }) {
+            BigDecimal peso = new BigDecimal(valor);
+            assertThat(padrao.calcularFrete(peso)).as(valor).isEqualTo(MetodosAuxilar.calcularFrete(peso));
+        }
+        assertThat(padrao.calcularFaixaDeFrete(new BigDecimal("5.00"))).isZero();
+        assertThat(padrao.calcularFaixaDeFrete(new BigDecimal("50.01"))).isEqualTo(3);
+        assertThat(padrao.quantidadeDeFaixasDeFrete()).isEqualTo(4);
+    }
+
+    @Test
+    void compilar_deveOrdenarAsFaixasEBuscarPorLimite() {
+        RegrasDePrecificacao regras = RegrasDePrecificacao.compilar(
+                List.of(faixa("300", "0.15"), faixa("100", "0.05"), faixa("200", "0.10")),
+                List.of(faixa("20", "3.00"), faixa("2", "1.00")), new BigDecimal("9.00"), Map.of(), Map.of(),
+                Map.of(TipoProduto.ROUPA, List.of(faixa("8", "0.15"), faixa("3", "0.05"), faixa("5", "0.10"))));
+
+        assertThat(regras.calcularPercentualDesconto(new BigDecimal("99.99"))).isZero();
+        assertThat(regras.calcularPercentualDesconto(new BigDecimal("200.00"))).isEqualByComparingTo("0.10");
+        assertThat(regras.calcularPercentualDesconto(new BigDecimal("5000"))).isEqualByComparingTo("0.15");
+        assertThat(regras.calcularFrete(new BigDecimal("2"))).isEqualByComparingTo("2.00");
+        assertThat(regras.calcularFrete(new BigDecimal("20"))).isEqualByComparingTo("60.00");
+        assertThat(regras.calcularFrete(new BigDecimal("21"))).isEqualByComparingTo("189.00");
+
+        assertThat(regras.calcularPercentualDescontoPorQuantidade(TipoProduto.ROUPA, 2)).isZero();
+        assertThat(regras.calcularPercentualDescontoPorQuantidade(TipoProduto.ROUPA, 4)).isEqualByComparingTo("0.05");
+        assertThat(regras.calcularPercentualDescontoPorQuantidade(TipoProduto.ROUPA, 5)).isEqualByComparingTo("0.10");
+        assertThat(regras.calcularPercentualDescontoPorQuantidade(TipoProduto.ROUPA, 80)).isEqualByComparingTo("0.15");
+        assertThat(regras.calcularPercentualDescontoPorQuantidade(TipoProduto.LIVRO, 80)).isZero();
+    }
+
+    @Test
+    void compilar_regrasInvalidas_deveLancarExcecao() {
+        assertThatThrownBy(() -> RegrasDePrecificacao.compilar(List.of(faixa("500", "0.10"), faixa("500.00", "0.20")),
+                List.of(), BigDecimal.ONE, Map.of(), Map.of(), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("repetido");
+        assertThatThrownBy(() -> RegrasDePrecificacao.compilar(List.of(faixa("500", "1.10")), List.of(),
+                BigDecimal.ONE, Map.of(), Map.of(), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("100%");
+        assertThatThrownBy(() -> RegrasDePrecificacao.compilar(List.of(), List.of(faixa("5", "-1")),
+                BigDecimal.ONE, Map.of(), Map.of(), Map.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RegrasDePrecificacao.compilar(List.of(), List.of(), BigDecimal.ONE, Map.of(),
+                Map.of(), Map.of(TipoProduto.MOVEL, List.of(faixa("2.5", "0.05")))))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Quantidade");
+    }
+
+    @Test
+    void descontoPorQuantidade_deveSomarAsUnidadesDoTipoEmTodosOsItens() {
+        Produto camisa = TestUtils.produto("Camisa", "40.00", "0.2", "1", "1", "1", false, TipoProduto.ROUPA);
+        Produto calca = TestUtils.produto("Calça", "60.00", "0.3", "1", "1", "1", false, TipoProduto.ROUPA);
+        Produto livro = TestUtils.produto("Livro", "50.00", "0.5", "1", "1", "1", false, TipoProduto.LIVRO);
+        // 5 roupas (R$ 260,00) em dois itens: 10%; 2 livros (R$ 100,00): sem desconto
+        List<ItemCompra> itens = List.of(TestUtils.item(camisa, 2), TestUtils.item(livro, 2),
+                TestUtils.item(calca, 3));
+        PrecificacaoFundida fundida = new PrecificacaoFundida();
+        RastroDePrecificacao rastro = new RastroDePrecificacao();
+
+        BigDecimal custoTotal = fundida.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE, rastro);
+
+        assertThat(custoTotal).isEqualByComparingTo("334.00");
+        assertThat(rastro.explicar().descontoPorTipo()).isEqualByComparingTo("26.00");
+        assertThat(new PrecificacaoEmCentavos(fundida).calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE))
+                .isEqualTo(custoTotal);
+    }
+
+    @Test
+    void descontoPorQuantidade_deveValerAntesDoDescontoPorValor() {
+        // 3 × R$ 200,00: 5% por tipo => 570,00, e 10% por valor sobre os 570,00 => 513,00
+        List<ItemCompra> itens = List.of(TestUtils.item(TestUtils.produto("Mesa", "200.00", "0.1", "1", "1", "1",
+                false, TipoProduto.MOVEL), 3));
+        RegrasVigentes vigentes = new RegrasVigentes(RegrasDePrecificacao.padrao());
+        PrecificacaoFundida fundida = new PrecificacaoFundida(vigentes);
+        PrecificacaoEmCentavos centavos = new PrecificacaoEmCentavos(vigentes, fundida);
+
+        assertThat(fundida.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE)).isEqualByComparingTo("513.00");
+        assertThat(centavos.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE))
+                .isEqualTo(new BigDecimal("513.00"));
+
+        // 16,66% por tipo => 500,04, que ainda atinge a faixa de 10% por valor; o percentual
+        // não cabe na escala do motor em centavos, que usa o alternativo
+        vigentes.trocar(RegrasDePrecificacao.compilar(RegrasDePrecificacao.padrao().descontoPorValor(), List.of(),
+                BigDecimal.ZERO, Map.of(), Map.of(), Map.of(TipoProduto.MOVEL, List.of(faixa("3", "0.1666")))));
+
+        assertThat(fundida.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE)).isEqualByComparingTo("450.04");
+        assertThat(centavos.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE))
+                .isEqualTo(fundida.calcularCustoTotal(itens, Regiao.SUDESTE, TipoCliente.BRONZE));
+    }
+
+    @Test
+    void ajusteDeFrete_deveAplicarRegiaoEDepoisTipoDeCliente() {
+        RegrasDePrecificacao regras = regras(Map.of(Regiao.NORTE, new BigDecimal("1.30")),
+                Map.of(TipoCliente.PRATA, new BigDecimal("0.50"), TipoCliente.OURO, BigDecimal.ONE));
+        PrecificacaoFundida fundida = new PrecificacaoFundida(() -> regras);
+
+        assertThat(fundida.calcularCustoTotal(carrinho(), Regiao.SUDESTE, TipoCliente.BRONZE))
+                .isEqualByComparingTo("470.00");
+        assertThat(fundida.calcularCustoTotal(carrinho(), Regiao.NORTE, TipoCliente.BRONZE))
+                .isEqualByComparingTo("476.00");
+        assertThat(fundida.calcularCustoTotal(carrinho(), Regiao.NORTE, TipoCliente.PRATA))
+                .isEqualByComparingTo("463.00");
+        assertThat(fundida.calcularCustoTotal(carrinho(), Regiao.NORTE, TipoCliente.OURO))
+                .isEqualByComparingTo("450.00");
+        assertThat(regras.freteSemAjuste(Regiao.SUDESTE, TipoCliente.BRONZE)).isTrue();
+        assertThat(regras.freteSemAjuste(Regiao.NORTE, TipoCliente.BRONZE)).isFalse();
+    }
+
+    @Test
+    void motorEmCentavos_deveSeguirAsRegrasVigentes() {
+        RegrasVigentes vigentes = new RegrasVigentes(RegrasDePrecificacao.padrao());
+        PrecificacaoFundida fundida = new PrecificacaoFundida(vigentes);
+        PrecificacaoEmCentavos centavos = new PrecificacaoEmCentavos(vigentes, fundida);
+
+        vigentes.trocar(RegrasDePrecificacao.compilar(List.of(faixa("400", "0.25")), List.of(faixa("1", "0")),
+                new BigDecimal("1.50"), Map.of(Regiao.SUL, new BigDecimal("2")), Map.of(), Map.of()));
+
+        // 500 - 25% + 10 kg × 1,50
+        assertThat(centavos.calcularCustoTotal(carrinho(), Regiao.SUDESTE, TipoCliente.BRONZE))
+                .isEqualTo(new BigDecimal("390.00"));
+        // região com multiplicador: calculado pelo alternativo
+        assertThat(centavos.calcularCustoTotal(carrinho(), Regiao.SUL, TipoCliente.BRONZE))
+                .isEqualTo(fundida.calcularCustoTotal(carrinho(), Regiao.SUL, TipoCliente.BRONZE))
+                .isEqualByComparingTo("405.00");
+    }
+
+    @Test
+    void trocar_deveValerParaAsCotacoesSeguintesSemInterromperAsEmAndamento() throws Exception {
+        RegrasDePrecificacao semDesconto = RegrasDePrecificacao.compilar(List.of(),
+                RegrasDePrecificacao.padrao().faixasDeFrete(), RegrasDePrecificacao.padrao().freteAcimaDasFaixas(),
+                Map.of(), Map.of(), Map.of());
+        RegrasVigentes vigentes = new RegrasVigentes(RegrasDePrecificacao.padrao());
+        PrecificacaoFundida fundida = new PrecificacaoFundida(vigentes);
+        BigDecimal comRegrasPadrao = fundida.calcularCustoTotal(carrinho(), Regiao.SUL, TipoCliente.BRONZE);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<BigDecimal>>> cotacoes = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                cotacoes.add(executor.submit(() -> {
+                    List<BigDecimal> valores = new ArrayList<>();
+                    for (int i = 0; i < 2_000; i++) {
+                        valores.add(fundida.calcularCustoTotal(carrinho(), Regiao.SUL, TipoCliente.BRONZE));
+                    }
+                    return valores;
+                }));
+            }
+            for (int i = 0; i < 100; i++) {
+                vigentes.trocar(i % 2 == 0 ? semDesconto : RegrasDePrecificacao.padrao());
+            }
+            for (Future<List<BigDecimal>> cotacao : cotacoes) {
+                assertThat(cotacao.get(10, TimeUnit.SECONDS))
+                        .allSatisfy(valor -> assertThat(valor).isIn(comRegrasPadrao, new BigDecimal("520.00")));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(vigentes.versao()).isEqualTo(101);
+        assertThat(vigentes.trocar(semDesconto)).isSameAs(RegrasDePrecificacao.padrao());
+        assertThat(fundida.calcularCustoTotal(carrinho(), Regiao.SUL, TipoCliente.BRONZE))
+                .isEqualByComparingTo("520.00");
+    }
+}
@@ -0,0 +1,141 @@
+package ecommerce.service.precificacao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.entity.ItemPrecificavel;
+import ecommerce.entity.Produto;
+import ecommerce.entity.Regiao;
+import ecommerce.entity.TipoCliente;
+import ecommerce.entity.TipoProduto;
+import ecommerce.service.catalogo.ItemDeCatalogo;
+import ecommerce.service.catalogo.ProdutoSnapshot;
+import ecommerce.util.TestUtils;
+
+public class TotaisDoCarrinhoTest {
+
+    private final RegrasDePrecificacao regras = RegrasDePrecificacao.padrao();
+    private final PrecificacaoFundida fundida = new PrecificacaoFundida();
+
+    @Test
+    void edicoes_devemManterOsTotaisDoRecalculoCompleto() {
+        Random aleatorio = new Random(7);
+        TipoProduto[] tipos = TipoProduto.values();
+        List<ProdutoSnapshot> produtos = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Produto produto = TestUtils.produto("Produto " + i, aleatorio.nextInt(40_000) / 100 + ".00",
+                    "0." + (1 + aleatorio.nextInt(9)), String.valueOf(1 + aleatorio.nextInt(60)),
+                    String.valueOf(1 + aleatorio.nextInt(60)), String.valueOf(1 + aleatorio.nextInt(60)),
+                    aleatorio.nextBoolean(), tipos[i % tipos.length]);
+            produto.setId((long) i);
+            produtos.add(ProdutoSnapshot.de(produto));
+        }
+
+        TotaisDoCarrinho totais = new TotaisDoCarrinho();
+        Map<Long, ItemDeCatalogo> linhas = new LinkedHashMap<>();
+        for (long passo = 0; passo < 500; passo++) {
+            int operacao = aleatorio.nextInt(3);
+            List<Long> existentes = new ArrayList<>(linhas.keySet());
+            if (operacao == 0 || existentes.isEmpty()) {
+                ProdutoSnapshot produto = produtos.get(aleatorio.nextInt(produtos.size()));
+                long quantidade = 1 + aleatorio.nextInt(6);
+                totais.adicionar(passo, produto, quantidade);
+                linhas.put(passo, new ItemDeCatalogo(produto, quantidade));
+            } else {
+                Long linha = existentes.get(aleatorio.nextInt(existentes.size()));
+                if (operacao == 1) {
+                    long quantidade = 1 + aleatorio.nextInt(6);
+                    totais.alterarQuantidade(linha, quantidade);
+                    linhas.put(linha, new ItemDeCatalogo(linhas.get(linha).getProduto(), quantidade));
+                } else {
+                    totais.remover(linha);
+                    linhas.remove(linha);
+                }
+            }
+
+            assertThat(totais.quantidadeDeLinhas()).isEqualTo(linhas.size());
+            if (!linhas.isEmpty()) {
+                List<ItemPrecificavel> itens = new ArrayList<>(linhas.values());
+                assertThat(totais.calcularCustoTotal(regras, Regiao.NORDESTE, TipoCliente.PRATA))
+                        .isEqualTo(fundida.calcularCustoTotal(itens, Regiao.NORDESTE, TipoCliente.PRATA));
+            }
+        }
+    }
+
+    @Test
+    void faixas_devemSairDosAcumulados() {
+        Produto livro = TestUtils.produto("Livro", "100.00", "1.0", "10", "10", "10", false, TipoProduto.LIVRO);
+        livro.setId(1L);
+        Produto vaso = TestUtils.produto("Vaso", "200.00", "2.0", "10", "10", "10", true, TipoProduto.MOVEL);
+        vaso.setId(2L);
+        TotaisDoCarrinho totais = new TotaisDoCarrinho();
+
+        totais.adicionar(10L, ProdutoSnapshot.de(livro), 2);
+        assertThat(totais.subtotal()).isEqualByComparingTo("200.00");
+        assertThat(totais.calcularDescontoPorTipo(regras)).isZero();
+        assertThat(totais.calcularPercentualDesconto(regras)).isZero();
+        assertThat(totais.calcularFaixaDeFrete(regras)).isZero();
+
+        totais.adicionar(20L, ProdutoSnapshot.de(vaso), 2);
+        totais.alterarQuantidade(10L, 3);
+        // 3 livros: 5% de 300,00; 685,00 fica na faixa de 10%; 7 kg na segunda faixa de frete
+        assertThat(totais.calcularDescontoPorTipo(regras)).isEqualByComparingTo("15.00");
+        assertThat(totais.calcularPercentualDesconto(regras)).isEqualByComparingTo("0.10");
+        assertThat(totais.pesoTributavel()).isEqualByComparingTo("7.0");
+        assertThat(totais.calcularFaixaDeFrete(regras)).isEqualTo(1);
+        assertThat(totais.unidadesFrageis()).isEqualTo(2);
+        assertThat(totais.referencia(2L)).isTrue();
+
+        totais.remover(20L);
+        assertThat(totais.subtotal()).isEqualByComparingTo("300.00");
+        assertThat(totais.unidadesFrageis()).isZero();
+        assertThat(totais.referencia(2L)).isFalse();
+        assertThat(totais.quantidade(10L)).isEqualTo(3L);
+        assertThat(totais.quantidade(20L)).isNull();
+        assertThat(totais.assinatura()).isEqualTo(new AssinaturaDoCarrinho(1, 3, AssinaturaDoCarrinho.linha(10, 3)));
+    }
+
+    @Test
+    void linhasDiferentesComAsMesmasSomas_devemTerAssinaturasDiferentes() {
+        ProdutoSnapshot livro = ProdutoSnapshot.de(
+                TestUtils.produto("Livro", "100.00", "1.0", "10", "10", "10", false, TipoProduto.LIVRO));
+        // mesmas linhas, unidades e soma de id × quantidade: (2, 4, 7)
+        TotaisDoCarrinho totais = new TotaisDoCarrinho();
+        totais.adicionar(1L, livro, 3);
+        totais.adicionar(4L, livro, 1);
+        TotaisDoCarrinho outros = new TotaisDoCarrinho();
+        outros.adicionar(1L, livro, 1);
+        outros.adicionar(2L, livro, 3);
+
+        assertThat(totais.assinatura()).isNotEqualTo(outros.assinatura());
+
+        outros.alterarQuantidade(1L, 3);
+        outros.remover(2L);
+        outros.adicionar(4L, livro, 1);
+        assertThat(outros.assinatura()).isEqualTo(totais.assinatura());
+    }
+
+    @Test
+    void carrinhoVazioOuLinhaInexistente_deveLancarExcecao() {
+        TotaisDoCarrinho totais = new TotaisDoCarrinho();
+
+        assertThatThrownBy(() -> totais.calcularCustoTotal(regras, Regiao.SUL, TipoCliente.OURO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> totais.alterarQuantidade(1L, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        totais.adicionar(1L, ProdutoSnapshot.de(TestUtils.produtoPadrao()), 1);
+        assertThatThrownBy(() -> totais.calcularCustoTotal(regras, null, TipoCliente.OURO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(totais.subtotal()).isEqualByComparingTo(TestUtils.produtoPadrao().getPreco());
+    }
+}